@@ -0,0 +1,375 @@
+package be.uantwerpen.sd.project;
+
+import be.uantwerpen.sd.project.GroceryList.GroceryList;
+import be.uantwerpen.sd.project.GroceryList.GroceryListObserver;
+import be.uantwerpen.sd.project.Persistence.MutationJournal;
+import be.uantwerpen.sd.project.Persistence.RecipeBinary;
+import be.uantwerpen.sd.project.Persistence.RecipeYaml;
+import be.uantwerpen.sd.project.Planner.MealPlanObserver;
+import be.uantwerpen.sd.project.Planner.MealPlanService;
+import be.uantwerpen.sd.project.Planner.MealSlot;
+import be.uantwerpen.sd.project.Planner.WeekPlan;
+import be.uantwerpen.sd.project.Recipe.Recipe;
+import be.uantwerpen.sd.project.Recipe.RecipeService;
+import be.uantwerpen.sd.project.Recipe.RecipeSortStrategy;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Façade over {@link RecipeService}, {@link MealPlanService} and its {@link GroceryList}
+ * that keeps all model work off the caller's (UI) thread.
+ *
+ * Design notes:
+ * - Every mutation and query runs on one dedicated "model-worker" thread, so the
+ *   (single-threaded) week plan is only ever touched from that thread and operations
+ *   apply in submission order. Each call returns a {@link CompletableFuture}; callers
+ *   marshal the result back to their own thread.
+ * - Title/tag searches run on virtual threads instead, so a long scan never delays
+ *   mutations. Cancelling the returned future interrupts the scan.
+ * - Observers registered through the façade are called on the model thread.
+ * - With a journal opened ({@link #openJournal}), an autosave timer on the model thread
+ *   writes the recipes and plan cells changed since the previous autosave (the services
+ *   track what is dirty) to a {@link MutationJournal}, and compacts the journal into a
+ *   snapshot once it has grown large enough. {@link #close()} flushes the last changes.
+ *   Changes taken for a write stay with that write until it is durable; if it fails they
+ *   are handed back to the services' change tracking, so the next autosave retries them.
+ *   Failed autosaves and compactions go to the error handler passed to {@link #openJournal},
+ *   so the application decides how the user hears about them.
+ */
+public class AsyncServiceFacade implements AutoCloseable {
+    private final RecipeService recipes;
+    private final MealPlanService planner;
+
+    private static final long AUTOSAVE_MILLIS = 1000;
+    private static final long COMPACT_CHECK_SECONDS = 30;
+    private static final long COMPACT_THRESHOLD_BYTES = 4L * 1024 * 1024;
+
+    private final ScheduledExecutorService modelExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "model-worker");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ExecutorService queryExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Model thread only
+    private MutationJournal journal;
+    // Set together with the journal; called on whichever thread saw the failure
+    private volatile Consumer<Throwable> journalErrorHandler;
+
+    public AsyncServiceFacade(RecipeService recipes, MealPlanService planner) {
+        this.recipes = Objects.requireNonNull(recipes, "recipes");
+        this.planner = Objects.requireNonNull(planner, "planner");
+    }
+
+    // ===== Recipes =====
+
+    public CompletableFuture<Recipe> createRecipe(String title, String description, List<String> ingredients, Collection<String> tags) {
+        return onModel(() -> {
+            return recipes.create(title, description, ingredients, tags);
+        });
+    }
+
+    public CompletableFuture<Void> addRecipes(List<Recipe> batch) {
+        return onModel(() -> {
+            batch.forEach(recipes::add);
+            return null;
+        });
+    }
+
+    /** Replace a recipe and re-point every planned reference to the new instance. */
+    public CompletableFuture<Optional<Recipe>> replaceRecipe(Recipe oldRecipe, Recipe newRecipe) {
+        return onModel(() -> {
+            Optional<Recipe> result = recipes.replace(oldRecipe, newRecipe);
+            result.ifPresent(r -> planner.replaceRecipeReferences(oldRecipe, r));
+            return result;
+        });
+    }
+
+    public CompletableFuture<Boolean> removeRecipe(Recipe recipe) {
+        return onModel(() -> recipes.remove(recipe));
+    }
+
+    public CompletableFuture<Void> sortRecipes(RecipeSortStrategy strategy) {
+        return onModel(() -> {
+            recipes.sortRecipes(strategy);
+            return null;
+        });
+    }
+
+    public CompletableFuture<List<Recipe>> listRecipes() {
+        return onModel(recipes::listAll);
+    }
+
+    /** Counter that moves on every library change; see {@link RecipeService#version()}. */
+    public CompletableFuture<Long> libraryVersion() {
+        return onModel(recipes::version);
+    }
+
+    /**
+     * Stream the recipes of a YAML library file into the service; completes with the count.
+     * A bulk load is journaled as one batch and compacted into a snapshot right away.
+     */
+    public CompletableFuture<Integer> loadYaml(Path file) {
+        return onModel(() -> {
+            try {
+                int count = RecipeYaml.load(file, recipes);
+                compact().whenComplete(this::reportJournalFailure);
+                return count;
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    public CompletableFuture<Void> saveYaml(Path file) {
+        return onModel(() -> {
+            try {
+                RecipeYaml.save(recipes, file);
+                return null;
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    /**
+     * Map a binary library file ({@link RecipeBinary}) into the service; completes with the count.
+     * Descriptions stay in the mapped file until they are read. Journaled like {@link #loadYaml}.
+     */
+    public CompletableFuture<Integer> loadBinary(Path file) {
+        return onModel(() -> {
+            try {
+                int count = RecipeBinary.load(file, recipes);
+                compact().whenComplete(this::reportJournalFailure);
+                return count;
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    public CompletableFuture<Void> saveBinary(Path file) {
+        return onModel(() -> {
+            try {
+                RecipeBinary.save(recipes, file);
+                return null;
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    /** Combined title/tag search on a virtual thread; cancel the future to stop the scan. */
+    public CompletableFuture<List<Recipe>> search(String query, String tag) {
+        CompletableFuture<List<Recipe>> result = new CompletableFuture<>();
+        Future<?> task = queryExecutor.submit(() -> {
+            try {
+                result.complete(recipes.search(query, tag));
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+        result.whenComplete((r, t) -> {
+            if (result.isCancelled()) task.cancel(true);
+        });
+        return result;
+    }
+
+    /** Tag facet: every tag in use with its recipe count, sorted by tag. */
+    public CompletableFuture<SortedMap<String, Integer>> tagFacets() {
+        return onModel(recipes::tagFacets);
+    }
+
+    // ===== Planner =====
+
+    public CompletableFuture<Void> setActiveSlots(Set<MealSlot> slots) {
+        Set<MealSlot> copy = EnumSet.copyOf(slots);
+        return onModel(() -> {
+            planner.setActiveSlots(copy);
+            return null;
+        });
+    }
+
+    /** Plan a recipe; completes exceptionally with IllegalArgumentException if the slot does not fit. */
+    public CompletableFuture<Void> setRecipe(DayOfWeek day, MealSlot slot, Recipe recipe) {
+        return onModel(() -> {
+            planner.setRecipe(day, slot, recipe);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> clearSlot(DayOfWeek day, MealSlot slot) {
+        return onModel(() -> {
+            planner.clear(day, slot);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Set<MealSlot>> activeSlots() {
+        return onModel(planner::getActiveSlots);
+    }
+
+    /** Immutable snapshot of the planned recipes per day and slot. */
+    public CompletableFuture<Map<DayOfWeek, Map<MealSlot, Recipe>>> weekPlan() {
+        return onModel(() -> planner.getWeekPlan().snapshot());
+    }
+
+    /** Register a plan observer; it gets an initial snapshot, all on the model thread. */
+    public CompletableFuture<Void> observePlan(MealPlanObserver observer) {
+        return onModel(() -> {
+            planner.getWeekPlan().addObserver(observer);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> unobservePlan(MealPlanObserver observer) {
+        return onModel(() -> {
+            planner.getWeekPlan().removeObserver(observer);
+            return null;
+        });
+    }
+
+    // ===== Grocery list =====
+
+    public CompletableFuture<Void> addManualItem(String name, int quantity) {
+        return onModel(() -> {
+            planner.getGroceryList().addManualItem(name, quantity);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> removeGroceryItems(Collection<String> names) {
+        List<String> copy = List.copyOf(names);
+        return onModel(() -> {
+            planner.getGroceryList().removeItems(copy);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> startNewGroceryList() {
+        return onModel(() -> {
+            planner.getGroceryList().setBaselineToCurrentAuto();
+            return null;
+        });
+    }
+
+    public CompletableFuture<Map<String, Integer>> groceryItems() {
+        return onModel(() -> planner.getGroceryList().getItems());
+    }
+
+    /** Register a grocery observer; current items are replayed, all on the model thread. */
+    public CompletableFuture<Void> observeGroceries(GroceryListObserver observer) {
+        return onModel(() -> {
+            planner.getGroceryList().addObserver(observer);
+            return null;
+        });
+    }
+
+    // ===== Journal =====
+
+    /**
+     * Recover the library and plan from the journal directory, then autosave every further
+     * change. Completes with the number of recovered recipes.
+     *
+     * @param onFailure called (on a journal thread) with every failed autosave or background
+     *                  compaction; the changes are kept and retried on the next autosave
+     */
+    public CompletableFuture<Integer> openJournal(Path dir, Consumer<Throwable> onFailure) {
+        Objects.requireNonNull(onFailure, "onFailure");
+        return onModel(() -> {
+            if (journal != null) throw new IllegalStateException("Journal already open");
+            journalErrorHandler = onFailure;
+            try {
+                journal = MutationJournal.open(dir, recipes, planner);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            modelExecutor.scheduleWithFixedDelay(this::autosave,
+                    AUTOSAVE_MILLIS, AUTOSAVE_MILLIS, TimeUnit.MILLISECONDS);
+            modelExecutor.scheduleWithFixedDelay(this::compactIfLarge,
+                    COMPACT_CHECK_SECONDS, COMPACT_CHECK_SECONDS, TimeUnit.SECONDS);
+            return recipes.listAll().size();
+        });
+    }
+
+    /** Snapshot the current state and start a fresh journal; completes once it is durable. */
+    public CompletableFuture<Void> compactJournal() {
+        return onModel(this::compact).thenCompose(done -> done);
+    }
+
+    /** Write the changes made so far without waiting for the timer; completes once durable. */
+    public CompletableFuture<Void> saveChanges() {
+        return onModel(this::save).thenCompose(done -> done);
+    }
+
+    // Model thread: the taken changes go back into dirty tracking if the write fails
+    private CompletableFuture<Void> save() {
+        if (journal == null) return CompletableFuture.completedFuture(null);
+        RecipeService.Changes library = recipes.takeChanges();
+        WeekPlan.Changes plan = planner.getWeekPlan().takeChanges();
+        CompletableFuture<Void> written = journal.write(library, plan, recipes);
+        written.whenComplete((done, ex) -> {
+            if (ex == null) return;
+            try {
+                modelExecutor.execute(() -> {
+                    recipes.restoreChanges(library);
+                    planner.getWeekPlan().restoreChanges(plan);
+                });
+            } catch (RejectedExecutionException closing) {
+                // Shut down: nothing will save them any more
+            }
+        });
+        return written;
+    }
+
+    // Model thread: pending changes are saved (and restored on failure) before the snapshot
+    private CompletableFuture<Void> compact() {
+        if (journal == null) return CompletableFuture.completedFuture(null);
+        save();
+        return journal.compact(recipes, planner);
+    }
+
+    // Model thread, on a timer
+    private void autosave() {
+        save().whenComplete(this::reportJournalFailure);
+    }
+
+    // Model thread, on a timer
+    private void compactIfLarge() {
+        if (journal != null && journal.journalBytes() > COMPACT_THRESHOLD_BYTES) {
+            compact().whenComplete(this::reportJournalFailure);
+        }
+    }
+
+    private void reportJournalFailure(Void done, Throwable ex) {
+        if (ex != null) journalErrorHandler.accept(ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+    }
+
+    private <T> CompletableFuture<T> onModel(Supplier<T> work) {
+        return CompletableFuture.supplyAsync(work, modelExecutor);
+    }
+
+    /**
+     * Stop accepting work; queued model operations still complete, and their changes
+     * are saved before this returns.
+     */
+    @Override
+    public void close() {
+        if (!modelExecutor.isShutdown()) modelExecutor.execute(this::autosave); // runs after everything queued
+        modelExecutor.shutdown();
+        queryExecutor.shutdownNow();
+        try {
+            modelExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        if (journal != null) journal.close();
+    }
+}
@@ -0,0 +1,41 @@
+package be.uantwerpen.sd.project.GroceryList;
+
+/**
+ * Quantity-aware dismissal baseline per ingredient ID, shared by {@link GroceryList}
+ * and {@link GroceryRollup}.
+ *
+ * Dismissing an item records its current auto quantity as the baseline; only
+ * quantities beyond the baseline are visible afterwards. Baselines never exceed the
+ * auto quantity they were clamped against, so dropping a recipe and planning it again
+ * shows it fresh.
+ *
+ * Not thread-safe: callers guard it with their own lock.
+ */
+final class DismissalBaseline {
+    private final IngredientCounts dismissed = new IngredientCounts();
+
+    /** Part of the auto quantity that is not covered by the baseline (never negative). */
+    int visible(int id, int auto) {
+        return Math.max(0, auto - dismissed.get(id));
+    }
+
+    /** Raise the baseline to at least the current auto quantity. */
+    void dismiss(int id, int auto) {
+        if (auto > 0) {
+            dismissed.put(id, Math.max(dismissed.get(id), auto));
+        }
+    }
+
+    /** Keep the baseline within the auto quantity; drops it once the auto quantity is 0. */
+    void clamp(int id, int auto) {
+        if (dismissed.get(id) > auto) dismissed.put(id, auto);
+    }
+
+    /** Drop baselines for IDs that have no auto quantity any more. */
+    void retainAll(IngredientCounts auto) {
+        for (int i = 0; i < dismissed.orderLength(); i++) {
+            int id = dismissed.idAt(i);
+            if (id >= 0 && !auto.contains(id)) dismissed.remove(id);
+        }
+    }
+}
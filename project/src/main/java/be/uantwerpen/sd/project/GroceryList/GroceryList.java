@@ -2,15 +2,48 @@ package be.uantwerpen.sd.project.GroceryList;
 
 import be.uantwerpen.sd.project.Planner.MealPlanObserver;
 import be.uantwerpen.sd.project.Planner.*;
+import be.uantwerpen.sd.project.Recipe.IngredientCanonicalizer;
 import be.uantwerpen.sd.project.Recipe.Recipe;
 
 import java.time.DayOfWeek;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Grocery list that automatically aggregates ingredients for all recipes
  * currently planned in the week plan. Implemented using the Observer pattern.
  *
+ * Aggregation is incremental: each snapshot is compared slot by slot with the
+ * previous one, and only recipes that were added or removed adjust the counts.
+ *
+ * Threading: mutators synchronize on the list. A change only updates the lines it
+ * touched and invalidates the merged view; {@link #getItems()} rebuilds that view on
+ * the first read after a change and then hands out the same immutable map (through a
+ * volatile field, without locking) until the next change. So an edit costs the same
+ * however long the list is, and a burst of edits between two reads builds one view.
+ *
+ * Keys: ingredient names are grouped by their canonical form (see
+ * {@link IngredientCanonicalizer}), so "Milk", "milk " and "milks" share one line.
+ * The line is displayed with the spelling it was first seen with.
+ *
+ * Storage: ingredient names are interned to int IDs and all counters are primitive,
+ * insertion-ordered open-addressing maps ({@link IngredientCounts}), so aggregating
+ * a plan neither boxes counts nor allocates once the tables have warmed up.
+ *
+ * Change events: the list is itself a subject ({@link GroceryListSubject}). Every
+ * mutator records the IDs it touched; publishing compares only those lines between
+ * the old and new view and emits added/removed/quantity-changed events for them.
+ * Observers are called on the mutating thread while the list is locked, so they
+ * must not block (UIs should hand the event to their own thread).
+ *
+ * Pantry: with a {@link Pantry} attached, stock at home is subtracted from the auto
+ * items (after the dismissal baseline; manual items are never reduced). Each pantry
+ * event only touches the affected item.
+ *
+ * Instances: {@link #getInstance()} returns the shared application-wide list (the
+ * default). {@link #newInstance()} creates an independent, scoped list with its own
+ * lock, e.g. one per {@link MealPlanService}.
+ *
  * Behavior notes:
  * - Manual items are user-managed and always visible until explicitly removed.
  * - Auto items (from the plan) can be dismissed in a quantity-aware way: when
@@ -18,89 +51,243 @@ import java.util.*;
  *   recorded as a baseline. If you plan the same recipe again later, only the
  *   new quantities beyond the baseline will show up again (fresh count).
  */
-public class GroceryList implements MealPlanObserver {
+public class GroceryList implements MealPlanObserver, GroceryListSubject, PantryObserver {
 
     private static GroceryList INSTANCE;
 
+    private static final DayOfWeek[] DAYS = DayOfWeek.values();
+    private static final MealSlot[] SLOTS = MealSlot.values();
+
+    // Maps raw ingredient names to grouping keys
+    private final IngredientCanonicalizer canonicalizer;
+
+    // Canonical ingredient keys interned to dense IDs; all counters below are keyed by these IDs
+    private final IngredientIds ids = new IngredientIds();
+
     // Aggregated auto items (from planner) and their counts
-    private final Map<String, Integer> items = new LinkedHashMap<>();
+    private final IngredientCounts items = new IngredientCounts();
 
     // Manually added items and their quantities
-    private final Map<String, Integer> manualItems = new LinkedHashMap<>();
+    private final IngredientCounts manualItems = new IngredientCounts();
 
     // Quantity-based dismissals: how many units of an auto item have been dismissed (baseline)
-    private final Map<String, Integer> dismissedCounts = new LinkedHashMap<>();
+    private final DismissalBaseline dismissedCounts = new DismissalBaseline();
+
+    // Quantities in stock at home (from the attached pantry), subtracted from auto items
+    private final IngredientCounts pantryCounts = new IngredientCounts();
+    private Pantry pantry;
+
+    // IDs touched since the last publish (reused, used as a set)
+    private final IngredientCounts dirty = new IngredientCounts();
+
+    // Last plan seen per day/slot; incoming snapshots are diffed against it
+    private final Map<DayOfWeek, Map<MealSlot, Recipe>> planned = new EnumMap<>(DayOfWeek.class);
+
+    // Quantity of each line as last published to observers (manual + visible auto)
+    private final IngredientCounts shown = new IngredientCounts();
 
-    private GroceryList(){ }
+    // Merged view returned by getItems(); null once a change made it stale, never mutated
+    private volatile Map<String, Integer> view = Map.of();
+
+    private final List<GroceryListObserver> observers = new CopyOnWriteArrayList<>();
+
+    private GroceryList(IngredientCanonicalizer canonicalizer) {
+        this.canonicalizer = Objects.requireNonNull(canonicalizer, "canonicalizer");
+    }
 
     public static synchronized GroceryList getInstance() {
         if (INSTANCE == null) {
-            INSTANCE = new GroceryList();
+            INSTANCE = new GroceryList(IngredientCanonicalizer.getDefault());
         }
         return INSTANCE;
     }
 
+    /**
+     * Factory for a scoped grocery list that shares no state (and no lock) with the
+     * singleton or with other scoped lists.
+     */
+    public static GroceryList newInstance() {
+        return new GroceryList(IngredientCanonicalizer.getDefault());
+    }
+
+    /** Scoped grocery list that groups ingredients with its own canonicalizer (e.g. custom synonyms). */
+    public static GroceryList newInstance(IngredientCanonicalizer canonicalizer) {
+        return new GroceryList(canonicalizer);
+    }
+
     @Override
     public synchronized void onWeekPlanChanged(Map<DayOfWeek, Map<MealSlot, Recipe>> snapshot) {
-        // Re-aggregate auto items from snapshot
-        Map<String, Integer> next = new LinkedHashMap<>();
-        if (snapshot != null) {
-            for (Map<MealSlot, Recipe> day : snapshot.values()) {
-                for (Recipe recipe : day.values()) {
-                    if (recipe == null) continue;
-                    List<String> list = recipe.getIngredients();
-                    for (String raw : list) {
-                        String ing = normalize(raw);
-                        if (ing.isEmpty()) continue;
-                        next.merge(ing, 1, Integer::sum);
-                    }
+        // Diff the snapshot against the last one per day/slot and only apply the recipes that changed
+        for (DayOfWeek day : DAYS) {
+            Map<MealSlot, Recipe> next = snapshot == null ? null : snapshot.get(day);
+            Map<MealSlot, Recipe> prev = planned.get(day);
+            for (MealSlot slot : SLOTS) {
+                Recipe before = prev == null ? null : prev.get(slot);
+                Recipe after = next == null ? null : next.get(slot);
+                if (before == after) continue;
+                if (before != null) adjust(before, -1);
+                if (after != null) adjust(after, 1);
+                if (after == null) {
+                    prev.remove(slot);
+                } else {
+                    planned.computeIfAbsent(day, d -> new EnumMap<>(MealSlot.class)).put(slot, after);
+                    prev = planned.get(day);
                 }
             }
         }
-        // Keep only dismissals that still exist; clamp dismissed to available auto count
-        dismissedCounts.keySet().retainAll(next.keySet());
-        for (Map.Entry<String, Integer> e : new ArrayList<>(dismissedCounts.entrySet())) {
-            String k = e.getKey();
-            int dismissed = Math.max(0, e.getValue() == null ? 0 : e.getValue());
-            int auto = Math.max(0, next.getOrDefault(k, 0));
-            if (auto <= 0 || dismissed <= 0) {
-                if (auto <= 0) dismissedCounts.remove(k);
-                else dismissedCounts.put(k, 0);
-            } else if (dismissed > auto) {
-                dismissedCounts.put(k, auto);
-            }
+        // Re-clamp dismissal baselines only for the keys whose auto count changed
+        for (int i = 0; i < dirty.orderLength(); i++) {
+            int id = dirty.idAt(i);
+            if (id >= 0) dismissedCounts.clamp(id, items.get(id));
         }
-        items.clear();
-        items.putAll(next);
+        if (!dirty.isEmpty()) publish();
     }
 
+    /**
+     * Add (delta = 1) or subtract (delta = -1) one planned occurrence of the recipe's
+     * ingredients from the auto items. Keys that reach zero are dropped.
+     */
+    private void adjust(Recipe recipe, int delta) {
+        List<String> ingredients = recipe.getIngredients();
+        for (int i = 0; i < ingredients.size(); i++) {
+            String raw = ingredients.get(i);
+            String key = normalize(raw);
+            if (key.isEmpty()) continue;
+            int id = ids.intern(key, raw);
+            items.add(id, delta);
+            dirty.put(id, 1);
+        }
+    }
+
+    // Canonical grouping key; memoized by the canonicalizer, so this is one cache lookup
     private String normalize(String s) {
-        if (s == null) return "";
-        String t = s.strip();
-        return t;
+        return canonicalizer.canonicalize(s);
     }
 
     /**
      * Returns an immutable view of the current grocery items with counts.
      * Merges manual items with auto-aggregated items, and subtracts dismissed
      * baseline quantities from auto items. Never shows negative values.
+     * Lock-free unless the list changed since the previous read; then the view is rebuilt once.
      */
-    public synchronized Map<String, Integer> getItems() {
+    public Map<String, Integer> getItems() {
+        Map<String, Integer> current = view;
+        return current != null ? current : buildView();
+    }
+
+    private synchronized Map<String, Integer> buildView() {
+        if (view != null) return view;
         LinkedHashMap<String, Integer> merged = new LinkedHashMap<>();
-        // Manual items first
-        for (Map.Entry<String, Integer> e : manualItems.entrySet()) {
-            merged.put(e.getKey(), Math.max(1, e.getValue() == null ? 1 : e.getValue()));
+        // Manual lines first, then auto-only lines, each in insertion order
+        for (int i = 0; i < manualItems.orderLength(); i++) {
+            int id = manualItems.idAt(i);
+            if (id >= 0) merged.put(ids.name(id), shown.get(id));
+        }
+        for (int i = 0; i < items.orderLength(); i++) {
+            int id = items.idAt(i);
+            if (id >= 0 && !manualItems.contains(id) && shown.contains(id)) merged.put(ids.name(id), shown.get(id));
+        }
+        Map<String, Integer> built = Collections.unmodifiableMap(merged);
+        view = built;
+        return built;
+    }
+
+    @Override
+    public synchronized void addObserver(GroceryListObserver observer) {
+        if (observer == null || observers.contains(observer)) return;
+        observers.add(observer);
+        // Replay the current lines so observers start in sync
+        for (Map.Entry<String, Integer> e : getItems().entrySet()) {
+            observer.onItemAdded(e.getKey(), e.getValue());
+        }
+    }
+
+    @Override
+    public void removeObserver(GroceryListObserver observer) {
+        observers.remove(observer);
+    }
+
+    /**
+     * Recompute the lines of the dirty IDs, emit change events for those that changed and
+     * invalidate the merged view. Must be called with the lock held, after every state change.
+     */
+    private void publish() {
+        boolean changed = false;
+        for (int i = 0; i < dirty.orderLength(); i++) {
+            int id = dirty.idAt(i);
+            if (id < 0) continue;
+            int before = shown.get(id);
+            int after = lineQuantity(id);
+            if (before == after) continue;
+            shown.put(id, after); // 0 removes the line
+            changed = true;
+            if (!observers.isEmpty()) notifyObservers(ids.name(id), before, after);
         }
-        // Auto items with quantity-based dismissals
-        for (Map.Entry<String, Integer> e : items.entrySet()) {
-            String k = e.getKey();
-            int auto = Math.max(0, e.getValue() == null ? 0 : e.getValue());
-            int dismissed = Math.max(0, dismissedCounts.getOrDefault(k, 0));
-            int visible = Math.max(0, auto - dismissed);
-            if (visible <= 0) continue; // fully covered by baseline
-            merged.merge(k, visible, Integer::sum);
+        if (changed) view = null;
+        dirty.clear();
+    }
+
+    // Manual quantity plus the auto quantity beyond the dismissal baseline and pantry stock
+    private int lineQuantity(int id) {
+        int quantity = manualItems.contains(id) ? Math.max(1, manualItems.get(id)) : 0;
+        int visible = dismissedCounts.visible(id, items.get(id)) - pantryCounts.get(id);
+        return visible > 0 ? quantity + visible : quantity;
+    }
+
+    private void notifyObservers(String name, int before, int after) {
+        for (GroceryListObserver o : observers) {
+            if (before == 0) {
+                o.onItemAdded(name, after);
+            } else if (after == 0) {
+                o.onItemRemoved(name, before);
+            } else {
+                o.onQuantityChanged(name, before, after);
+            }
         }
-        return Collections.unmodifiableMap(merged);
+    }
+
+    /**
+     * Subtract the given pantry's stock from the auto items, replacing any previously
+     * attached pantry. Later stock changes are applied per item as they arrive.
+     */
+    public void attachPantry(Pantry pantry) {
+        Objects.requireNonNull(pantry, "pantry");
+        detachPantry();
+        synchronized (this) {
+            this.pantry = pantry;
+        }
+        // Lock order is always pantry -> grocery list; registering replays the current stock
+        pantry.addObserver(this);
+    }
+
+    /** Stop subtracting pantry stock; all auto items show their full quantities again. */
+    public void detachPantry() {
+        Pantry previous;
+        synchronized (this) {
+            previous = pantry;
+            pantry = null;
+        }
+        if (previous == null) return;
+        previous.removeObserver(this);
+        synchronized (this) {
+            for (int i = 0; i < pantryCounts.orderLength(); i++) {
+                int id = pantryCounts.idAt(i);
+                if (id >= 0) dirty.put(id, 1);
+            }
+            pantryCounts.clear();
+            publish();
+        }
+    }
+
+    @Override
+    public synchronized void onStockChanged(String name, int oldQuantity, int newQuantity) {
+        if (pantry == null) return; // late event from a detached pantry
+        String key = normalize(name);
+        if (key.isEmpty()) return;
+        int id = ids.intern(key, IngredientCanonicalizer.tidy(name));
+        pantryCounts.put(id, newQuantity);
+        dirty.put(id, 1);
+        publish();
     }
 
     /**
@@ -110,7 +297,10 @@ public class GroceryList implements MealPlanObserver {
         String key = normalize(name);
         if (key.isEmpty()) return;
         int qty = Math.max(1, quantity);
-        manualItems.merge(key, qty, Integer::sum);
+        int id = ids.intern(key, IngredientCanonicalizer.tidy(name));
+        manualItems.add(id, qty);
+        dirty.put(id, 1);
+        publish();
     }
 
     /**
@@ -124,18 +314,18 @@ public class GroceryList implements MealPlanObserver {
             if (n == null) continue;
             String key = normalize(n);
             if (key.isEmpty()) continue;
-            if (manualItems.containsKey(key)) {
-                manualItems.remove(key);
+            int id = ids.find(key);
+            if (id < 0) continue;
+            dirty.put(id, 1);
+            if (manualItems.contains(id)) {
+                manualItems.remove(id);
             } else {
-                int auto = Math.max(0, items.getOrDefault(key, 0));
-                if (auto > 0) {
-                    // Set baseline to at least current auto count
-                    int prev = Math.max(0, dismissedCounts.getOrDefault(key, 0));
-                    dismissedCounts.put(key, Math.max(prev, auto));
-                }
+                // Set baseline to at least current auto count
+                dismissedCounts.dismiss(id, items.get(id));
             }
         }
         // Immediate effect: getItems() reflects new baseline.
+        publish();
     }
 
     /**
@@ -147,14 +337,13 @@ public class GroceryList implements MealPlanObserver {
         for (String n : names) {
             if (n == null) continue;
             String key = normalize(n);
-            if (!key.isEmpty()) {
-                int auto = Math.max(0, items.getOrDefault(key, 0));
-                if (auto > 0) {
-                    int prev = Math.max(0, dismissedCounts.getOrDefault(key, 0));
-                    dismissedCounts.put(key, Math.max(prev, auto));
-                }
-            }
+            if (key.isEmpty()) continue;
+            int id = ids.find(key);
+            if (id < 0) continue;
+            dismissedCounts.dismiss(id, items.get(id));
+            dirty.put(id, 1);
         }
+        publish();
     }
 
     /**
@@ -162,15 +351,15 @@ public class GroceryList implements MealPlanObserver {
      * baseline to the current auto aggregation. Manual items remain unchanged.
      */
     public synchronized void setBaselineToCurrentAuto() {
-        for (Map.Entry<String, Integer> e : items.entrySet()) {
-            String k = e.getKey();
-            int auto = Math.max(0, e.getValue() == null ? 0 : e.getValue());
-            if (auto <= 0) continue;
-            int prev = Math.max(0, dismissedCounts.getOrDefault(k, 0));
-            dismissedCounts.put(k, Math.max(prev, auto));
+        for (int i = 0; i < items.orderLength(); i++) {
+            int id = items.idAt(i);
+            if (id < 0) continue;
+            dismissedCounts.dismiss(id, items.get(id));
+            dirty.put(id, 1);
         }
         // Also purge dismissals for non-existing keys (safety)
-        dismissedCounts.keySet().retainAll(items.keySet());
+        dismissedCounts.retainAll(items);
+        publish();
     }
 
     @Override
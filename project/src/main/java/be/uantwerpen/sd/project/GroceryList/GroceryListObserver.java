@@ -0,0 +1,18 @@
+package be.uantwerpen.sd.project.GroceryList;
+
+/**
+ * Observer role for the grocery list. Instead of a full snapshot, implementations
+ * receive one event per visible line that changed, so views can patch only the
+ * affected rows. Names are the display names used as keys in
+ * {@link GroceryList#getItems()}; quantities are the visible (merged) quantities.
+ */
+public interface GroceryListObserver {
+    /** A line became visible with the given quantity. */
+    void onItemAdded(String name, int quantity);
+
+    /** A visible line disappeared; its last visible quantity is given. */
+    void onItemRemoved(String name, int previousQuantity);
+
+    /** The visible quantity of an existing line changed. */
+    void onQuantityChanged(String name, int oldQuantity, int newQuantity);
+}
@@ -0,0 +1,12 @@
+package be.uantwerpen.sd.project.GroceryList;
+
+/**
+ * Subject role in the Observer pattern for the grocery list.
+ * Implementations emit per-item change events whenever the visible list changes.
+ */
+public interface GroceryListSubject {
+    /** Register a new observer; implementations replay the current items as additions. */
+    void addObserver(GroceryListObserver observer);
+    /** Unregister a previously added observer. */
+    void removeObserver(GroceryListObserver observer);
+}
@@ -0,0 +1,257 @@
+package be.uantwerpen.sd.project.GroceryList;
+
+import be.uantwerpen.sd.project.Planner.MealPlanObserver;
+import be.uantwerpen.sd.project.Planner.MealSlot;
+import be.uantwerpen.sd.project.Recipe.IngredientCanonicalizer;
+import be.uantwerpen.sd.project.Recipe.Recipe;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+
+/**
+ * Grocery rollups over arbitrary date ranges, e.g. "Thursday through next Tuesday".
+ *
+ * Design notes:
+ * - Keeps one ingredient count vector per calendar day (indexed by interned ingredient ID)
+ *   over a contiguous window of dates, plus cumulative prefix sums of the visible part of
+ *   those vectors. A range query is then prefix[to + 1] - prefix[from]; no recipes are walked.
+ * - Prefix sums are recomputed lazily, and only from the earliest day that changed.
+ * - Observes a {@link be.uantwerpen.sd.project.Planner.WeekPlan} like {@link GroceryList}:
+ *   each snapshot is stored as the week starting at {@link #getWeekStart()}. Other weeks
+ *   can be recorded explicitly with {@link #recordWeek(LocalDate, Map)}.
+ * - Dismissals use the same quantity-aware baseline as {@link GroceryList}
+ *   ({@link DismissalBaseline}), kept per day: dismissing a range records the current
+ *   quantities of each day in it, so other ranges only lose the overlapping days. When a
+ *   day is re-planned its baseline is clamped to the new quantities, so removing a recipe
+ *   and planning it again shows it fresh. Later queries only show quantities beyond the
+ *   baselines of the days they cover.
+ */
+public class GroceryRollup implements MealPlanObserver {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final IngredientCanonicalizer canonicalizer;
+    private final IngredientIds ids = new IngredientIds();
+
+    // Per day, for days origin .. origin + dayVectors.size() - 1: planned recipes, their
+    // ingredient counts, the dismissal baseline (null until something is dismissed) and the
+    // counts beyond that baseline, which are what the prefix sums add up
+    private LocalDate origin;
+    private final List<Map<MealSlot, Recipe>> dayRecipes = new ArrayList<>();
+    private final List<int[]> dayCounts = new ArrayList<>();
+    private final List<DismissalBaseline> dayDismissed = new ArrayList<>();
+    private final List<int[]> dayVectors = new ArrayList<>();
+
+    // prefix.get(i) = sum of dayVectors[0 .. i - 1]; entries past validPrefix are stale
+    private final List<int[]> prefix = new ArrayList<>();
+    private int validPrefix = 0;
+
+    private LocalDate weekStart;
+
+    public GroceryRollup(LocalDate weekStart) {
+        this(weekStart, IngredientCanonicalizer.getDefault());
+    }
+
+    public GroceryRollup(LocalDate weekStart, IngredientCanonicalizer canonicalizer) {
+        this.weekStart = monday(weekStart);
+        this.canonicalizer = Objects.requireNonNull(canonicalizer, "canonicalizer");
+    }
+
+    /** Monday of the week that incoming plan snapshots are stored under. */
+    public synchronized LocalDate getWeekStart() {
+        return weekStart;
+    }
+
+    /** Move the observed plan to another week (any date in that week); earlier weeks are kept. */
+    public synchronized void setWeekStart(LocalDate date) {
+        this.weekStart = monday(date);
+    }
+
+    @Override
+    public synchronized void onWeekPlanChanged(Map<DayOfWeek, Map<MealSlot, Recipe>> snapshot) {
+        recordWeek(weekStart, snapshot);
+    }
+
+    /** Store (or replace) the plan for the week containing the given date. */
+    public synchronized void recordWeek(LocalDate date, Map<DayOfWeek, Map<MealSlot, Recipe>> snapshot) {
+        LocalDate monday = monday(date);
+        for (DayOfWeek d : DayOfWeek.values()) {
+            Map<MealSlot, Recipe> day = snapshot == null ? null : snapshot.get(d);
+            recordDay(monday.plusDays(d.ordinal()), day == null ? Map.of() : day);
+        }
+    }
+
+    /** Store (or replace) the recipes planned on one date. Unchanged days are skipped. */
+    public synchronized void recordDay(LocalDate date, Map<MealSlot, Recipe> recipes) {
+        Objects.requireNonNull(date, "date");
+        Map<MealSlot, Recipe> next = recipes == null ? Map.of() : Map.copyOf(recipes);
+        int index = ensureDay(date);
+        if (sameRecipes(dayRecipes.get(index), next)) return;
+        int[] previous = dayCounts.get(index);
+        int[] counts = countVector(next);
+        dayRecipes.set(index, next);
+        dayCounts.set(index, counts);
+        DismissalBaseline baseline = dayDismissed.get(index);
+        if (baseline != null) {
+            // Baselines only exist for IDs that were counted before
+            for (int id = 0; id < previous.length; id++) {
+                baseline.clamp(id, id < counts.length ? counts[id] : 0);
+            }
+        }
+        dayVectors.set(index, visibleVector(counts, baseline));
+        validPrefix = Math.min(validPrefix, index + 1);
+    }
+
+    /**
+     * Aggregated grocery items for all days from {@code from} to {@code to} (inclusive),
+     * minus the dismissal baselines of those days. Days outside the recorded window count as empty.
+     */
+    public synchronized Map<String, Integer> itemsBetween(LocalDate from, LocalDate to) {
+        int[] range = rangeIndices(from, to);
+        int[] counts = range[0] >= range[1] ? EMPTY : subtract(prefixAt(range[1]), prefixAt(range[0]));
+        LinkedHashMap<String, Integer> result = new LinkedHashMap<>();
+        for (int id = 0; id < counts.length; id++) {
+            if (counts[id] > 0) result.put(ids.name(id), counts[id]);
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Dismiss items of the given range: the current quantity of each day in the range
+     * becomes that day's baseline, so the items stay hidden on those days until the
+     * planned quantity grows beyond it. Other days are not affected.
+     */
+    public synchronized void dismissBetween(LocalDate from, LocalDate to, Collection<String> names) {
+        int[] range = rangeIndices(from, to);
+        if (names == null || names.isEmpty()) return;
+        List<Integer> dismissedIds = new ArrayList<>();
+        for (String n : names) {
+            String key = canonicalizer.canonicalize(n);
+            if (key.isEmpty()) continue;
+            int id = ids.find(key);
+            if (id >= 0) dismissedIds.add(id);
+        }
+        for (int day = range[0]; day < range[1]; day++) {
+            int[] counts = dayCounts.get(day);
+            DismissalBaseline baseline = dayDismissed.get(day);
+            boolean changed = false;
+            for (int id : dismissedIds) {
+                if (id >= counts.length || counts[id] == 0) continue;
+                if (baseline == null) {
+                    baseline = new DismissalBaseline();
+                    dayDismissed.set(day, baseline);
+                }
+                baseline.dismiss(id, counts[id]);
+                changed = true;
+            }
+            if (!changed) continue;
+            dayVectors.set(day, visibleVector(counts, baseline));
+            validPrefix = Math.min(validPrefix, day + 1);
+        }
+    }
+
+    // {start, end} day indices of the recorded part of the range, end exclusive
+    private int[] rangeIndices(LocalDate from, LocalDate to) {
+        Objects.requireNonNull(from, "from");
+        Objects.requireNonNull(to, "to");
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Range end must not be before its start");
+        }
+        if (origin == null) return new int[]{0, 0};
+        return new int[]{clampIndex(ChronoUnit.DAYS.between(origin, from)),
+                clampIndex(ChronoUnit.DAYS.between(origin, to) + 1)};
+    }
+
+    private int clampIndex(long index) {
+        return (int) Math.max(0, Math.min(dayVectors.size(), index));
+    }
+
+    // Prefix vector for the first n days, recomputing stale entries from the last valid one
+    private int[] prefixAt(int n) {
+        if (prefix.isEmpty()) {
+            prefix.add(EMPTY);
+            validPrefix = 1;
+        }
+        for (int i = Math.max(1, validPrefix); i <= n; i++) {
+            int[] sum = add(prefix.get(i - 1), dayVectors.get(i - 1));
+            if (i < prefix.size()) prefix.set(i, sum); else prefix.add(sum);
+        }
+        validPrefix = Math.max(validPrefix, n + 1);
+        return prefix.get(n);
+    }
+
+    // Grow the window to include the date and return its index
+    private int ensureDay(LocalDate date) {
+        if (origin == null) {
+            origin = date;
+        }
+        long offset = ChronoUnit.DAYS.between(origin, date);
+        if (offset < 0) {
+            int missing = (int) -offset;
+            dayRecipes.addAll(0, Collections.nCopies(missing, Map.of()));
+            dayCounts.addAll(0, Collections.nCopies(missing, EMPTY));
+            dayDismissed.addAll(0, Collections.nCopies(missing, null));
+            dayVectors.addAll(0, Collections.nCopies(missing, EMPTY));
+            origin = date;
+            validPrefix = Math.min(validPrefix, 1);
+            return 0;
+        }
+        while (dayVectors.size() <= offset) {
+            dayRecipes.add(Map.of());
+            dayCounts.add(EMPTY);
+            dayDismissed.add(null);
+            dayVectors.add(EMPTY);
+        }
+        return (int) offset;
+    }
+
+    private int[] countVector(Map<MealSlot, Recipe> recipes) {
+        int[] counts = new int[ids.size()];
+        for (Recipe recipe : recipes.values()) {
+            for (String raw : recipe.getIngredients()) {
+                String key = canonicalizer.canonicalize(raw);
+                if (key.isEmpty()) continue;
+                int id = ids.intern(key, raw);
+                if (id >= counts.length) counts = Arrays.copyOf(counts, ids.size());
+                counts[id]++;
+            }
+        }
+        return counts;
+    }
+
+    // Counts beyond the baseline; shares the counts array when nothing is dismissed
+    private static int[] visibleVector(int[] counts, DismissalBaseline baseline) {
+        if (baseline == null) return counts;
+        int[] visible = new int[counts.length];
+        for (int id = 0; id < counts.length; id++) visible[id] = baseline.visible(id, counts[id]);
+        return visible;
+    }
+
+    private static boolean sameRecipes(Map<MealSlot, Recipe> a, Map<MealSlot, Recipe> b) {
+        if (a.size() != b.size()) return false;
+        for (Map.Entry<MealSlot, Recipe> e : a.entrySet()) {
+            if (b.get(e.getKey()) != e.getValue()) return false;
+        }
+        return true;
+    }
+
+    private static int[] add(int[] a, int[] b) {
+        int[] sum = Arrays.copyOf(a, Math.max(a.length, b.length));
+        for (int i = 0; i < b.length; i++) sum[i] += b[i];
+        return sum;
+    }
+
+    private static int[] subtract(int[] a, int[] b) {
+        int[] diff = Arrays.copyOf(a, Math.max(a.length, b.length));
+        for (int i = 0; i < b.length; i++) diff[i] -= b[i];
+        return diff;
+    }
+
+    private static LocalDate monday(LocalDate date) {
+        Objects.requireNonNull(date, "date");
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+}
@@ -0,0 +1,192 @@
+package be.uantwerpen.sd.project.GroceryList;
+
+import java.util.Arrays;
+
+/**
+ * Insertion-ordered map from ingredient ID (see {@link IngredientIds}) to a positive count.
+ *
+ * Design notes:
+ * - Open addressing with linear probing over primitive arrays: no boxing, and no
+ *   allocation once the table has grown to its working size.
+ * - Deletion uses backward shifting, so there are no tombstones in the hash table.
+ * - Insertion order is kept in a separate ID array. Removed entries leave a -1 hole
+ *   there, which is compacted in place when the array fills up. Re-adding a removed
+ *   key appends it at the end, like {@link java.util.LinkedHashMap}.
+ * - Counts of zero or less are never stored: writing one removes the key.
+ *
+ * Iterate with {@code for (int i = 0; i < orderLength(); i++)} and skip negative
+ * {@link #idAt(int)} values. Removing entries while iterating is safe.
+ *
+ * Not thread-safe: callers guard it with their own lock.
+ */
+final class IngredientCounts {
+    private int[] keys;      // ID + 1 per slot; 0 marks a free slot
+    private int[] values;    // count per slot
+    private int[] positions; // index into order[] per slot
+    private int[] order;     // IDs in insertion order; -1 for removed entries
+    private int orderLength;
+    private int size;
+
+    IngredientCounts() {
+        allocate(16);
+    }
+
+    /** Current count for the ID, 0 if absent. */
+    int get(int id) {
+        int slot = slotOf(id);
+        return slot < 0 ? 0 : values[slot];
+    }
+
+    boolean contains(int id) {
+        return slotOf(id) >= 0;
+    }
+
+    /** Add delta to the count for the ID and return the new count (0 means removed). */
+    int add(int id, int delta) {
+        int slot = slotOf(id);
+        int next = (slot < 0 ? 0 : values[slot]) + delta;
+        if (next <= 0) {
+            if (slot >= 0) removeSlot(slot);
+            return 0;
+        }
+        if (slot >= 0) {
+            values[slot] = next;
+        } else {
+            insert(id, next, -1 - slot);
+        }
+        return next;
+    }
+
+    /** Set the count for the ID; a count of zero or less removes it. */
+    void put(int id, int count) {
+        int slot = slotOf(id);
+        if (count <= 0) {
+            if (slot >= 0) removeSlot(slot);
+        } else if (slot >= 0) {
+            values[slot] = count;
+        } else {
+            insert(id, count, -1 - slot);
+        }
+    }
+
+    void remove(int id) {
+        int slot = slotOf(id);
+        if (slot >= 0) removeSlot(slot);
+    }
+
+    /** Remove all entries, keeping the allocated capacity. */
+    void clear() {
+        Arrays.fill(keys, 0);
+        orderLength = 0;
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Upper bound (exclusive) for {@link #idAt(int)}. */
+    int orderLength() {
+        return orderLength;
+    }
+
+    /** ID at the given insertion position, or -1 if that entry has been removed. */
+    int idAt(int index) {
+        return order[index];
+    }
+
+    // Returns the slot holding the ID, or (-1 - freeSlot) where it would be inserted
+    private int slotOf(int id) {
+        int mask = keys.length - 1;
+        int i = mix(id) & mask;
+        while (true) {
+            int k = keys[i];
+            if (k == 0) return -1 - i;
+            if (k == id + 1) return i;
+            i = (i + 1) & mask;
+        }
+    }
+
+    private void insert(int id, int count, int slot) {
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+            slot = -1 - slotOf(id);
+        }
+        if (orderLength == order.length) compactOrder();
+        keys[slot] = id + 1;
+        values[slot] = count;
+        positions[slot] = orderLength;
+        order[orderLength++] = id;
+        size++;
+    }
+
+    private void removeSlot(int slot) {
+        order[positions[slot]] = -1;
+        size--;
+        // Backward-shift deletion: pull later entries of the probe run into the hole
+        int mask = keys.length - 1;
+        int hole = slot;
+        int i = (slot + 1) & mask;
+        while (keys[i] != 0) {
+            int home = mix(keys[i] - 1) & mask;
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                positions[hole] = positions[i];
+                hole = i;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[hole] = 0;
+    }
+
+    // Drop removed entries from the order array without allocating
+    private void compactOrder() {
+        int n = 0;
+        for (int i = 0; i < orderLength; i++) {
+            int id = order[i];
+            if (id < 0) continue;
+            order[n] = id;
+            positions[slotOf(id)] = n;
+            n++;
+        }
+        orderLength = n;
+    }
+
+    private void grow() {
+        int[] oldOrder = order;
+        int oldLength = orderLength;
+        int[] ids = new int[size];
+        int[] counts = new int[size];
+        int n = 0;
+        for (int i = 0; i < oldLength; i++) {
+            int id = oldOrder[i];
+            if (id < 0) continue;
+            ids[n] = id;
+            counts[n] = values[slotOf(id)];
+            n++;
+        }
+        allocate(keys.length * 2);
+        for (int i = 0; i < n; i++) {
+            insert(ids[i], counts[i], -1 - slotOf(ids[i]));
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        positions = new int[capacity];
+        order = new int[capacity / 2];
+        orderLength = 0;
+        size = 0;
+    }
+
+    private static int mix(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,84 @@
+package be.uantwerpen.sd.project.GroceryList;
+
+import java.util.Arrays;
+
+/**
+ * Interns canonical ingredient keys to dense int IDs (0, 1, 2, ...) in first-seen order,
+ * remembering the display name the key was first seen with.
+ * Backed by an open-addressing hash table with linear probing, so lookups of
+ * known keys do not allocate. IDs are never released.
+ *
+ * Not thread-safe: callers guard it with their own lock.
+ */
+final class IngredientIds {
+    private String[] table = new String[32];
+    private int[] tableIds = new int[32];
+    private String[] keys = new String[16];
+    private String[] names = new String[16];
+    private int size;
+
+    /** Return the ID of the key, or -1 if it was never interned. */
+    int find(String key) {
+        int mask = table.length - 1;
+        int i = mix(key.hashCode()) & mask;
+        while (true) {
+            String k = table[i];
+            if (k == null) return -1;
+            if (k.equals(key)) return tableIds[i];
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * Return the ID of the key, assigning the next free ID on first sight.
+     * The display name is only recorded for new keys.
+     */
+    int intern(String key, String displayName) {
+        int mask = table.length - 1;
+        int i = mix(key.hashCode()) & mask;
+        while (true) {
+            String k = table[i];
+            if (k == null) break;
+            if (k.equals(key)) return tableIds[i];
+            i = (i + 1) & mask;
+        }
+        int id = size++;
+        if (id == keys.length) {
+            keys = Arrays.copyOf(keys, keys.length * 2);
+            names = Arrays.copyOf(names, names.length * 2);
+        }
+        keys[id] = key;
+        names[id] = displayName;
+        table[i] = key;
+        tableIds[i] = id;
+        if (size * 2 > table.length) rehash(table.length * 2);
+        return id;
+    }
+
+    /** The display name the ID's key was first interned with. */
+    String name(int id) {
+        return names[id];
+    }
+
+    /** Number of interned keys; valid IDs are {@code 0 .. size() - 1}. */
+    int size() {
+        return size;
+    }
+
+    private void rehash(int capacity) {
+        table = new String[capacity];
+        tableIds = new int[capacity];
+        int mask = capacity - 1;
+        for (int id = 0; id < size; id++) {
+            int i = mix(keys[id].hashCode()) & mask;
+            while (table[i] != null) i = (i + 1) & mask;
+            table[i] = keys[id];
+            tableIds[i] = id;
+        }
+    }
+
+    private static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,85 @@
+package be.uantwerpen.sd.project.GroceryList;
+
+import be.uantwerpen.sd.project.Recipe.IngredientCanonicalizer;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Stock of ingredients that are already at home. A {@link GroceryList} with an
+ * attached pantry subtracts these quantities from its planned (auto) items.
+ *
+ * Design notes:
+ * - Ingredients are keyed by their canonical name (see {@link IngredientCanonicalizer}),
+ *   and displayed with the spelling they were first stocked with.
+ * - Observer pattern: every change emits a single per-ingredient event, so observers
+ *   only update the affected item. New observers get the current stock replayed.
+ * - Observers are called while the pantry is locked, which keeps events ordered.
+ *   Observers must therefore never call back into the pantry from another thread
+ *   while holding their own lock.
+ */
+public class Pantry {
+    private final IngredientCanonicalizer canonicalizer;
+
+    // Canonical key -> quantity in stock (> 0), and the display name per key
+    private final Map<String, Integer> stock = new LinkedHashMap<>();
+    private final Map<String, String> names = new HashMap<>();
+
+    private final List<PantryObserver> observers = new CopyOnWriteArrayList<>();
+
+    public Pantry() {
+        this(IngredientCanonicalizer.getDefault());
+    }
+
+    public Pantry(IngredientCanonicalizer canonicalizer) {
+        this.canonicalizer = Objects.requireNonNull(canonicalizer, "canonicalizer");
+    }
+
+    public synchronized void addObserver(PantryObserver observer) {
+        if (observer == null || observers.contains(observer)) return;
+        observers.add(observer);
+        for (Map.Entry<String, Integer> e : stock.entrySet()) {
+            observer.onStockChanged(names.get(e.getKey()), 0, e.getValue());
+        }
+    }
+
+    public void removeObserver(PantryObserver observer) {
+        observers.remove(observer);
+    }
+
+    /** Set the quantity in stock; 0 or less removes the ingredient. */
+    public synchronized void setStock(String name, int quantity) {
+        String key = canonicalizer.canonicalize(name);
+        if (key.isEmpty()) return;
+        int old = stock.getOrDefault(key, 0);
+        int next = Math.max(0, quantity);
+        if (old == next) return;
+        names.putIfAbsent(key, IngredientCanonicalizer.tidy(name));
+        String display = names.get(key);
+        if (next == 0) {
+            stock.remove(key);
+            names.remove(key);
+        } else {
+            stock.put(key, next);
+        }
+        for (PantryObserver o : observers) {
+            o.onStockChanged(display, old, next);
+        }
+    }
+
+    /** Add (or, with a negative delta, take out) stock; never drops below 0. */
+    public synchronized void addStock(String name, int delta) {
+        setStock(name, getStock(name) + delta);
+    }
+
+    public synchronized int getStock(String name) {
+        return stock.getOrDefault(canonicalizer.canonicalize(name), 0);
+    }
+
+    /** Immutable snapshot of the stock, keyed by display name. */
+    public synchronized Map<String, Integer> getItems() {
+        LinkedHashMap<String, Integer> copy = new LinkedHashMap<>();
+        stock.forEach((key, qty) -> copy.put(names.get(key), qty));
+        return Collections.unmodifiableMap(copy);
+    }
+}
@@ -0,0 +1,13 @@
+package be.uantwerpen.sd.project.GroceryList;
+
+/**
+ * Observer role for the {@link Pantry}. Implementations receive one event per
+ * ingredient whose stock changed.
+ */
+public interface PantryObserver {
+    /**
+     * Called whenever the stock of an ingredient changes. A new quantity of 0 means
+     * the ingredient is no longer in stock.
+     */
+    void onStockChanged(String name, int oldQuantity, int newQuantity);
+}
@@ -0,0 +1,243 @@
+package be.uantwerpen.sd.project;
+
+import be.uantwerpen.sd.project.GroceryList.GroceryList;
+import be.uantwerpen.sd.project.Persistence.DescriptionBlobStore;
+import be.uantwerpen.sd.project.Persistence.RecipeBinary;
+import be.uantwerpen.sd.project.Persistence.RecipeImporter;
+import be.uantwerpen.sd.project.Persistence.RecipeYaml;
+import be.uantwerpen.sd.project.Planner.MealPlanService;
+import be.uantwerpen.sd.project.Planner.MealSlot;
+import be.uantwerpen.sd.project.Recipe.DescriptionStorage;
+import be.uantwerpen.sd.project.Recipe.Recipe;
+import be.uantwerpen.sd.project.Recipe.RecipeService;
+import be.uantwerpen.sd.project.Server.PlannerHttpServer;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Command-line entry point for batch jobs. Works directly against {@link RecipeService},
+ * {@link MealPlanService} and a scoped {@link GroceryList}; it never references
+ * {@link ViewApp}, so no JavaFX class is loaded and the toolkit is never started.
+ *
+ * Options are executed left to right, so they can be chained:
+ * <pre>
+ *   --dedup                  from here on, skip recipes whose title, ingredients and tags are
+ *                            already in the library (see {@link RecipeService#setCollapseDuplicates})
+ *   --import FILE            import recipes: tab-separated (see below), or a CSV / JSON-lines
+ *                            dump ending in .csv, .jsonl or .ndjson (see {@link RecipeImporter})
+ *   --load FILE              load a recipe library: YAML ({@link RecipeYaml}), or binary
+ *                            ({@link RecipeBinary}) if FILE ends in .rcpb
+ *   --save FILE              save the recipe library, in the same formats
+ *   --plan                   fill every empty active slot with a compatible recipe
+ *   --slots a,b,...          set the active meal slots (breakfast, lunch, dinner, snacks)
+ *   --search QUERY           print recipes whose title contains QUERY
+ *   --tag TAG                print recipes carrying TAG
+ *   --tags                   print every tag with its recipe count
+ *   --show-plan              print the week plan
+ *   --export-groceries FILE  write the grocery list ("name&lt;TAB&gt;quantity"); "-" is stdout
+ *   --serve PORT             serve the library and plan over HTTP ({@link PlannerHttpServer})
+ *                            until the process is stopped; 0 picks a free port
+ * </pre>
+ * Import lines are {@code title<TAB>description<TAB>ingredient,ingredient<TAB>tag,tag};
+ * empty lines and lines starting with '#' are skipped.
+ *
+ * Example (after {@code mvn package}):
+ * {@code java -cp project/target/classes be.uantwerpen.sd.project.HeadlessRunner --import recipes.tsv --plan --export-groceries -}
+ */
+public class HeadlessRunner {
+
+    private final RecipeService recipes;
+    private final MealPlanService planner = new MealPlanService(GroceryList.newInstance());
+    private final PrintStream out;
+
+    HeadlessRunner(PrintStream out, DescriptionStorage descriptions) {
+        this.recipes = new RecipeService(descriptions);
+        this.out = out;
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    /** Execute the options in order; returns the process exit code. */
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        if (args.length == 0) {
+            err.println("Usage: HeadlessRunner [--dedup] [--import FILE] [--load FILE] [--save FILE] [--slots LIST] [--plan] [--search QUERY] [--tag TAG]"
+                    + " [--tags] [--show-plan] [--export-groceries FILE|-] [--serve PORT]");
+            return 2;
+        }
+        // Descriptions of everything loaded or imported live off-heap for the duration of the run
+        try (DescriptionBlobStore descriptions = DescriptionBlobStore.createTemp()) {
+            HeadlessRunner runner = new HeadlessRunner(out, descriptions);
+            for (int i = 0; i < args.length; i++) {
+                String option = args[i];
+                switch (option) {
+                    case "--dedup" -> runner.recipes.setCollapseDuplicates(true);
+                    case "--import" -> runner.importRecipes(Path.of(argument(args, ++i, option)));
+                    case "--load" -> runner.loadLibrary(Path.of(argument(args, ++i, option)));
+                    case "--save" -> runner.saveLibrary(Path.of(argument(args, ++i, option)));
+                    case "--slots" -> runner.setSlots(argument(args, ++i, option));
+                    case "--plan" -> runner.autoPlan();
+                    case "--search" -> runner.print(runner.recipes.searchByTitle(argument(args, ++i, option)));
+                    case "--tag" -> runner.print(runner.recipes.searchByTag(argument(args, ++i, option)));
+                    case "--tags" -> runner.recipes.tagFacets().forEach((tag, n) -> out.println(tag + "\t" + n));
+                    case "--show-plan" -> runner.showPlan();
+                    case "--export-groceries" -> runner.exportGroceries(argument(args, ++i, option));
+                    case "--serve" -> runner.serve(port(argument(args, ++i, option)));
+                    default -> throw new IllegalArgumentException("Unknown option: " + option);
+                }
+            }
+            return 0;
+        } catch (IllegalArgumentException | IOException ex) {
+            err.println("Error: " + ex.getMessage());
+            return 1;
+        }
+    }
+
+    private static String argument(String[] args, int index, String option) {
+        if (index >= args.length) throw new IllegalArgumentException(option + " needs an argument");
+        return args[index];
+    }
+
+    private static int port(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Not a port number: " + text);
+        }
+    }
+
+    void importRecipes(Path file) throws IOException {
+        long collapsedBefore = recipes.collapsedCount();
+        try {
+            importFile(file);
+        } finally {
+            reportCollapsed(collapsedBefore);
+        }
+    }
+
+    private void importFile(Path file) throws IOException {
+        if (RecipeImporter.Format.of(file) != null) {
+            RecipeImporter.Result result = new RecipeImporter().importFile(file, recipes);
+            out.println(result.summary());
+            if (result.firstError() != null) out.println("First rejected " + result.firstError());
+            return;
+        }
+        long collapsedBefore = recipes.collapsedCount();
+        long imported = 0;
+        int lineNo = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank() || line.startsWith("#")) continue;
+                String[] cols = line.split("\t", -1);
+                try {
+                    recipes.create(cols[0],
+                            cols.length > 1 ? cols[1] : "",
+                            splitList(cols.length > 2 ? cols[2] : ""),
+                            splitList(cols.length > 3 ? cols[3] : ""));
+                    imported++;
+                } catch (IllegalArgumentException | IllegalStateException ex) {
+                    throw new IllegalArgumentException(file + ":" + lineNo + ": " + ex.getMessage());
+                }
+            }
+        }
+        imported -= recipes.collapsedCount() - collapsedBefore;
+        out.println("Imported " + imported + " recipe(s)");
+    }
+
+    void loadLibrary(Path file) throws IOException {
+        long collapsedBefore = recipes.collapsedCount();
+        int count = RecipeBinary.isBinary(file) ? RecipeBinary.load(file, recipes) : RecipeYaml.load(file, recipes);
+        out.println("Loaded " + count + " recipe(s)");
+        reportCollapsed(collapsedBefore);
+    }
+
+    private void reportCollapsed(long before) {
+        long collapsed = recipes.collapsedCount() - before;
+        if (collapsed > 0) out.println("Skipped " + collapsed + " duplicate(s) already in the library");
+    }
+
+    void saveLibrary(Path file) throws IOException {
+        int count = RecipeBinary.isBinary(file) ? RecipeBinary.save(recipes, file) : RecipeYaml.save(recipes, file);
+        out.println("Saved " + count + " recipe(s) to " + file);
+    }
+
+    void setSlots(String list) {
+        Set<MealSlot> slots = EnumSet.noneOf(MealSlot.class);
+        for (String name : splitList(list)) {
+            slots.add(slotByName(name));
+        }
+        planner.setActiveSlots(slots);
+    }
+
+    void autoPlan() {
+        int filled = planner.autoPlan(recipes.listAll());
+        out.println("Planned " + filled + " slot(s)");
+    }
+
+    void showPlan() {
+        for (DayOfWeek day : DayOfWeek.values()) {
+            for (MealSlot slot : planner.getActiveSlots()) {
+                String title = planner.getRecipe(day, slot).map(Recipe::getTitle).orElse("-");
+                out.println(day + "\t" + slot + "\t" + title);
+            }
+        }
+    }
+
+    void exportGroceries(String target) throws IOException {
+        Map<String, Integer> items = planner.getGroceryList().getItems();
+        if ("-".equals(target)) {
+            writeGroceries(items, out);
+            return;
+        }
+        try (PrintStream file = new PrintStream(Files.newOutputStream(Path.of(target)), false, StandardCharsets.UTF_8)) {
+            writeGroceries(items, file);
+        }
+        out.println("Exported " + items.size() + " grocery item(s) to " + target);
+    }
+
+    void serve(int port) throws IOException {
+        try (AsyncServiceFacade model = new AsyncServiceFacade(recipes, planner);
+             PlannerHttpServer server = PlannerHttpServer.start(new InetSocketAddress(port), model, recipes)) {
+            out.println("Serving " + recipes.listAll().size() + " recipe(s) on port " + server.port());
+            new CountDownLatch(1).await(); // until the process is stopped
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while serving");
+        }
+    }
+
+    private static void writeGroceries(Map<String, Integer> items, PrintStream target) {
+        items.forEach((name, qty) -> target.println(name + "\t" + qty));
+    }
+
+    private void print(List<Recipe> found) {
+        for (Recipe r : found) {
+            out.println(r.getTitle() + (r.getTags().isEmpty() ? "" : "\t" + String.join(",", r.getTags())));
+        }
+    }
+
+    private static MealSlot slotByName(String name) {
+        for (MealSlot slot : MealSlot.values()) {
+            if (slot.name().equalsIgnoreCase(name) || slot.getDisplayName().equalsIgnoreCase(name)) return slot;
+        }
+        throw new IllegalArgumentException("Unknown meal slot: " + name);
+    }
+
+    private static List<String> splitList(String text) {
+        List<String> list = new ArrayList<>();
+        for (String part : text.split(",")) {
+            if (!part.isBlank()) list.add(part.strip());
+        }
+        return list;
+    }
+}
@@ -0,0 +1,66 @@
+package be.uantwerpen.sd.project;
+
+import java.util.Locale;
+
+/**
+ * Latency histogram with power-of-two microsecond buckets: bucket {@code i} counts durations
+ * below 2^i µs (and at least 2^(i-1) µs). Count, total and maximum are exact; percentiles
+ * are reported as the upper bound of the bucket they fall in, which is good enough to tell
+ * a 2 ms handler from a 30 ms one.
+ *
+ * Recording is constant-time and does not allocate. All methods are thread-safe.
+ */
+public class LatencyHistogram {
+    private static final int BUCKETS = 32;
+
+    private final long[] buckets = new long[BUCKETS];
+    private long count;
+    private long totalNanos;
+    private long maxNanos;
+
+    public synchronized void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        buckets[bucket(nanos)]++;
+        count++;
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+    }
+
+    public synchronized long count() {
+        return count;
+    }
+
+    public synchronized long maxNanos() {
+        return maxNanos;
+    }
+
+    public synchronized double meanMillis() {
+        return count == 0 ? 0 : totalNanos / 1e6 / count;
+    }
+
+    /** Upper bound (in nanoseconds) of the bucket holding the given percentile (0-100). */
+    public synchronized long percentileNanos(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        }
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i];
+            if (seen >= rank) return Math.min(maxNanos, (1L << i) * 1000);
+        }
+        return maxNanos;
+    }
+
+    /** One-line summary, e.g. {@code n=120 mean=1.42ms p50<=1.02ms p99<=8.19ms max=7.31ms}. */
+    public synchronized String summary() {
+        return String.format(Locale.ROOT, "n=%d mean=%.2fms p50<=%.2fms p99<=%.2fms max=%.2fms",
+                count, meanMillis(), percentileNanos(50) / 1e6, percentileNanos(99) / 1e6, maxNanos / 1e6);
+    }
+
+    private static int bucket(long nanos) {
+        long micros = nanos / 1000;
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+    }
+}
@@ -0,0 +1,63 @@
+package be.uantwerpen.sd.project;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Named {@link LatencyHistogram}s, e.g. one per UI event handler or refresh routine.
+ * Histograms are created on first use; all methods are thread-safe.
+ */
+public class LatencyRecorder {
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    /** Run the action and record how long it took under the given name. */
+    public void time(String name, Runnable action) {
+        long start = System.nanoTime();
+        try {
+            action.run();
+        } finally {
+            record(name, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Start the asynchronous action and record how long it took until its future completed,
+     * normally or exceptionally. Cancelled (superseded) work is not recorded.
+     */
+    public <T> CompletableFuture<T> timeAsync(String name, Supplier<CompletableFuture<T>> action) {
+        long start = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = action.get();
+        } catch (RuntimeException | Error e) {
+            record(name, System.nanoTime() - start);
+            throw e;
+        }
+        future.whenComplete((value, ex) -> {
+            Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            if (!(cause instanceof CancellationException)) record(name, System.nanoTime() - start);
+        });
+        return future;
+    }
+
+    public void record(String name, long nanos) {
+        histogram(name).record(nanos);
+    }
+
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, k -> new LatencyHistogram());
+    }
+
+    /** One line per histogram, sorted by name. */
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        new TreeMap<>(histograms).forEach((name, h) ->
+                sb.append(String.format("%-28s %s%n", name, h.summary())));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,188 @@
+package be.uantwerpen.sd.project.Persistence;
+
+import be.uantwerpen.sd.project.Recipe.DescriptionStorage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Off-heap home for recipe descriptions: the text lives in a memory-mapped scratch file and
+ * each recipe only holds a {@link Blob} (offset and length). Hand it to the
+ * {@link be.uantwerpen.sd.project.Recipe.RecipeService} whose library it holds, and close it
+ * only after that service and its recipes are done with.
+ *
+ * Design notes:
+ * - Append-only: descriptions are UTF-8 encoded and copied into fixed-size mapped segments;
+ *   a blob never straddles two segments (one larger than a segment gets its own mapping).
+ * - Reads decode from the mapping; the most recently read texts are kept in a bounded LRU
+ *   cache, so showing the same recipe again costs no decoding, and the heap only ever holds
+ *   a small, fixed number of descriptions.
+ * - The file is a scratch file, deleted on {@link #close()}: the library itself is still saved
+ *   as text by the journal and library files. Blobs of edited or removed recipes are not
+ *   reclaimed before then. Reading a description after close fails with an
+ *   {@link IllegalStateException}.
+ * - Thread-safe: appends and the cache are synchronized; reads use absolute gets on the
+ *   mappings, which never change position.
+ */
+public class DescriptionBlobStore implements DescriptionStorage, AutoCloseable {
+
+    private static final int DEFAULT_SEGMENT_BYTES = 64 << 20;
+    private static final int DEFAULT_CACHE_ENTRIES = 256;
+
+    /** Handle to one stored description. */
+    public record Blob(DescriptionBlobStore store, long offset, int length) implements Supplier<String> {
+        @Override
+        public String get() {
+            return store.read(offset, length);
+        }
+    }
+
+    private final Path file;
+    private final int segmentBytes;
+    private final FileChannel channel;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    // Blobs larger than a segment, by offset
+    private final Map<Long, MappedByteBuffer> oversized = new HashMap<>();
+    private long end;
+    private final Map<Long, String> cache;
+    private long hits;
+    private long misses;
+    private volatile boolean closed;
+
+    /** Create a store backed by a new scratch file in the temp directory. */
+    public static DescriptionBlobStore createTemp() throws IOException {
+        return new DescriptionBlobStore(Files.createTempFile("recipe-descriptions", ".blob"), DEFAULT_CACHE_ENTRIES);
+    }
+
+    /**
+     * @param file         scratch file; overwritten, and deleted again on close
+     * @param cacheEntries number of decoded descriptions kept on the heap
+     */
+    public DescriptionBlobStore(Path file, int cacheEntries) throws IOException {
+        this(file, cacheEntries, DEFAULT_SEGMENT_BYTES);
+    }
+
+    DescriptionBlobStore(Path file, int cacheEntries, int segmentBytes) throws IOException {
+        if (cacheEntries < 1) throw new IllegalArgumentException("Cache must hold at least one entry");
+        this.file = file;
+        this.segmentBytes = segmentBytes;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.cache = new LinkedHashMap<>(cacheEntries * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+                return size() > cacheEntries;
+            }
+        };
+    }
+
+    @Override
+    public Supplier<String> store(String description) {
+        byte[] bytes = description.getBytes(StandardCharsets.UTF_8);
+        try {
+            return new Blob(this, append(bytes), bytes.length);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot store description", ex);
+        }
+    }
+
+    private synchronized long append(byte[] bytes) throws IOException {
+        if (closed) throw new IllegalStateException("Description store is closed");
+        int used = (int) (end % segmentBytes);
+        if (used + bytes.length > segmentBytes && used > 0) {
+            end += segmentBytes - used; // start the next segment
+        }
+        long offset = end;
+        if (bytes.length > segmentBytes) {
+            MappedByteBuffer own = channel.map(FileChannel.MapMode.READ_WRITE, offset, bytes.length);
+            own.put(0, bytes);
+            oversized.put(offset, own);
+            // Continue at the next segment boundary
+            end = (offset + bytes.length + segmentBytes - 1) / segmentBytes * segmentBytes;
+            return offset;
+        }
+        segment(offset).put((int) (offset % segmentBytes), bytes);
+        end += bytes.length;
+        return offset;
+    }
+
+    // Mapping the segment extends the file as needed
+    private MappedByteBuffer segment(long offset) throws IOException {
+        int index = (int) (offset / segmentBytes);
+        while (segments.size() <= index) segments.add(null);
+        MappedByteBuffer segment = segments.get(index);
+        if (segment == null) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, (long) index * segmentBytes, segmentBytes);
+            segments.set(index, segment);
+        }
+        return segment;
+    }
+
+    String read(long offset, int length) {
+        if (length == 0) return ""; // shares its offset with the next blob
+        MappedByteBuffer source;
+        synchronized (this) {
+            if (closed) throw new IllegalStateException("Description store is closed");
+            String cached = cache.get(offset);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+            source = length > segmentBytes ? oversized.get(offset) : segments.get((int) (offset / segmentBytes));
+        }
+        byte[] bytes = new byte[length];
+        source.get(length > segmentBytes ? 0 : (int) (offset % segmentBytes), bytes);
+        String text = new String(bytes, StandardCharsets.UTF_8);
+        synchronized (this) {
+            cache.put(offset, text);
+        }
+        return text;
+    }
+
+    /** Bytes taken in the scratch file, including segment tails left unused. */
+    public synchronized long bytesStored() {
+        return end;
+    }
+
+    public synchronized int cachedCount() {
+        return cache.size();
+    }
+
+    /** Reads served from the cache. */
+    public synchronized long cacheHits() {
+        return hits;
+    }
+
+    /** Reads that had to decode from the file. */
+    public synchronized long cacheMisses() {
+        return misses;
+    }
+
+    /**
+     * Release the mappings and delete the scratch file. Descriptions stored here cannot be
+     * read afterwards, so uninstall the store (and save the library) first.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        cache.clear();
+        segments.clear();
+        oversized.clear();
+        try {
+            channel.close();
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            // Scratch data only; a leftover temp file is harmless
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package be.uantwerpen.sd.project.Persistence;
+
+import be.uantwerpen.sd.project.Recipe.DescriptionStorage;
+import be.uantwerpen.sd.project.Recipe.Recipe;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Line format shared by journal and snapshot files: {@code <crc32 hex>\t<field>\t<field>...\n}.
+ * Fields are escaped so they never contain tabs or newlines, and the checksum covers the
+ * rest of the line, so a torn or corrupted write is detected on replay.
+ *
+ * A recipe is written as: title, description, ingredient count, ingredients..., tags...
+ */
+final class JournalCodec {
+
+    private JournalCodec() {
+    }
+
+    static final class Fields {
+        private final List<String> values = new ArrayList<>();
+
+        Fields add(Object value) {
+            values.add(String.valueOf(value));
+            return this;
+        }
+
+        Fields addRecipe(Recipe r) {
+            add(r.getTitle()).add(r.getDescription()).add(r.getIngredients().size());
+            r.getIngredients().forEach(this::add);
+            r.getTags().forEach(this::add);
+            return this;
+        }
+
+        /** Encoded line, including checksum and trailing newline. */
+        byte[] encode() {
+            StringBuilder payload = new StringBuilder();
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0) payload.append('\t');
+                escape(values.get(i), payload);
+            }
+            byte[] body = payload.toString().getBytes(StandardCharsets.UTF_8);
+            byte[] crc = String.format("%08x\t", crc(body, 0, body.length)).getBytes(StandardCharsets.US_ASCII);
+            byte[] line = new byte[crc.length + body.length + 1];
+            System.arraycopy(crc, 0, line, 0, crc.length);
+            System.arraycopy(body, 0, line, crc.length, body.length);
+            line[line.length - 1] = '\n';
+            return line;
+        }
+    }
+
+    /**
+     * Decode one line (without its newline). Returns null if the checksum does not match.
+     */
+    static String[] decode(byte[] buf, int from, int to) {
+        if (to - from < 9 || buf[from + 8] != '\t') return null;
+        long expected;
+        try {
+            expected = Long.parseLong(new String(buf, from, 8, StandardCharsets.US_ASCII), 16);
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+        int bodyStart = from + 9;
+        if (crc(buf, bodyStart, to - bodyStart) != expected) return null;
+        String[] raw = new String(buf, bodyStart, to - bodyStart, StandardCharsets.UTF_8).split("\t", -1);
+        for (int i = 0; i < raw.length; i++) raw[i] = unescape(raw[i]);
+        return raw;
+    }
+
+    /** Read a recipe written by {@link Fields#addRecipe} starting at the given field. */
+    static Recipe readRecipe(String[] f, int start, DescriptionStorage storage) {
+        int ingredientCount = Integer.parseInt(f[start + 2]);
+        Recipe.Builder b = new Recipe.Builder(f[start]).descriptionStorage(storage).description(f[start + 1]);
+        int i = start + 3;
+        for (int end = i + ingredientCount; i < end; i++) b.addIngredient(f[i]);
+        for (; i < f.length; i++) b.addTag(f[i]);
+        return b.build();
+    }
+
+    private static long crc(byte[] buf, int off, int len) {
+        CRC32 crc = new CRC32();
+        crc.update(buf, off, len);
+        return crc.getValue();
+    }
+
+    private static void escape(String s, StringBuilder out) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '\\' -> out.append("\\\\");
+                case '\t' -> out.append("\\t");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                default -> out.append(c);
+            }
+        }
+    }
+
+    private static String unescape(String s) {
+        if (s.indexOf('\\') < 0) return s;
+        StringBuilder out = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c != '\\' || i + 1 == s.length()) {
+                out.append(c);
+                continue;
+            }
+            char n = s.charAt(++i);
+            out.append(switch (n) {
+                case 't' -> '\t';
+                case 'n' -> '\n';
+                case 'r' -> '\r';
+                default -> n;
+            });
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,121 @@
+package be.uantwerpen.sd.project.Persistence;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Just enough JSON for one flat object: string, array-of-string, number, boolean and null
+ * values. Numbers and booleans are kept as their text. Used for JSON-lines imports
+ * ({@link RecipeImporter}) and HTTP request bodies.
+ */
+public final class JsonObjectParser {
+    private final String s;
+    private int pos;
+
+    public JsonObjectParser(String s) {
+        this.s = s;
+    }
+
+    /** @throws IllegalArgumentException if the text is not one flat JSON object */
+    public Map<String, Object> parse() {
+        Map<String, Object> object = new HashMap<>();
+        expect('{');
+        if (peek() != '}') {
+            do {
+                String key = string();
+                expect(':');
+                object.put(key, value());
+            } while (consume(','));
+        }
+        expect('}');
+        if (peek() != 0) throw error("trailing characters");
+        return object;
+    }
+
+    private Object value() {
+        char c = peek();
+        if (c == '"') return string();
+        if (c == '[') {
+            pos++;
+            List<String> list = new ArrayList<>();
+            if (peek() != ']') {
+                do {
+                    Object v = value();
+                    if (v instanceof List<?>) throw error("nested arrays are not supported");
+                    if (v != null) list.add(v.toString());
+                } while (consume(','));
+            }
+            expect(']');
+            return list;
+        }
+        if (c == '{') throw error("nested objects are not supported");
+        int start = pos;
+        while (pos < s.length() && ",]} \t\r".indexOf(s.charAt(pos)) < 0) pos++;
+        String literal = s.substring(start, pos);
+        if (literal.equals("null")) return null;
+        if (literal.isEmpty()) throw error("missing value");
+        return literal; // number or boolean, kept as text
+    }
+
+    private String string() {
+        expect('"');
+        StringBuilder out = new StringBuilder();
+        while (true) {
+            if (pos >= s.length()) throw error("unterminated string");
+            char c = s.charAt(pos++);
+            if (c == '"') return out.toString();
+            if (c != '\\') {
+                out.append(c);
+                continue;
+            }
+            if (pos >= s.length()) throw error("unterminated string");
+            char e = s.charAt(pos++);
+            switch (e) {
+                case 'n' -> out.append('\n');
+                case 't' -> out.append('\t');
+                case 'r' -> out.append('\r');
+                case 'b' -> out.append('\b');
+                case 'f' -> out.append('\f');
+                case 'u' -> {
+                    if (pos + 4 > s.length()) throw error("bad unicode escape");
+                    out.append((char) Integer.parseInt(s.substring(pos, pos + 4), 16));
+                    pos += 4;
+                }
+                default -> out.append(e); // \" \\ \/
+            }
+        }
+    }
+
+    private char peek() {
+        while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) pos++;
+        return pos < s.length() ? s.charAt(pos) : 0;
+    }
+
+    private boolean consume(char c) {
+        if (peek() != c) return false;
+        pos++;
+        return true;
+    }
+
+    private void expect(char c) {
+        if (!consume(c)) throw error("expected '" + c + "'");
+    }
+
+    private IllegalArgumentException error(String what) {
+        return new IllegalArgumentException("Invalid JSON at column " + (pos + 1) + ": " + what);
+    }
+
+    /** A parsed value as text, or null. */
+    public static String string(Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    /** A parsed value as a list: arrays as they are, a single value as a one-element list. */
+    public static List<String> strings(Object value) {
+        if (value == null) return List.of();
+        if (value instanceof List<?> list) return list.stream().map(Object::toString).toList();
+        return List.of(value.toString());
+    }
+}
@@ -0,0 +1,449 @@
+package be.uantwerpen.sd.project.Persistence;
+
+import be.uantwerpen.sd.project.Persistence.JournalCodec.Fields;
+import be.uantwerpen.sd.project.Planner.MealPlanService;
+import be.uantwerpen.sd.project.Planner.MealSlot;
+import be.uantwerpen.sd.project.Planner.WeekPlan;
+import be.uantwerpen.sd.project.Recipe.Recipe;
+import be.uantwerpen.sd.project.Recipe.RecipeService;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.DayOfWeek;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Append-only journal of recipe library and week plan changes, with snapshot compaction.
+ *
+ * Files in the journal directory, per generation {@code g}:
+ * - {@code snapshot-g.snap}: the full state at the start of generation g;
+ * - {@code journal-g.log}: every change saved during generation g.
+ * Both use the same record format ({@link JournalCodec}); a snapshot is simply the shortest
+ * record sequence that rebuilds the state. Recipes are referenced by their stable library
+ * key ({@link RecipeService#keyOf}), plan cells by day and slot.
+ *
+ * Design notes:
+ * - Incremental: {@link #saveChanges} only writes what the services' change tracking
+ *   reports, so a recipe or cell edited many times between saves is written once, and
+ *   nothing unchanged is ever serialized again (until the next compaction).
+ * - Group commit: saving only encodes and enqueues; a single writer thread drains
+ *   everything queued, writes it and fsyncs once per batch. The returned futures complete
+ *   once the records are durable, so callers never block on disk.
+ * - Compaction: {@link #compact} first saves the pending changes into the current
+ *   generation, then captures the (immutable) recipes and plan, switches the writer to the
+ *   next generation, and writes the snapshot in the background. Until that snapshot is in
+ *   place, the old snapshot plus all journals still rebuild the full state, so a crash or a
+ *   failed snapshot write loses nothing; files of older generations are deleted only after
+ *   the new snapshot is durable.
+ * - Recovery ({@link #open}): replay the newest complete snapshot plus the journals of its
+ *   generation and later. A torn or corrupt tail (bad framing or checksum mismatch) ends the
+ *   replay and is truncated. A record that is intact but does not apply (e.g. it names a
+ *   recipe key that is not there) means the files are inconsistent: recovery fails with an
+ *   {@link IOException} and leaves every file as it is. Plan records go straight onto the
+ *   {@link WeekPlan}: replay restores what was planned, it does not check the slot/tag rule
+ *   again (a re-tagged recipe may legitimately stay in a slot its new tags do not allow).
+ *
+ * {@link #saveChanges} and {@link #compact} must be called from the thread that owns the
+ * model (they read its state); the rest is thread-safe.
+ */
+public class MutationJournal implements AutoCloseable {
+
+    private static final Pattern FILE_NAME = Pattern.compile("(journal|snapshot)-(\\d+)\\.(log|snap)");
+
+    // Record types
+    private static final String UPSERT = "U";   // key, recipe: replace the entry or append it
+    private static final String REMOVE = "D";   // key
+    private static final String ORDER = "O";    // all keys, in library order
+    private static final String ACTIVE_SLOTS = "A";
+    private static final String PLAN = "P";     // day, slot, key (-1: recipe follows inline)
+    private static final String CLEAR = "X";    // day, slot
+
+    // Queue entries: a batch of records, a switch to a new generation, or the close marker
+    private record Entry(byte[] lines, int records, long rotateTo, CompletableFuture<Void> done) {
+    }
+
+    private static final Entry CLOSE = new Entry(null, 0, -1, new CompletableFuture<>());
+
+    private final Path dir;
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "journal-compactor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Writer thread state
+    private FileChannel channel;
+
+    private long generation; // latest generation handed to the writer (owner thread)
+    private final AtomicLong journalBytes = new AtomicLong();
+    private final AtomicLong records = new AtomicLong();
+    private final AtomicLong commits = new AtomicLong();
+    private volatile boolean closed;
+
+    private MutationJournal(Path dir, long generation, FileChannel channel) {
+        this.dir = dir;
+        this.generation = generation;
+        this.channel = channel;
+        this.writer = new Thread(this::writeLoop, "journal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Recover the state stored in the directory into the (empty) services, then open the
+     * journal for appending. A missing directory is created and recovers nothing.
+     */
+    public static MutationJournal open(Path dir, RecipeService recipes, MealPlanService planner) throws IOException {
+        Files.createDirectories(dir);
+        TreeMap<Long, Path> snapshots = new TreeMap<>();
+        TreeMap<Long, Path> journals = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path f : files) {
+                Matcher m = FILE_NAME.matcher(f.getFileName().toString());
+                if (!m.matches()) continue;
+                (m.group(1).equals("journal") ? journals : snapshots).put(Long.parseLong(m.group(2)), f);
+            }
+        }
+
+        long base = snapshots.isEmpty() ? 0 : snapshots.lastKey();
+        if (!snapshots.isEmpty()) {
+            Path snapshot = snapshots.lastEntry().getValue();
+            if (replay(snapshot, recipes, planner) != Files.size(snapshot)) {
+                throw new IOException("Corrupt snapshot: " + snapshot);
+            }
+        }
+
+        long current = base;
+        boolean truncated = false;
+        for (Map.Entry<Long, Path> e : journals.tailMap(base, true).entrySet()) {
+            Path journal = e.getValue();
+            if (truncated) {
+                Files.delete(journal); // written after a corrupt record; cannot be applied
+                continue;
+            }
+            long valid = replay(journal, recipes, planner);
+            if (valid < Files.size(journal)) {
+                try (FileChannel ch = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+                    ch.truncate(valid);
+                }
+                truncated = true;
+            }
+            current = e.getKey();
+        }
+        deleteGenerationsBefore(dir, base);
+        // What was just replayed is saved already
+        recipes.takeChanges();
+        planner.getWeekPlan().takeChanges();
+
+        FileChannel channel = openAppend(journalFile(dir, current));
+        MutationJournal journal = new MutationJournal(dir, current, channel);
+        journal.journalBytes.set(channel.size());
+        return journal;
+    }
+
+    // ===== Saving =====
+
+    /**
+     * Write everything that changed since the previous save (or compaction) as one batch:
+     * the current version of each changed recipe and plan cell, once. Completes once the
+     * batch is durable; immediately if nothing changed.
+     */
+    public CompletableFuture<Void> saveChanges(RecipeService recipes, MealPlanService planner) {
+        return write(recipes.takeChanges(), planner.getWeekPlan().takeChanges(), recipes);
+    }
+
+    /**
+     * Write changes the caller has taken from the services itself, e.g. to hand them back
+     * ({@link RecipeService#restoreChanges}, {@link WeekPlan#restoreChanges}) should the
+     * returned future fail. Every record is idempotent, so writing a change again after a
+     * failure that did get part of a batch to disk is harmless.
+     */
+    public CompletableFuture<Void> write(RecipeService.Changes library, WeekPlan.Changes plan, RecipeService recipes) {
+        if (library.isEmpty() && plan.isEmpty()) return CompletableFuture.completedFuture(null);
+
+        ByteArrayOutputStream batch = new ByteArrayOutputStream();
+        int count = 0;
+        for (Map.Entry<Long, Recipe> e : library.upserted().entrySet()) {
+            batch.writeBytes(new Fields().add(UPSERT).add(e.getKey()).addRecipe(e.getValue()).encode());
+            count++;
+        }
+        for (long key : library.removed()) {
+            batch.writeBytes(new Fields().add(REMOVE).add(key).encode());
+            count++;
+        }
+        if (library.order() != null) {
+            Fields f = new Fields().add(ORDER);
+            library.order().forEach(f::add);
+            batch.writeBytes(f.encode());
+            count++;
+        }
+        if (plan.activeSlots() != null) {
+            batch.writeBytes(activeSlots(plan.activeSlots()).encode());
+            count++;
+        }
+        for (WeekPlan.CellChange c : plan.cells()) {
+            batch.writeBytes((c.recipe() == null
+                    ? new Fields().add(CLEAR).add(c.day()).add(c.slot())
+                    : plan(c.day(), c.slot(), recipes.keyOf(c.recipe()), c.recipe())).encode());
+            count++;
+        }
+        return enqueue(new Entry(batch.toByteArray(), count, 0, new CompletableFuture<>()));
+    }
+
+    private static Fields activeSlots(Set<MealSlot> slots) {
+        Fields f = new Fields().add(ACTIVE_SLOTS);
+        slots.forEach(f::add);
+        return f;
+    }
+
+    private static Fields plan(DayOfWeek day, MealSlot slot, long key, Recipe recipe) {
+        Fields f = new Fields().add(PLAN).add(day).add(slot).add(key);
+        if (key < 0) f.addRecipe(recipe); // planned, but not (or no longer) in the library
+        return f;
+    }
+
+    private CompletableFuture<Void> enqueue(Entry e) {
+        if (closed) return CompletableFuture.failedFuture(new IllegalStateException("Journal is closed"));
+        queue.add(e);
+        return e.done();
+    }
+
+    // ===== Compaction =====
+
+    /**
+     * Start a new generation whose snapshot is the current state of the services. Changes
+     * not saved yet are first written to the current generation, so the journals stay
+     * complete should the snapshot never make it to disk. Completes once the snapshot is
+     * durable and older files are removed.
+     */
+    public synchronized CompletableFuture<Void> compact(RecipeService recipes, MealPlanService planner) {
+        // Queued ahead of the generation switch, so the writer puts it in the old journal
+        saveChanges(recipes, planner);
+        // Recipes are immutable, so capturing the lists is enough for a consistent snapshot
+        List<Recipe> library = recipes.listAll();
+        long[] keys = new long[library.size()];
+        for (int i = 0; i < keys.length; i++) keys[i] = recipes.keyOf(library.get(i));
+        Map<DayOfWeek, Map<MealSlot, Recipe>> plan = planner.getWeekPlan().snapshot();
+        Set<MealSlot> active = planner.getActiveSlots();
+        long next = ++generation;
+        return enqueue(new Entry(null, 0, next, new CompletableFuture<>()))
+                .thenRunAsync(() -> writeSnapshot(next, library, keys, plan, active), compactor);
+    }
+
+    /** Bytes appended to the current journal file since its snapshot. */
+    public long journalBytes() {
+        return journalBytes.get();
+    }
+
+    /** Records written so far (since open). */
+    public long recordCount() {
+        return records.get();
+    }
+
+    /** Number of fsync'ed batches so far (since open); at most {@link #recordCount()}. */
+    public long commitCount() {
+        return commits.get();
+    }
+
+    private void writeSnapshot(long gen, List<Recipe> library, long[] keys, Map<DayOfWeek, Map<MealSlot, Recipe>> plan, Set<MealSlot> active) {
+        Path target = dir.resolve(String.format("snapshot-%d.snap", gen));
+        Path tmp = dir.resolve(target.getFileName() + ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16)) {
+                Map<Recipe, Long> keyOf = new IdentityHashMap<>();
+                for (int i = 0; i < keys.length; i++) {
+                    keyOf.put(library.get(i), keys[i]);
+                    out.write(new Fields().add(UPSERT).add(keys[i]).addRecipe(library.get(i)).encode());
+                }
+                out.write(activeSlots(active).encode());
+                for (Map.Entry<DayOfWeek, Map<MealSlot, Recipe>> day : plan.entrySet()) {
+                    for (Map.Entry<MealSlot, Recipe> e : day.getValue().entrySet()) {
+                        out.write(plan(day.getKey(), e.getKey(), keyOf.getOrDefault(e.getValue(), -1L), e.getValue()).encode());
+                    }
+                }
+            }
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                ch.force(true);
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            // The older generations still hold everything; just drop the partial file
+            try {
+                Files.deleteIfExists(tmp);
+            } catch (IOException suppressed) {
+                ex.addSuppressed(suppressed);
+            }
+            throw new UncheckedIOException(ex);
+        }
+        try {
+            deleteGenerationsBefore(dir, gen);
+        } catch (IOException ex) {
+            // Left-over old files are ignored (and deleted) by the next recovery
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // ===== Writer thread =====
+
+    private void writeLoop() {
+        List<Entry> batch = new ArrayList<>();
+        ByteArrayOutputStream pending = new ByteArrayOutputStream();
+        boolean stop = false;
+        while (!stop) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException ex) {
+                stop = true;
+            }
+            queue.drainTo(batch);
+            IOException failure = null;
+            try {
+                for (Entry e : batch) {
+                    if (e == CLOSE) {
+                        stop = true;
+                    } else if (e.lines() != null) {
+                        pending.write(e.lines());
+                        records.addAndGet(e.records());
+                    } else {
+                        // Switch generations: finish the current file first. The new file is
+                        // opened before the old one is closed, so a failed switch keeps
+                        // appending to the current generation.
+                        flush(pending);
+                        channel.force(false);
+                        FileChannel next = openAppend(journalFile(dir, e.rotateTo()));
+                        channel.close();
+                        channel = next;
+                        journalBytes.set(0);
+                    }
+                }
+                flush(pending);
+                channel.force(false);
+                commits.incrementAndGet();
+            } catch (IOException ex) {
+                failure = ex;
+                pending.reset();
+            }
+            for (Entry e : batch) {
+                if (failure == null) e.done().complete(null); else e.done().completeExceptionally(failure);
+            }
+            batch.clear();
+        }
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // nothing left to write
+        }
+    }
+
+    private void flush(ByteArrayOutputStream pending) throws IOException {
+        if (pending.size() == 0) return;
+        ByteBuffer buf = ByteBuffer.wrap(pending.toByteArray());
+        while (buf.hasRemaining()) channel.write(buf);
+        journalBytes.addAndGet(pending.size());
+        pending.reset();
+    }
+
+    /** Write out everything recorded so far and stop; waits for a running compaction. */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        queue.add(CLOSE);
+        try {
+            writer.join();
+            // The writer has handed over any pending snapshot by now
+            compactor.shutdown();
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ===== Recovery =====
+
+    // Apply the records of one file; returns the length of its intact prefix
+    private static long replay(Path file, RecipeService recipes, MealPlanService planner) throws IOException {
+        long valid = 0;
+        long offset = 0;
+        byte[] line = new byte[256];
+        int len = 0;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+            int b;
+            while ((b = in.read()) >= 0) {
+                offset++;
+                if (b != '\n') {
+                    if (len == line.length) line = Arrays.copyOf(line, len * 2);
+                    line[len++] = (byte) b;
+                    continue;
+                }
+                String[] fields = JournalCodec.decode(line, 0, len);
+                if (fields == null) return valid; // torn or corrupt: the usable log ends here
+                try {
+                    apply(fields, recipes, planner);
+                } catch (RuntimeException ex) {
+                    // Intact but inconsistent: truncating would throw away good records
+                    throw new IOException("Journal record at offset " + valid + " of " + file + " does not apply", ex);
+                }
+                valid = offset;
+                len = 0;
+            }
+        }
+        return valid;
+    }
+
+    private static void apply(String[] f, RecipeService recipes, MealPlanService planner) {
+        WeekPlan plan = planner.getWeekPlan();
+        switch (f[0]) {
+            case UPSERT -> {
+                long key = Long.parseLong(f[1]);
+                Recipe old = recipes.byKey(key);
+                Recipe updated = JournalCodec.readRecipe(f, 2, recipes.descriptionStorage());
+                recipes.upsert(key, updated);
+                if (old != null) planner.replaceRecipeReferences(old, updated);
+            }
+            case REMOVE -> recipes.removeKey(Long.parseLong(f[1]));
+            case ORDER -> {
+                List<Long> order = new ArrayList<>(f.length - 1);
+                for (int i = 1; i < f.length; i++) order.add(Long.parseLong(f[i]));
+                recipes.reorder(order);
+            }
+            case ACTIVE_SLOTS -> {
+                Set<MealSlot> slots = EnumSet.noneOf(MealSlot.class);
+                for (int i = 1; i < f.length; i++) slots.add(MealSlot.valueOf(f[i]));
+                plan.setActiveSlots(slots);
+            }
+            case PLAN -> {
+                long key = Long.parseLong(f[3]);
+                Recipe r = key >= 0 ? Objects.requireNonNull(recipes.byKey(key), "recipe " + key) : JournalCodec.readRecipe(f, 4, recipes.descriptionStorage());
+                plan.setRecipe(DayOfWeek.valueOf(f[1]), MealSlot.valueOf(f[2]), r);
+            }
+            case CLEAR -> plan.clear(DayOfWeek.valueOf(f[1]), MealSlot.valueOf(f[2]));
+            default -> throw new IllegalArgumentException("Unknown journal record: " + f[0]);
+        }
+    }
+
+    private static Path journalFile(Path dir, long gen) {
+        return dir.resolve(String.format("journal-%d.log", gen));
+    }
+
+    private static FileChannel openAppend(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static void deleteGenerationsBefore(Path dir, long gen) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path f : files) {
+                Matcher m = FILE_NAME.matcher(f.getFileName().toString());
+                if (m.matches() && Long.parseLong(m.group(2)) < gen) Files.deleteIfExists(f);
+            }
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package be.uantwerpen.sd.project.Persistence;
+
+import be.uantwerpen.sd.project.Recipe.Recipe;
+import be.uantwerpen.sd.project.Recipe.RecipeService;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Compact binary load/save of the recipe library, read through a {@link MappedByteBuffer}.
+ *
+ * File layout (big-endian ints):
+ * <pre>
+ * header   magic "RCPB", version, recipe count, string count, code count
+ * recipes  per recipe: title id, description id, first code, ingredient count, tag count
+ * codes    string ids: the ingredients and then the tags of each recipe, back to back
+ * offsets  string count + 1 offsets into the string data
+ * strings  UTF-8 bytes of every distinct string
+ * </pre>
+ *
+ * Design notes:
+ * - Every distinct string is stored once (string table); recipes only hold ids. Ingredients
+ *   and tags repeat a lot, so files stay small and each one is decoded once per load.
+ * - Loading maps the file and builds recipes straight from the fixed-size records; there is
+ *   nothing to parse. Descriptions are not decoded at all: each recipe gets a lazy description
+ *   ({@link Recipe.Builder#description(Supplier)}) that reads its bytes from
+ *   the mapping when asked for. The mapping lives as long as such a recipe does.
+ * - Saving writes a temp file and moves it into place, so a mapping of the previous file
+ *   stays valid (on POSIX file systems) and a crash never leaves a half-written library.
+ */
+public final class RecipeBinary {
+
+    /** File name extension used for binary libraries. */
+    public static final String EXTENSION = ".rcpb";
+
+    private static final int MAGIC = 0x52435042; // "RCPB"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 5 * Integer.BYTES;
+    private static final int RECIPE_BYTES = 5 * Integer.BYTES;
+
+    private RecipeBinary() {
+    }
+
+    /** Whether the file name says it is a binary library. */
+    public static boolean isBinary(Path file) {
+        return file.getFileName().toString().endsWith(EXTENSION);
+    }
+
+    /**
+     * Map the file and add all of its recipes to the service.
+     *
+     * @return number of recipes added
+     * @throws IOException if the file cannot be read or is not a valid library
+     */
+    public static int load(Path file, RecipeService service) throws IOException {
+        Objects.requireNonNull(service, "service");
+        MappedByteBuffer buf;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (ch.size() > Integer.MAX_VALUE) throw new IOException("Library too large to map: " + file);
+            buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+        if (buf.capacity() < HEADER_BYTES || buf.getInt(0) != MAGIC) {
+            throw new IOException("Not a binary recipe library: " + file);
+        }
+        if (buf.getInt(4) != VERSION) {
+            throw new IOException("Unsupported binary library version " + buf.getInt(4) + ": " + file);
+        }
+        int recipeCount = buf.getInt(8);
+        int stringCount = buf.getInt(12);
+        int codeCount = buf.getInt(16);
+        long codesAt = HEADER_BYTES + (long) recipeCount * RECIPE_BYTES;
+        long offsetsAt = codesAt + (long) codeCount * Integer.BYTES;
+        long stringsAt = offsetsAt + (long) (stringCount + 1) * Integer.BYTES;
+        if (recipeCount < 0 || stringCount < 0 || codeCount < 0 || stringsAt > buf.capacity()
+                || stringsAt + buf.getInt((int) offsetsAt + stringCount * Integer.BYTES) != buf.capacity()) {
+            throw new IOException("Truncated or corrupt binary library: " + file);
+        }
+        StringTable strings = new StringTable(buf, (int) offsetsAt, (int) stringsAt, stringCount);
+
+        List<Recipe> loaded = new ArrayList<>(recipeCount);
+        for (int i = 0; i < recipeCount; i++) {
+            int at = HEADER_BYTES + i * RECIPE_BYTES;
+            int title = buf.getInt(at);
+            int description = buf.getInt(at + 4);
+            int firstCode = buf.getInt(at + 8);
+            int ingredients = buf.getInt(at + 12);
+            int tags = buf.getInt(at + 16);
+            if (firstCode < 0 || ingredients < 0 || tags < 0 || (long) firstCode + ingredients + tags > codeCount) {
+                throw new IOException("Corrupt recipe record " + i + ": " + file);
+            }
+            try {
+                Recipe.Builder b = new Recipe.Builder(strings.get(title))
+                        .description(strings.lazy(description));
+                int code = (int) codesAt + firstCode * Integer.BYTES;
+                for (int k = 0; k < ingredients; k++, code += Integer.BYTES) b.addIngredient(strings.get(buf.getInt(code)));
+                for (int k = 0; k < tags; k++, code += Integer.BYTES) b.addTag(strings.get(buf.getInt(code)));
+                loaded.add(b.build());
+            } catch (IllegalArgumentException | IllegalStateException | IndexOutOfBoundsException ex) {
+                throw new IOException("Corrupt recipe record " + i + ": " + file, ex);
+            }
+        }
+        loaded.forEach(service::add);
+        return recipeCount;
+    }
+
+    /**
+     * Write all recipes of the service.
+     *
+     * @return number of recipes written
+     */
+    public static int save(RecipeService service, Path file) throws IOException {
+        List<Recipe> snapshot = service.listAll();
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> table = new ArrayList<>();
+        int[] records = new int[snapshot.size() * 5];
+        int[] codes = new int[16];
+        int codeCount = 0;
+        for (int i = 0; i < snapshot.size(); i++) {
+            Recipe r = snapshot.get(i);
+            int needed = codeCount + r.getIngredients().size() + r.getTags().size();
+            if (needed > codes.length) codes = Arrays.copyOf(codes, Math.max(needed, codes.length * 2));
+            records[i * 5] = intern(r.getTitle(), ids, table);
+            records[i * 5 + 1] = intern(r.getDescription(), ids, table);
+            records[i * 5 + 2] = codeCount;
+            records[i * 5 + 3] = r.getIngredients().size();
+            records[i * 5 + 4] = r.getTags().size();
+            for (String s : r.getIngredients()) codes[codeCount++] = intern(s, ids, table);
+            for (String s : r.getTags()) codes[codeCount++] = intern(s, ids, table);
+        }
+
+        Path dir = file.toAbsolutePath().getParent();
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(snapshot.size());
+                out.writeInt(table.size());
+                out.writeInt(codeCount);
+                for (int v : records) out.writeInt(v);
+                for (int c = 0; c < codeCount; c++) out.writeInt(codes[c]);
+                List<byte[]> encoded = new ArrayList<>(table.size());
+                int offset = 0;
+                out.writeInt(0);
+                for (String s : table) {
+                    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                    encoded.add(bytes);
+                    offset = Math.addExact(offset, bytes.length);
+                    out.writeInt(offset);
+                }
+                for (byte[] bytes : encoded) out.write(bytes);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return snapshot.size();
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static int intern(String s, Map<String, Integer> ids, List<String> table) {
+        return ids.computeIfAbsent(s, k -> {
+            table.add(k);
+            return table.size() - 1;
+        });
+    }
+
+    // Strings of a mapped file; each one needed while loading is decoded once
+    private static final class StringTable {
+        private final ByteBuffer buf;
+        private final int offsetsAt;
+        private final int dataAt;
+        private final String[] decoded;
+
+        StringTable(ByteBuffer buf, int offsetsAt, int dataAt, int count) {
+            this.buf = buf;
+            this.offsetsAt = offsetsAt;
+            this.dataAt = dataAt;
+            this.decoded = new String[count];
+        }
+
+        String get(int id) {
+            String s = decoded[id];
+            if (s == null) decoded[id] = s = lazy(id).get();
+            return s;
+        }
+
+        // Captures only the mapping and the byte range, not the table
+        Supplier<String> lazy(int id) {
+            Objects.checkIndex(id, decoded.length);
+            ByteBuffer mapping = buf;
+            int start = dataAt + buf.getInt(offsetsAt + id * Integer.BYTES);
+            int end = dataAt + buf.getInt(offsetsAt + (id + 1) * Integer.BYTES);
+            if (start > end || end > buf.capacity()) throw new IndexOutOfBoundsException("String " + id);
+            return () -> read(mapping, start, end);
+        }
+
+        // Absolute bulk get: leaves the buffer position alone, so concurrent readers are safe
+        private static String read(ByteBuffer buf, int start, int end) {
+            byte[] bytes = new byte[end - start];
+            buf.get(start, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
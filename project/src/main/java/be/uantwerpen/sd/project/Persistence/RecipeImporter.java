@@ -0,0 +1,440 @@
+package be.uantwerpen.sd.project.Persistence;
+
+import be.uantwerpen.sd.project.Recipe.ContentHash;
+import be.uantwerpen.sd.project.Recipe.DescriptionStorage;
+import be.uantwerpen.sd.project.Recipe.Recipe;
+import be.uantwerpen.sd.project.Recipe.RecipeService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streaming bulk import of third-party recipe dumps (CSV or JSON lines) into a {@link RecipeService}.
+ *
+ * Formats:
+ * - CSV ({@code .csv}): RFC 4180 quoting, a header row naming the columns {@code title},
+ *   {@code ingredients} and optionally {@code description} and {@code tags} (any order, other
+ *   columns are ignored). List cells are separated by ';'.
+ * - JSON lines ({@code .jsonl}, {@code .ndjson}): one object per line with string fields
+ *   {@code title} and {@code description}, and {@code ingredients}/{@code tags} as string arrays.
+ *
+ * Pipeline:
+ * 1. a reader thread pulls the file through a {@link FileChannel} in 1 MB chunks and cuts them
+ *    at record boundaries (it only looks at bytes, so no decoding happens here);
+ * 2. a fixed pool of workers decodes and parses the chunks and runs {@link Recipe.Builder};
+ * 3. the calling thread takes the parsed chunks in file order, drops near-duplicates and adds
+ *    each chunk to the service as one batch ({@link RecipeService#addAll}).
+ * At most two chunks per worker are in flight: once that window is full the reader blocks,
+ * so memory stays bounded however large the file is (back-pressure).
+ *
+ * Near-duplicates are recipes with the same {@link #fingerprint}: title and ingredients
+ * compared case-, punctuation- and order-insensitively. Recipes already in the library count
+ * too, and the first occurrence in the file wins, so results do not depend on thread timing.
+ * Rows that do not make a valid recipe are counted as rejected and skipped.
+ */
+public final class RecipeImporter {
+
+    public enum Format {
+        CSV, JSON_LINES;
+
+        /** Format implied by the file name, or null if it is not an import format. */
+        public static Format of(Path file) {
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            if (name.endsWith(".csv")) return CSV;
+            if (name.endsWith(".jsonl") || name.endsWith(".ndjson")) return JSON_LINES;
+            return null;
+        }
+    }
+
+    /**
+     * Outcome of an import.
+     *
+     * @param firstError first rejected row with the reason, or null if none was rejected
+     */
+    public record Result(long rows, long imported, long duplicates, long rejected, String firstError, long nanos) {
+        public double rowsPerSecond() {
+            return nanos == 0 ? 0 : rows * 1e9 / nanos;
+        }
+
+        public String summary() {
+            return String.format(Locale.ROOT, "Imported %d recipe(s) from %d row(s): %d duplicate(s), %d rejected, %.0f rows/s",
+                    imported, rows, duplicates, rejected, rowsPerSecond());
+        }
+    }
+
+    private static final int CHUNK_BYTES = 1 << 20;
+
+    // One parsed chunk; END marks the end of the file
+    private record Parsed(List<Recipe> recipes, long[] fingerprints, long rows, long rejected, String firstError) {
+    }
+
+    private static final Parsed END = new Parsed(List.of(), new long[0], 0, 0, null);
+
+    // Column positions of a CSV header (-1: absent)
+    private record Columns(int title, int description, int ingredients, int tags) {
+    }
+
+    private final int workers;
+
+    public RecipeImporter() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public RecipeImporter(int workers) {
+        if (workers < 1) throw new IllegalArgumentException("At least one worker is required");
+        this.workers = workers;
+    }
+
+    /** Import a file whose format follows from its name ({@link Format#of}). */
+    public Result importFile(Path file, RecipeService service) throws IOException {
+        Format format = Format.of(file);
+        if (format == null) throw new IllegalArgumentException("Unknown import format (expected .csv, .jsonl or .ndjson): " + file);
+        return importFile(file, format, service);
+    }
+
+    public Result importFile(Path file, Format format, RecipeService service) throws IOException {
+        Objects.requireNonNull(format, "format");
+        Objects.requireNonNull(service, "service");
+        long start = System.nanoTime();
+        FingerprintSet seen = new FingerprintSet();
+        for (Recipe r : service.listAll()) seen.add(fingerprint(r));
+
+        AtomicInteger threadNo = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "recipe-import-" + threadNo.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        BlockingQueue<Future<Parsed>> inFlight = new ArrayBlockingQueue<>(2 * workers);
+        Thread reader = new Thread(() -> {
+            try {
+                read(file, format, service.descriptionStorage(), pool, inFlight);
+                inFlight.put(CompletableFuture.completedFuture(END));
+            } catch (InterruptedException ex) {
+                // import aborted by the consumer
+            } catch (IOException | RuntimeException ex) {
+                try {
+                    inFlight.put(CompletableFuture.failedFuture(ex));
+                } catch (InterruptedException aborted) {
+                    // the consumer is gone already
+                }
+            }
+        }, "recipe-import-reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        long rows = 0, imported = 0, duplicates = 0, rejected = 0;
+        String firstError = null;
+        try {
+            for (Parsed chunk = take(inFlight); chunk != END; chunk = take(inFlight)) {
+                List<Recipe> batch = new ArrayList<>(chunk.recipes().size());
+                for (int i = 0; i < chunk.recipes().size(); i++) {
+                    if (seen.add(chunk.fingerprints()[i])) batch.add(chunk.recipes().get(i));
+                    else duplicates++;
+                }
+                service.addAll(batch);
+                rows += chunk.rows();
+                imported += batch.size();
+                rejected += chunk.rejected();
+                if (firstError == null) firstError = chunk.firstError();
+            }
+        } finally {
+            reader.interrupt();
+            pool.shutdownNow();
+        }
+        return new Result(rows, imported, duplicates, rejected, firstError, System.nanoTime() - start);
+    }
+
+    private static Parsed take(BlockingQueue<Future<Parsed>> inFlight) throws IOException {
+        try {
+            return inFlight.take().get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof UncheckedIOException io) throw io.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Fingerprint for near-duplicate detection: a 64-bit hash of the normalized title and the
+     * sorted, distinct normalized ingredients. Normalizing lowercases and reduces every run of
+     * non-alphanumeric characters to a single space. Hashed like {@link Recipe#contentHash()}
+     * ({@link ContentHash}), only over looser fields: tags are ignored, so recipes with the
+     * same content always share a fingerprint and an import never keeps an exact duplicate.
+     */
+    public static long fingerprint(Recipe recipe) {
+        TreeSet<String> ingredients = new TreeSet<>();
+        for (String i : recipe.getIngredients()) ingredients.add(normalize(i));
+        ContentHash h = new ContentHash().add(normalize(recipe.getTitle()));
+        for (String i : ingredients) h.add(i);
+        return h.value();
+    }
+
+    private static String normalize(String s) {
+        StringBuilder out = new StringBuilder(s.length());
+        boolean gap = false;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (gap && !out.isEmpty()) out.append(' ');
+                out.append(Character.toLowerCase(c));
+                gap = false;
+            } else {
+                gap = true;
+            }
+        }
+        return out.toString();
+    }
+
+
+    // ===== Reader thread =====
+
+    private void read(Path file, Format format, DescriptionStorage storage, ExecutorService pool, BlockingQueue<Future<Parsed>> inFlight)
+            throws IOException, InterruptedException {
+        boolean csv = format == Format.CSV;
+        Columns columns = null;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocate(CHUNK_BYTES);
+            boolean quoted = false;
+            int scanned = 0;
+            long row = 1;
+            boolean eof = false;
+            while (!eof) {
+                eof = ch.read(buf) < 0;
+                byte[] bytes = buf.array();
+                int end = buf.position();
+                // Cut after the last newline outside quotes; '"' and '\n' never occur inside multi-byte UTF-8
+                int boundary = 0;
+                int records = 0;
+                for (int i = scanned; i < end; i++) {
+                    byte b = bytes[i];
+                    if (b == '"' && csv) {
+                        quoted = !quoted;
+                    } else if (b == '\n' && !quoted) {
+                        boundary = i + 1;
+                        records++;
+                    }
+                }
+                scanned = end;
+                if (eof && end > boundary) { // last record without a newline
+                    boundary = end;
+                    records++;
+                }
+                if (boundary == 0) {
+                    if (!buf.hasRemaining()) buf = grow(buf); // a single record larger than the buffer
+                    continue;
+                }
+                int from = 0;
+                if (csv && columns == null) {
+                    from = recordEnd(bytes, 0, boundary);
+                    columns = header(new String(bytes, 0, from, StandardCharsets.UTF_8), file);
+                    records--;
+                    row++;
+                }
+                byte[] chunk = Arrays.copyOfRange(bytes, from, boundary);
+                long firstRow = row;
+                Columns cols = columns;
+                inFlight.put(pool.submit(() -> csv ? parseCsv(chunk, firstRow, cols, storage) : parseJsonLines(chunk, firstRow, storage)));
+                row += records;
+                System.arraycopy(bytes, boundary, bytes, 0, end - boundary);
+                buf.position(end - boundary);
+                scanned -= boundary;
+            }
+        }
+        if (csv && columns == null) throw new IOException("Empty CSV file (no header row): " + file);
+    }
+
+    private static ByteBuffer grow(ByteBuffer buf) {
+        ByteBuffer bigger = ByteBuffer.allocate(Math.multiplyExact(buf.capacity(), 2));
+        buf.flip();
+        return bigger.put(buf);
+    }
+
+    // End (exclusive, after the newline) of the CSV record starting at 'from'
+    private static int recordEnd(byte[] bytes, int from, int to) {
+        boolean quoted = false;
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == '"') quoted = !quoted;
+            else if (bytes[i] == '\n' && !quoted) return i + 1;
+        }
+        return to;
+    }
+
+    private static Columns header(String line, Path file) throws IOException {
+        List<String> names = new ArrayList<>();
+        new CsvRecords(line).next(names);
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) index.putIfAbsent(names.get(i).strip().toLowerCase(Locale.ROOT), i);
+        if (!index.containsKey("title") || !index.containsKey("ingredients")) {
+            throw new IOException("CSV header must name the title and ingredients columns: " + file);
+        }
+        return new Columns(index.get("title"), index.getOrDefault("description", -1),
+                index.get("ingredients"), index.getOrDefault("tags", -1));
+    }
+
+    // ===== Workers =====
+
+    private static Parsed parseCsv(byte[] chunk, long firstRow, Columns columns, DescriptionStorage storage) {
+        ChunkBuilder out = new ChunkBuilder();
+        CsvRecords records = new CsvRecords(new String(chunk, StandardCharsets.UTF_8));
+        List<String> fields = new ArrayList<>();
+        for (long row = firstRow; records.next(fields); row++) {
+            if (fields.size() == 1 && fields.get(0).isBlank()) continue;
+            out.row(row, () -> new Recipe.Builder(cell(fields, columns.title()))
+                    .descriptionStorage(storage)
+                    .description(cell(fields, columns.description()))
+                    .ingredients(splitCell(cell(fields, columns.ingredients())))
+                    .tags(splitCell(cell(fields, columns.tags())))
+                    .build());
+        }
+        return out.build();
+    }
+
+    private static String cell(List<String> fields, int column) {
+        return column >= 0 && column < fields.size() ? fields.get(column) : null;
+    }
+
+    private static List<String> splitCell(String cell) {
+        return cell == null || cell.isBlank() ? List.of() : Arrays.asList(cell.split(";"));
+    }
+
+    private static Parsed parseJsonLines(byte[] chunk, long firstRow, DescriptionStorage storage) {
+        ChunkBuilder out = new ChunkBuilder();
+        String text = new String(chunk, StandardCharsets.UTF_8);
+        long row = firstRow;
+        for (int start = 0; start < text.length(); row++) {
+            int nl = text.indexOf('\n', start);
+            int end = nl < 0 ? text.length() : nl;
+            String line = text.substring(start, end);
+            start = end + 1;
+            if (line.isBlank()) continue;
+            out.row(row, () -> {
+                Map<String, Object> object = new JsonObjectParser(line).parse();
+                return new Recipe.Builder(JsonObjectParser.string(object.get("title")))
+                        .descriptionStorage(storage)
+                        .description(JsonObjectParser.string(object.get("description")))
+                        .ingredients(JsonObjectParser.strings(object.get("ingredients")))
+                        .tags(JsonObjectParser.strings(object.get("tags")))
+                        .build();
+            });
+        }
+        return out.build();
+    }
+
+    // Collects the recipes of one chunk; rows that fail are counted, the first failure is kept
+    private static final class ChunkBuilder {
+        private final List<Recipe> recipes = new ArrayList<>();
+        private long[] fingerprints = new long[256];
+        private long rows;
+        private long rejected;
+        private String firstError;
+
+        void row(long row, Callable<Recipe> build) {
+            rows++;
+            try {
+                Recipe r = build.call();
+                if (recipes.size() == fingerprints.length) fingerprints = Arrays.copyOf(fingerprints, fingerprints.length * 2);
+                fingerprints[recipes.size()] = fingerprint(r);
+                recipes.add(r);
+            } catch (Exception ex) {
+                rejected++;
+                if (firstError == null) firstError = "row " + row + ": " + ex.getMessage();
+            }
+        }
+
+        Parsed build() {
+            return new Parsed(recipes, Arrays.copyOf(fingerprints, recipes.size()), rows, rejected, firstError);
+        }
+    }
+
+    // RFC 4180 records of a chunk that ends on a record boundary; "\r\n" line ends are accepted
+    private static final class CsvRecords {
+        private final String text;
+        private int pos;
+
+        CsvRecords(String text) {
+            this.text = text;
+        }
+
+        boolean next(List<String> fields) {
+            fields.clear();
+            if (pos >= text.length()) return false;
+            StringBuilder field = new StringBuilder();
+            while (true) {
+                field.setLength(0);
+                if (pos < text.length() && text.charAt(pos) == '"') {
+                    pos++;
+                    while (pos < text.length()) {
+                        char c = text.charAt(pos++);
+                        if (c != '"') {
+                            field.append(c);
+                        } else if (pos < text.length() && text.charAt(pos) == '"') {
+                            field.append('"');
+                            pos++;
+                        } else {
+                            break;
+                        }
+                    }
+                }
+                while (pos < text.length() && text.charAt(pos) != ',' && text.charAt(pos) != '\n') {
+                    field.append(text.charAt(pos++));
+                }
+                boolean last = pos >= text.length() || text.charAt(pos) == '\n';
+                if (last && !field.isEmpty() && field.charAt(field.length() - 1) == '\r') field.setLength(field.length() - 1);
+                fields.add(field.toString());
+                pos++; // past the ',' or '\n'
+                if (last) return true;
+            }
+        }
+    }
+
+    // Open-addressing set of fingerprints; a boxed HashSet would cost several times the memory
+    private static final class FingerprintSet {
+        private long[] slots = new long[1 << 16];
+        private boolean hasZero;
+        private int size;
+
+        boolean add(long fp) {
+            if (fp == 0) {
+                boolean added = !hasZero;
+                hasZero = true;
+                return added;
+            }
+            if (size * 2 >= slots.length) rehash();
+            int mask = slots.length - 1;
+            for (int i = (int) fp & mask; ; i = (i + 1) & mask) {
+                if (slots[i] == fp) return false;
+                if (slots[i] == 0) {
+                    slots[i] = fp;
+                    size++;
+                    return true;
+                }
+            }
+        }
+
+        private void rehash() {
+            long[] old = slots;
+            slots = new long[old.length * 2];
+            int mask = slots.length - 1;
+            for (long fp : old) {
+                if (fp == 0) continue;
+                int i = (int) fp & mask;
+                while (slots[i] != 0) i = (i + 1) & mask;
+                slots[i] = fp;
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package be.uantwerpen.sd.project.Persistence;
+
+import be.uantwerpen.sd.project.Recipe.DescriptionStorage;
+import be.uantwerpen.sd.project.Recipe.Recipe;
+import be.uantwerpen.sd.project.Recipe.RecipeService;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.representer.Representer;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * YAML load/save of the recipe library.
+ *
+ * File format: a stream of YAML documents, one recipe per document:
+ * <pre>
+ * ---
+ * title: Pancakes
+ * description: Fluffy pancakes
+ * ingredients: [flour, milk, eggs]
+ * tags: [breakfast]
+ * </pre>
+ *
+ * Design notes:
+ * - Loading goes through {@link Yaml#loadAll(Reader)}, which parses lazily: only the
+ *   current document is materialized, and each recipe is handed to the service before
+ *   the next one is read. Memory is bounded by the library itself, not by the file.
+ * - Saving goes through {@link Yaml#dumpAll(Iterator, Writer)} over a snapshot, emitting one
+ *   small document at a time. Files are written to a temp file and moved into place, so a
+ *   crash never leaves a half-written library behind.
+ * - Only plain maps, lists and strings are constructed ({@link SafeConstructor}).
+ */
+public final class RecipeYaml {
+
+    private RecipeYaml() {
+    }
+
+    /**
+     * Read every recipe document from the reader and add it to the service.
+     *
+     * @return number of recipes added
+     * @throws IllegalArgumentException if a document is not a valid recipe
+     */
+    public static int load(Reader in, RecipeService service) {
+        Objects.requireNonNull(service, "service");
+        int count = 0;
+        try {
+            for (Object document : newYaml().loadAll(in)) {
+                if (document == null) continue; // empty document, e.g. a trailing "---"
+                service.add(toRecipe(document, count + 1, service.descriptionStorage()));
+                count++;
+            }
+        } catch (YAMLException ex) {
+            throw new IllegalArgumentException("Invalid recipe YAML after " + count + " recipe(s): " + ex.getMessage(), ex);
+        }
+        return count;
+    }
+
+    public static int load(Path file, RecipeService service) throws IOException {
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return load(in, service);
+        }
+    }
+
+    /**
+     * Write all recipes of the service, one document each.
+     *
+     * @return number of recipes written
+     */
+    public static int save(RecipeService service, Writer out) {
+        List<Recipe> snapshot = service.listAll();
+        Iterator<Map<String, Object>> documents = snapshot.stream().map(RecipeYaml::toDocument).iterator();
+        newYaml().dumpAll(documents, out);
+        return snapshot.size();
+    }
+
+    public static int save(RecipeService service, Path file) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            int count;
+            try (Writer out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                count = save(service, out);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return count;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static Yaml newYaml() {
+        LoaderOptions loader = new LoaderOptions();
+        loader.setAllowDuplicateKeys(false);
+        loader.setMaxAliasesForCollections(10);
+        DumperOptions dumper = new DumperOptions();
+        dumper.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+        dumper.setExplicitStart(true);
+        return new Yaml(new SafeConstructor(loader), new Representer(dumper), dumper, loader);
+    }
+
+    private static Map<String, Object> toDocument(Recipe r) {
+        Map<String, Object> doc = new LinkedHashMap<>();
+        doc.put("title", r.getTitle());
+        doc.put("description", r.getDescription());
+        doc.put("ingredients", new ArrayList<>(r.getIngredients()));
+        doc.put("tags", new ArrayList<>(r.getTags()));
+        return doc;
+    }
+
+    private static Recipe toRecipe(Object document, int index, DescriptionStorage storage) {
+        if (!(document instanceof Map<?, ?> map)) {
+            throw new IllegalArgumentException("Recipe document " + index + " is not a mapping");
+        }
+        try {
+            return new Recipe.Builder(string(map.get("title")))
+                    .descriptionStorage(storage)
+                    .description(string(map.get("description")))
+                    .ingredients(strings(map.get("ingredients")))
+                    .tags(strings(map.get("tags")))
+                    .build();
+        } catch (IllegalArgumentException | IllegalStateException ex) {
+            throw new IllegalArgumentException("Recipe document " + index + ": " + ex.getMessage(), ex);
+        }
+    }
+
+    private static String string(Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    private static List<String> strings(Object value) {
+        if (value == null) return List.of();
+        if (!(value instanceof List<?> list)) return List.of(value.toString());
+        List<String> result = new ArrayList<>(list.size());
+        for (Object o : list) {
+            if (o != null) result.add(o.toString());
+        }
+        return result;
+    }
+}
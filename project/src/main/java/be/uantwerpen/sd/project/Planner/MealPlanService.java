@@ -1,5 +1,6 @@
 package be.uantwerpen.sd.project.Planner;
 
+import be.uantwerpen.sd.project.GroceryList.GroceryList;
 import be.uantwerpen.sd.project.Recipe.Recipe;
 
 import java.time.DayOfWeek;
@@ -12,12 +13,33 @@ import java.util.*;
  * - Exposes a small API to read/write the weekly plan used by the UI.
  * - Guards business rules (e.g., recipe meal-tag must match the selected slot).
  * - Delegates observer notifications to the underlying model.
+ * - Owns the grocery list fed by its plan: a fresh scoped list by default, a given
+ *   one, or the shared singleton via {@link #withSharedGroceryList()}.
  */
 public class MealPlanService {
     private final WeekPlan weekPlan = new WeekPlan();
+    private final GroceryList groceryList;
+
+    /** Service whose plan feeds a grocery list of its own. */
+    public MealPlanService() {
+        this(GroceryList.newInstance());
+    }
+
+    /** Service whose plan feeds the given (typically scoped) grocery list. */
+    public MealPlanService(GroceryList groceryList) {
+        this.groceryList = Objects.requireNonNull(groceryList, "groceryList");
+        weekPlan.addObserver(groceryList);
+    }
+
+    /** Service whose plan feeds the shared {@link GroceryList#getInstance()} list. */
+    public static MealPlanService withSharedGroceryList() {
+        return new MealPlanService(GroceryList.getInstance());
+    }
 
     public WeekPlan getWeekPlan() { return weekPlan; }
 
+    public GroceryList getGroceryList() { return groceryList; }
+
     public Set<MealSlot> getActiveSlots() { return weekPlan.getActiveSlots(); }
 
     public void setActiveSlots(Set<MealSlot> slots) {
@@ -46,35 +68,63 @@ public class MealPlanService {
     }
 
     /**
-     * Guard that enforces slot compatibility based on meal-type tags.
+     * Whether {@link #setRecipe} would accept the recipe in the given slot.
      * If the recipe contains any of the tags: breakfast, lunch, dinner, snack(s),
      * it can only be placed in the matching slot. Recipes without these tags
-     * can be planned in any slot.
+     * can be planned in any slot. Static, so views can filter without a service instance.
+     */
+    public static boolean isCompatible(MealSlot slot, Recipe recipe) {
+        return requiredSlot(slot, recipe) == null;
+    }
+
+    /**
+     * Guard that enforces {@link #isCompatible}.
      *
      * Throws IllegalArgumentException if the placement is invalid.
      */
     private void enforceSlotTagCompatibility(MealSlot slot, Recipe recipe) {
+        MealSlot required = requiredSlot(slot, recipe);
+        if (required == null) return;
+        String tag = required == MealSlot.SNACKS ? "snack" : required.name().toLowerCase(Locale.ROOT);
+        String slotName = required.name().charAt(0) + required.name().substring(1).toLowerCase(Locale.ROOT);
+        throw new IllegalArgumentException("Recipe tagged for " + tag + " can only be planned in the " + slotName + " slot");
+    }
+
+    // Slot demanded by the first meal-type tag that rules out the given slot; null if it fits
+    private static MealSlot requiredSlot(MealSlot slot, Recipe recipe) {
         Set<String> tags = recipe.getTags();
-        if (tags == null || tags.isEmpty()) return; // no restriction
-        // normalize
-        boolean hasBreakfast = tags.contains("breakfast");
-        boolean hasLunch = tags.contains("lunch");
-        boolean hasDinner = tags.contains("dinner");
-        boolean hasSnack = tags.contains("snack") || tags.contains("snacks");
-
-        // If any of the meal-type tags are present, enforce matching slot for each present tag
-        if (hasBreakfast && slot != MealSlot.BREAKFAST) {
-            throw new IllegalArgumentException("Recipe tagged for breakfast can only be planned in the Breakfast slot");
-        }
-        if (hasLunch && slot != MealSlot.LUNCH) {
-            throw new IllegalArgumentException("Recipe tagged for lunch can only be planned in the Lunch slot");
-        }
-        if (hasDinner && slot != MealSlot.DINNER) {
-            throw new IllegalArgumentException("Recipe tagged for dinner can only be planned in the Dinner slot");
-        }
-        if (hasSnack && slot != MealSlot.SNACKS) {
-            throw new IllegalArgumentException("Recipe tagged for snack can only be planned in the Snacks slot");
+        if (tags == null || tags.isEmpty()) return null; // no restriction
+        if (tags.contains("breakfast") && slot != MealSlot.BREAKFAST) return MealSlot.BREAKFAST;
+        if (tags.contains("lunch") && slot != MealSlot.LUNCH) return MealSlot.LUNCH;
+        if (tags.contains("dinner") && slot != MealSlot.DINNER) return MealSlot.DINNER;
+        if ((tags.contains("snack") || tags.contains("snacks")) && slot != MealSlot.SNACKS) return MealSlot.SNACKS;
+        return null;
+    }
+
+    /**
+     * Fill every empty active slot of the week with a compatible recipe from the candidates.
+     * Candidates are handed out round-robin per slot, in the given order, so the result is
+     * deterministic. Slots that are already planned are left alone.
+     *
+     * @return number of slots that were filled
+     */
+    public int autoPlan(List<Recipe> candidates) {
+        Objects.requireNonNull(candidates, "candidates");
+        int filled = 0;
+        for (MealSlot slot : weekPlan.getActiveSlots()) {
+            List<Recipe> compatible = new ArrayList<>();
+            for (Recipe r : candidates) {
+                if (r != null && isCompatible(slot, r)) compatible.add(r);
+            }
+            if (compatible.isEmpty()) continue;
+            int next = 0;
+            for (DayOfWeek day : DayOfWeek.values()) {
+                if (weekPlan.getRecipe(day, slot).isPresent()) continue;
+                weekPlan.setRecipe(day, slot, compatible.get(next++ % compatible.size()));
+                filled++;
+            }
         }
+        return filled;
     }
 
     public void clear(DayOfWeek day, MealSlot slot) {
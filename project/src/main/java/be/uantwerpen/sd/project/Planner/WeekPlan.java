@@ -12,6 +12,9 @@ import java.util.*;
  * Observer semantics:
  * - Observers receive a full immutable snapshot on every change (active slots, set/clear recipe).
  * - Adding an observer pushes an initial snapshot so UIs start in sync.
+ *
+ * Change tracking: cells set or cleared and active slot changes are collected until
+ * {@link #takeChanges()}, so an incremental saver only writes the cells that changed.
  */
 public class WeekPlan implements MealPlanSubject {
     private final EnumMap<DayOfWeek, DailyPlan> days = new EnumMap<>(DayOfWeek.class);
@@ -19,6 +22,26 @@ public class WeekPlan implements MealPlanSubject {
 
     private final List<MealPlanObserver> observers = new ArrayList<>();
 
+    // Changes since the last takeChanges()
+    private final EnumMap<DayOfWeek, EnumSet<MealSlot>> changedCells = new EnumMap<>(DayOfWeek.class);
+    private boolean activeSlotsChanged;
+
+    /** Current content of a changed cell; a null recipe means the cell is empty. */
+    public record CellChange(DayOfWeek day, MealSlot slot, Recipe recipe) {
+    }
+
+    /**
+     * Plan changes since the previous {@link #takeChanges()}.
+     *
+     * @param activeSlots the active slots if they changed, else null
+     * @param cells       changed cells with their current content, in day/slot order
+     */
+    public record Changes(Set<MealSlot> activeSlots, List<CellChange> cells) {
+        public boolean isEmpty() {
+            return activeSlots == null && cells.isEmpty();
+        }
+    }
+
     public WeekPlan() {
         for (DayOfWeek d : DayOfWeek.values()) {
             days.put(d, new DailyPlan());
@@ -27,7 +50,7 @@ public class WeekPlan implements MealPlanSubject {
 
     @Override
     public void addObserver(MealPlanObserver observer) {
-        if (observer == null) return;
+        if (observer == null || observers.contains(observer)) return;
         observers.add(observer);
         // Immediately send a snapshot so observers start in sync
         observer.onWeekPlanChanged(snapshot());
@@ -54,6 +77,7 @@ public class WeekPlan implements MealPlanSubject {
             throw new IllegalArgumentException("At least one meal slot must be active");
         }
         this.activeSlots = EnumSet.copyOf(slots);
+        activeSlotsChanged = true;
         notifyObservers();
     }
 
@@ -67,11 +91,13 @@ public class WeekPlan implements MealPlanSubject {
 
     public void setRecipe(DayOfWeek day, MealSlot slot, Recipe recipe) {
         getDay(day).set(slot, recipe);
+        markChanged(day, slot);
         notifyObservers();
     }
 
     public void clear(DayOfWeek day, MealSlot slot) {
         getDay(day).clear(slot);
+        markChanged(day, slot);
         notifyObservers();
     }
 
@@ -89,6 +115,7 @@ public class WeekPlan implements MealPlanSubject {
                 Optional<Recipe> maybe = dp.get(slot);
                 if (maybe.isPresent() && maybe.get() == oldRecipe) {
                     dp.set(slot, newRecipe); // direct set, no notify here
+                    markChanged(d, slot);
                     changed = true;
                 }
             }
@@ -96,6 +123,33 @@ public class WeekPlan implements MealPlanSubject {
         if (changed) notifyObservers();
     }
 
+    /** Hand out the changes collected since the previous call, and start collecting anew. */
+    public Changes takeChanges() {
+        List<CellChange> cells = new ArrayList<>();
+        for (Map.Entry<DayOfWeek, EnumSet<MealSlot>> e : changedCells.entrySet()) {
+            for (MealSlot slot : e.getValue()) {
+                cells.add(new CellChange(e.getKey(), slot, getRecipe(e.getKey(), slot).orElse(null)));
+            }
+        }
+        Changes changes = new Changes(activeSlotsChanged ? getActiveSlots() : null, Collections.unmodifiableList(cells));
+        changedCells.clear();
+        activeSlotsChanged = false;
+        return changes;
+    }
+
+    /**
+     * Give back changes handed out by {@link #takeChanges()} that could not be saved, so the
+     * next call reports them again (with the cells' content at that time).
+     */
+    public void restoreChanges(Changes lost) {
+        if (lost.activeSlots() != null) activeSlotsChanged = true;
+        for (CellChange c : lost.cells()) markChanged(c.day(), c.slot());
+    }
+
+    private void markChanged(DayOfWeek day, MealSlot slot) {
+        changedCells.computeIfAbsent(day, d -> EnumSet.noneOf(MealSlot.class)).add(slot);
+    }
+
     public Map<DayOfWeek, Map<MealSlot, Recipe>> snapshot() {
         Map<DayOfWeek, Map<MealSlot, Recipe>> snap = new EnumMap<>(DayOfWeek.class);
         for (Map.Entry<DayOfWeek, DailyPlan> e : days.entrySet()) {
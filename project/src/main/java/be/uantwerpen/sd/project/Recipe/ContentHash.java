@@ -0,0 +1,32 @@
+package be.uantwerpen.sd.project.Recipe;
+
+/**
+ * 64-bit hash over a sequence of (already normalized) string fields, used for
+ * {@link Recipe#contentHash()} and the importer's near-duplicate fingerprint, so both hash
+ * the same way.
+ *
+ * FNV-1a over the chars with a separator after each field (so ("ab", "c") and ("a", "bc")
+ * differ), then a 64-bit finalizer that spreads similar inputs over all bits.
+ */
+public final class ContentHash {
+    private long h = 0xcbf29ce484222325L;
+
+    public ContentHash add(String field) {
+        for (int i = 0; i < field.length(); i++) {
+            h ^= field.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= 0x1f; // unit separator
+        h *= 0x100000001b3L;
+        return this;
+    }
+
+    public long value() {
+        long x = h;
+        x ^= x >>> 33;
+        x *= 0xff51afd7ed558ccdL;
+        x ^= x >>> 33;
+        x *= 0xc4ceb9fe1a85ec53L;
+        return x ^ (x >>> 33);
+    }
+}
@@ -0,0 +1,21 @@
+package be.uantwerpen.sd.project.Recipe;
+
+import java.util.function.Supplier;
+
+/**
+ * Where {@link Recipe.Builder#description(String)} keeps description text. The returned
+ * supplier is what the recipe holds; it must be thread-safe and return the stored text on
+ * every call.
+ *
+ * The default, {@link #ON_HEAP}, simply keeps the string. Pass another one to
+ * {@link Recipe.Builder#descriptionStorage} or to a {@link RecipeService} (which hands it to
+ * every recipe it or a loader builds for it) to move prose out of the heap.
+ */
+@FunctionalInterface
+public interface DescriptionStorage {
+
+    DescriptionStorage ON_HEAP = text -> () -> text;
+
+    /** Store a (normalized, non-null) description and return a handle that reads it back. */
+    Supplier<String> store(String description);
+}
@@ -0,0 +1,160 @@
+package be.uantwerpen.sd.project.Recipe;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Turns free-text ingredient names into canonical keys, so that "Milk", "milk " and
+ * "milks" end up on the same grocery line.
+ *
+ * Pipeline (in order):
+ * 1. tidy: strip and collapse inner whitespace (this is also the display form);
+ * 2. case folding to lowercase;
+ * 3. singularize the last word ("cherry tomatoes" becomes "cherry tomato");
+ * 4. synonym lookup on the result ("scallion" can map to "green onion").
+ *
+ * Results are memoized in a bounded cache, so a repeated ingredient costs a single
+ * hash lookup. Changing the synonym table clears the cache.
+ *
+ * Threading: the synonym table and its cache are published together as one immutable
+ * {@code Table} through a volatile field. Lookups never lock: they read the current table
+ * and hit a {@link ConcurrentHashMap}, so the shared default instance does not serialize
+ * the grocery lists using it. Synonym changes synchronize among themselves and swap in a
+ * new table with an empty cache. When the cache is full, an arbitrary entry is evicted
+ * (not the least recently used one; a miss only costs one fold).
+ */
+public class IngredientCanonicalizer {
+
+    private static final int DEFAULT_CACHE_SIZE = 4096;
+
+    private static final IngredientCanonicalizer DEFAULT = new IngredientCanonicalizer(DEFAULT_CACHE_SIZE);
+
+    // Plurals the suffix rules below would get wrong
+    private static final Map<String, String> IRREGULAR = Map.of(
+            "leaves", "leaf",
+            "loaves", "loaf",
+            "halves", "half",
+            "knives", "knife",
+            "children", "child"
+    );
+
+    // Singulars ending in "ie", "che" or "oe": their plural only drops the "s", where the
+    // "ies"/"ches"/"oes" rules would cut off more ("brownies" is not "browny")
+    private static final Set<String> KEEP_E = Set.of(
+            "brownie", "cookie", "pie", "smoothie", "veggie", "hoagie", "calorie", "pastie", "sweetie",
+            "quiche", "brioche", "ganache", "cloche", "niche",
+            "shoe", "sloe", "oboe"
+    );
+
+    // Words that end in "s" but are not plurals
+    private static final Set<String> INVARIANT = Set.of(
+            "molasses", "hummus", "couscous", "asparagus", "swiss", "grits", "series", "species"
+    );
+
+    /** Synonyms and the keys memoized under them; replaced as a whole when synonyms change. */
+    private record Table(Map<String, String> synonyms, ConcurrentHashMap<String, String> cache) {
+    }
+
+    private final int cacheSize;
+    private volatile Table table;
+
+    public IngredientCanonicalizer(int cacheSize) {
+        if (cacheSize < 1) {
+            throw new IllegalArgumentException("Cache size must be at least 1");
+        }
+        this.cacheSize = cacheSize;
+        this.table = new Table(Map.of(), new ConcurrentHashMap<>());
+    }
+
+    /** Shared instance used by recipes and grocery lists unless configured otherwise. */
+    public static IngredientCanonicalizer getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Register a synonym: every name that canonicalizes to {@code alias} will
+     * canonicalize to the canonical form of {@code canonical} instead.
+     */
+    public synchronized void addSynonym(String alias, String canonical) {
+        String from = fold(alias);
+        String to = fold(canonical);
+        if (from.isEmpty() || to.isEmpty()) {
+            throw new IllegalArgumentException("Synonym alias and target must not be blank");
+        }
+        Map<String, String> synonyms = new HashMap<>(table.synonyms());
+        synonyms.put(from, synonyms.getOrDefault(to, to));
+        table = new Table(Map.copyOf(synonyms), new ConcurrentHashMap<>());
+    }
+
+    public synchronized void removeSynonym(String alias) {
+        Map<String, String> synonyms = new HashMap<>(table.synonyms());
+        synonyms.remove(fold(alias));
+        table = new Table(Map.copyOf(synonyms), new ConcurrentHashMap<>());
+    }
+
+    /** Canonical grouping key for the given ingredient name ("" for null/blank input). */
+    public String canonicalize(String raw) {
+        if (raw == null) return "";
+        Table t = table;
+        String cached = t.cache().get(raw);
+        if (cached != null) return cached;
+        String folded = fold(raw);
+        String key = t.synonyms().getOrDefault(folded, folded);
+        if (t.cache().putIfAbsent(raw, key) == null) evictOverflow(t.cache());
+        return key;
+    }
+
+    // Racing misses may overshoot the bound by a few entries until the next one trims it
+    private void evictOverflow(ConcurrentHashMap<String, String> cache) {
+        Iterator<String> victims = cache.keySet().iterator();
+        while (cache.size() > cacheSize && victims.hasNext()) {
+            victims.next();
+            victims.remove();
+        }
+    }
+
+    /** Number of memoized names (bounded by the configured cache size). */
+    public int cachedCount() {
+        return table.cache().size();
+    }
+
+    /** Display form of an ingredient: stripped, with inner whitespace collapsed to single spaces. */
+    public static String tidy(String raw) {
+        if (raw == null) return "";
+        String t = raw.strip();
+        for (int i = 0; i < t.length(); i++) {
+            char c = t.charAt(i);
+            if (Character.isWhitespace(c) && (c != ' ' || Character.isWhitespace(t.charAt(i + 1)))) {
+                return String.join(" ", t.split("\\s+"));
+            }
+        }
+        return t;
+    }
+
+    // Steps 1-3: tidy, lowercase, singularize the last word
+    private static String fold(String raw) {
+        String t = tidy(raw).toLowerCase(Locale.ROOT);
+        if (t.isEmpty()) return t;
+        int space = t.lastIndexOf(' ');
+        String last = t.substring(space + 1);
+        String singular = singularize(last);
+        return singular.equals(last) ? t : t.substring(0, space + 1) + singular;
+    }
+
+    static String singularize(String word) {
+        String irregular = IRREGULAR.get(word);
+        if (irregular != null) return irregular;
+        if (word.length() <= 3 || INVARIANT.contains(word)) return word;
+        if (word.endsWith("es") && KEEP_E.contains(word.substring(0, word.length() - 1))) {
+            return word.substring(0, word.length() - 1);
+        }
+        if (word.endsWith("ies")) return word.substring(0, word.length() - 3) + "y";
+        if (word.endsWith("oes") || word.endsWith("ches") || word.endsWith("shes")
+                || word.endsWith("sses") || word.endsWith("xes") || word.endsWith("zzes")) {
+            return word.substring(0, word.length() - 2);
+        }
+        if (word.endsWith("ss") || word.endsWith("us") || word.endsWith("is")) return word;
+        if (word.endsWith("s")) return word.substring(0, word.length() - 1);
+        return word;
+    }
+}
@@ -1,6 +1,7 @@
 package be.uantwerpen.sd.project.Recipe;
 
 import java.util.*;
+import java.util.function.Supplier;
 
 /**
  * Domain object representing a cooking recipe.
@@ -9,12 +10,25 @@ import java.util.*;
  * - Immutable: all fields are final and there are no setters. Use the nested {@link Builder} to create instances.
  * - Defensive copies + unmodifiable views are used for collections to avoid accidental external mutation.
  * - Tags are normalized to lowercase to make filtering and slot-compatibility checks case-insensitive.
+ * - Ingredients are tidied by {@link IngredientCanonicalizer#tidy(String)}: stripped, with runs of inner
+ *   whitespace collapsed to one space; casing and plurals are kept for display. Only that first step
+ *   of the canonicalizer runs here. The full canonical key (folded, singular, synonyms) is what
+ *   consumers such as the grocery list group by.
+ * - The description may be lazy ({@link Builder#description(Supplier)}): it is then read each time it
+ *   is asked for, so large libraries can leave descriptions on disk until one is shown. Plain text
+ *   descriptions go through the builder's {@link DescriptionStorage} (on the heap unless one is
+ *   passed in, usually the owning {@link RecipeService}'s), which may keep them off-heap.
+ * - Content address: {@link #contentHash()} identifies what a recipe is (title, ingredients, tags),
+ *   independent of casing and order, so duplicates can be found with one hash lookup.
  */
 public class Recipe {
     private final String title;
-    private final String description;
+    private final Supplier<String> description;
     private final List<String> ingredients;
     private final Set<String> tags;
+    private final long contentHash;
+
+    private static final Supplier<String> NO_DESCRIPTION = () -> "";
 
     // Private constructor: only called by the Builder to guarantee invariants
     private Recipe(Builder builder) {
@@ -22,11 +36,14 @@ public class Recipe {
         this.description = builder.description;
         this.ingredients = Collections.unmodifiableList(new ArrayList<>(builder.ingredients));
         this.tags = Collections.unmodifiableSet(new LinkedHashSet<>(builder.tags));
+        this.contentHash = hashContent();
     }
 
     public static class Builder {
         private String title;
-        private String description = "";
+        private Supplier<String> description = NO_DESCRIPTION;
+        private String descriptionText; // plain text, handed to the storage on build()
+        private DescriptionStorage descriptionStorage = DescriptionStorage.ON_HEAP;
         private List<String> ingredients = new ArrayList<>();
         private Set<String> tags = new LinkedHashSet<>();
 
@@ -38,13 +55,35 @@ public class Recipe {
         }
 
         public Builder description(String description) {
-            this.description = description == null ? "" : description.strip();
+            String text = normalizeDescription(description);
+            this.descriptionText = text.isEmpty() ? null : text;
+            this.description = NO_DESCRIPTION;
+            return this;
+        }
+
+        /**
+         * Description that is only produced when {@link Recipe#getDescription()} is called.
+         * The supplier must be thread-safe and return the same text every time.
+         */
+        public Builder description(Supplier<String> source) {
+            Objects.requireNonNull(source, "source");
+            this.descriptionText = null;
+            this.description = () -> normalizeDescription(source.get());
+            return this;
+        }
+
+        /**
+         * Where a plain text {@link #description(String)} is kept; the recipe reads it back from
+         * there, so the storage must stay open as long as the recipe is used. Default: on the heap.
+         */
+        public Builder descriptionStorage(DescriptionStorage storage) {
+            this.descriptionStorage = Objects.requireNonNull(storage, "storage");
             return this;
         }
 
         public Builder addIngredient(String ingredient) {
             if (ingredient != null && !ingredient.isBlank()) {
-                this.ingredients.add(ingredient.strip());
+                this.ingredients.add(IngredientCanonicalizer.tidy(ingredient));
             }
             return this;
         }
@@ -75,16 +114,57 @@ public class Recipe {
             if (ingredients.isEmpty()) {
                 throw new IllegalStateException("Recipe must have at least one ingredient");
             }
+            if (descriptionText != null) {
+                description = descriptionStorage.store(descriptionText);
+                descriptionText = null;
+            }
             return new Recipe(this);
         }
     }
 
     // Alleen GETTERS, geen SETTERS (Immutability)
     public String getTitle() { return title; }
-    public String getDescription() { return description; }
+    public String getDescription() { return description.get(); }
     public List<String> getIngredients() { return ingredients; }
     public Set<String> getTags() { return tags; }
 
+    /**
+     * 64-bit hash of the content: the title, the set of ingredients and the set of tags, all
+     * compared case-insensitively. The description is not part of it. Recipes with the same
+     * content always have the same hash; {@link #hasSameContent} tells the (very rare) hash
+     * collisions apart.
+     */
+    public long contentHash() { return contentHash; }
+
+    /** Whether the other recipe has the same title, ingredients and tags (see {@link #contentHash()}). */
+    public boolean hasSameContent(Recipe other) {
+        if (other == this) return true;
+        return other != null && other.contentHash == contentHash
+                && other.title.equalsIgnoreCase(title)
+                && other.contentIngredients().equals(contentIngredients())
+                && other.tags.equals(tags);
+    }
+
+    // Ingredients as compared for content: lowercase, distinct and sorted
+    private SortedSet<String> contentIngredients() {
+        SortedSet<String> set = new TreeSet<>();
+        for (String i : ingredients) set.add(i.toLowerCase(Locale.ROOT));
+        return set;
+    }
+
+    // Title, ingredients, an empty field between the lists, then tags
+    private long hashContent() {
+        ContentHash h = new ContentHash().add(title.toLowerCase(Locale.ROOT));
+        for (String i : contentIngredients()) h.add(i);
+        h.add("");
+        for (String t : new TreeSet<>(tags)) h.add(t);
+        return h.value();
+    }
+
+    private static String normalizeDescription(String description) {
+        return description == null ? "" : description.strip();
+    }
+
     @Override
     public String toString() {
         return "Recipe{" +
@@ -1,6 +1,7 @@
 package be.uantwerpen.sd.project.Recipe;
 
 import java.util.*;
+import java.util.concurrent.CancellationException;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -11,51 +12,235 @@ import java.util.stream.Collectors;
  * - Uses the Recipe.Builder to enforce immutability when creating new instances.
  * - Update operations create a new Recipe and replace the old reference in the list.
  * - Provides simple searching and sorting using the Strategy pattern.
+ * - Thread-safe: all methods synchronize on the service, so searches may run on background threads.
+ * - Keeps a live tag facet (tag -> number of recipes carrying it), updated on every
+ *   add/replace/remove, so tag filters never have to scan the library.
+ * - Change tracking for incremental saves: every library entry has a stable key that
+ *   survives replace (a new Recipe instance) and sorting. Entries added or replaced,
+ *   keys removed and order changes are collected until {@link #takeChanges()}, so a
+ *   saver only writes what changed. A Recipe instance can be in the library only once.
+ * - Content index: {@link Recipe#contentHash()} -> recipe, maintained on every change, so a
+ *   recipe with the same title, ingredients and tags is found with one hash lookup
+ *   ({@link #findDuplicate}). {@link #intern} and the optional collapse mode
+ *   ({@link #setCollapseDuplicates}) use it to keep one shared instance per content.
+ * - Owns the {@link DescriptionStorage} of its library: recipes it creates use it, and loaders
+ *   building recipes for it ask {@link #descriptionStorage()}. The storage has to outlive them.
  */
 public class RecipeService {
     private final List<Recipe> all = new ArrayList<>();
+    // Tag multiset, sorted by tag
+    private final SortedMap<String, Integer> tagCounts = new TreeMap<>();
+
+    // Entry keys (both directions) and the changes since the last takeChanges()
+    private final Map<Recipe, Long> keys = new IdentityHashMap<>();
+    private final Map<Long, Recipe> byKey = new HashMap<>();
+    private long nextKey = 1;
+    private final Map<Long, Recipe> changed = new LinkedHashMap<>();
+    private final Set<Long> removed = new LinkedHashSet<>();
+    private boolean orderChanged;
+    private long version;
+
+    // Content hash -> first library recipe with that hash; further entries with the same hash
+    // (duplicates kept on purpose, or a hash collision) are only counted
+    private final Map<Long, Recipe> byContent = new HashMap<>();
+    private final Map<Long, Integer> sameHashCount = new HashMap<>();
+    private boolean collapseDuplicates;
+    private long collapsed;
+    private final DescriptionStorage descriptionStorage;
+
+    /** Service that keeps descriptions on the heap. */
+    public RecipeService() {
+        this(DescriptionStorage.ON_HEAP);
+    }
+
+    public RecipeService(DescriptionStorage descriptionStorage) {
+        this.descriptionStorage = Objects.requireNonNull(descriptionStorage, "descriptionStorage");
+    }
+
+    /**
+     * Library changes since the previous {@link #takeChanges()}.
+     *
+     * @param upserted entries added or replaced, by key, in the order they were first changed;
+     *                 keys that are new to the reader belong at the end of the library
+     * @param removed  keys of removed entries
+     * @param order    all keys in library order if the order changed otherwise than by
+     *                 appending (sorting), else null
+     */
+    public record Changes(Map<Long, Recipe> upserted, Set<Long> removed, List<Long> order) {
+        public boolean isEmpty() {
+            return upserted.isEmpty() && removed.isEmpty() && order == null;
+        }
+    }
+
+    /** Storage for the descriptions of recipes built for this library. */
+    public DescriptionStorage descriptionStorage() {
+        return descriptionStorage;
+    }
 
     // CREATE: Gebruikt nu de Builder
-    public Recipe create(String title, String description, List<String> ingredients, Collection<String> tags) {
+    public synchronized Recipe create(String title, String description, List<String> ingredients, Collection<String> tags) {
         Recipe r = new Recipe.Builder(title)
+                .descriptionStorage(descriptionStorage)
                 .description(description)
                 .ingredients(ingredients)
                 .tags(tags)
                 .build();
-        all.add(r);
+        if (collapseDuplicates) return intern(r);
+        append(r, nextKey++);
         return r;
     }
 
-    public void add(Recipe recipe) {
+    /**
+     * In collapse mode ({@link #setCollapseDuplicates}) a recipe whose content is already in
+     * the library is skipped instead.
+     *
+     * @throws IllegalArgumentException if this instance is already in the library
+     */
+    public synchronized void add(Recipe recipe) {
         Objects.requireNonNull(recipe, "recipe");
-        all.add(recipe);
+        if (keys.containsKey(recipe)) throw new IllegalArgumentException("Recipe is already in the library: " + recipe);
+        if (collapseDuplicates) {
+            intern(recipe);
+            return;
+        }
+        append(recipe, nextKey++);
+    }
+
+    /**
+     * Append a batch of recipes under a single lock acquisition (bulk imports).
+     *
+     * @throws IllegalArgumentException if one of them is already in the library; the
+     *                                  recipes before it have been added
+     */
+    public synchronized void addAll(Collection<Recipe> batch) {
+        for (Recipe recipe : batch) add(recipe);
     }
 
     // READ
-    public List<Recipe> listAll() {
+    public synchronized List<Recipe> listAll() {
         return new ArrayList<>(all);
     }
 
-    public List<Recipe> searchByTitle(String query) {
+    /** Recipe at the given position of the library order. */
+    public synchronized Recipe get(int index) {
+        return all.get(index);
+    }
+
+    /** Stable key of this exact recipe instance, or -1 if it is not in the library. */
+    public synchronized long keyOf(Recipe recipe) {
+        return keys.getOrDefault(recipe, -1L);
+    }
+
+    /** Recipe of the entry with this key, or null. */
+    public synchronized Recipe byKey(long key) {
+        return byKey.get(key);
+    }
+
+    /**
+     * Library recipe with the same content (title, ingredients, tags; see
+     * {@link Recipe#hasSameContent}) as the given one, other than that instance itself; or null.
+     * One hash lookup, whatever the size of the library.
+     */
+    public synchronized Recipe findDuplicate(Recipe recipe) {
+        Recipe existing = byContent.get(recipe.contentHash());
+        return existing != null && existing != recipe && existing.hasSameContent(recipe) ? existing : null;
+    }
+
+    /**
+     * Content-addressed add: the library's recipe with the same content if there is one,
+     * otherwise the given recipe, which is added.
+     */
+    public synchronized Recipe intern(Recipe recipe) {
+        Objects.requireNonNull(recipe, "recipe");
+        if (keys.containsKey(recipe)) return recipe;
+        Recipe existing = findDuplicate(recipe);
+        if (existing != null) {
+            collapsed++;
+            return existing;
+        }
+        append(recipe, nextKey++);
+        return recipe;
+    }
+
+    /**
+     * Collapse mode: when on, {@link #create} returns the library's instance for content that
+     * is already there, and {@link #add}/{@link #addAll} skip such recipes, so imports and merges
+     * do not duplicate entries. Restoring a saved library ({@link #upsert}) is not affected.
+     */
+    public synchronized void setCollapseDuplicates(boolean collapse) {
+        this.collapseDuplicates = collapse;
+    }
+
+    /** Recipes that were not added because the library already had their content. */
+    public synchronized long collapsedCount() {
+        return collapsed;
+    }
+
+    /** Position of this exact recipe instance in the library order, or -1. */
+    public synchronized int indexOf(Recipe recipe) {
+        for (int i = 0; i < all.size(); i++) {
+            if (all.get(i) == recipe) return i;
+        }
+        return -1;
+    }
+
+    public synchronized List<Recipe> searchByTitle(String query) {
         if (query == null || query.isBlank()) return listAll();
         String q = query.toLowerCase(Locale.ROOT);
         return filter(r -> r.getTitle().toLowerCase(Locale.ROOT).contains(q));
     }
 
-    public List<Recipe> searchByTag(String tag) {
+    public synchronized List<Recipe> searchByTag(String tag) {
         if (tag == null || tag.isBlank()) return Collections.emptyList();
         String t = tag.toLowerCase(Locale.ROOT);
         return filter(r -> r.getTags().contains(t));
     }
 
-    private List<Recipe> filter(Predicate<Recipe> predicate) {
+    /**
+     * Combined title + tag search used by the UI's search-as-you-type. Meant to run on a
+     * background thread: it scans a snapshot (so it does not hold the lock while filtering)
+     * and gives up with a {@link CancellationException} once the calling thread is interrupted.
+     *
+     * @param query case-insensitive title fragment; null/blank matches all titles
+     * @param tag   tag that must be present; null/blank matches all recipes
+     */
+    public List<Recipe> search(String query, String tag) {
+        List<Recipe> snapshot = listAll();
+        String q = query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+        String t = tag == null || tag.isBlank() ? null : tag.trim().toLowerCase(Locale.ROOT);
+        List<Recipe> result = new ArrayList<>();
+        for (int i = 0; i < snapshot.size(); i++) {
+            if ((i & 1023) == 0 && Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Search cancelled");
+            }
+            Recipe r = snapshot.get(i);
+            if (!q.isEmpty() && !r.getTitle().toLowerCase(Locale.ROOT).contains(q)) continue;
+            if (t != null && !r.getTags().contains(t)) continue;
+            result.add(r);
+        }
+        return result;
+    }
+
+    /** Tag facet: every tag in use with the number of recipes carrying it, sorted by tag. */
+    public synchronized SortedMap<String, Integer> tagFacets() {
+        return Collections.unmodifiableSortedMap(new TreeMap<>(tagCounts));
+    }
+
+    /** Number of recipes carrying the tag (case-insensitive); 0 if unused. */
+    public synchronized int countByTag(String tag) {
+        if (tag == null || tag.isBlank()) return 0;
+        return tagCounts.getOrDefault(tag.strip().toLowerCase(Locale.ROOT), 0);
+    }
+
+    private synchronized List<Recipe> filter(Predicate<Recipe> predicate) {
         return all.stream().filter(predicate).collect(Collectors.toList());
     }
 
     // UPDATE: Omdat Recipe onveranderlijk is, maken we steeds een nieuwe versie
-    public Optional<Recipe> updateTitle(Recipe old, String newTitle) {
+    public synchronized Optional<Recipe> updateTitle(Recipe old, String newTitle) {
         if (old == null || !all.contains(old)) return Optional.empty();
         Recipe updated = new Recipe.Builder(newTitle)
+                .descriptionStorage(descriptionStorage)
                 .description(old.getDescription())
                 .ingredients(old.getIngredients())
                 .tags(old.getTags())
@@ -63,9 +248,10 @@ public class RecipeService {
         return replace(old, updated);
     }
 
-    public Optional<Recipe> updateDescription(Recipe old, String newDescription) {
+    public synchronized Optional<Recipe> updateDescription(Recipe old, String newDescription) {
         if (old == null || !all.contains(old)) return Optional.empty();
         Recipe updated = new Recipe.Builder(old.getTitle())
+                .descriptionStorage(descriptionStorage)
                 .description(newDescription)
                 .ingredients(old.getIngredients())
                 .tags(old.getTags())
@@ -77,27 +263,188 @@ public class RecipeService {
      * Hulpmethode om een oud object te vervangen door een nieuwe versie.
      * Nodig voor de ViewApp om 'Callback Hell' te voorkomen.
      */
-    public Optional<Recipe> replace(Recipe oldRecipe, Recipe newRecipe) {
+    public synchronized Optional<Recipe> replace(Recipe oldRecipe, Recipe newRecipe) {
         int index = all.indexOf(oldRecipe);
         if (index >= 0) {
-            all.set(index, newRecipe);
+            if (newRecipe != oldRecipe && keys.containsKey(newRecipe)) {
+                throw new IllegalArgumentException("Recipe is already in the library: " + newRecipe);
+            }
+            Recipe previous = all.set(index, newRecipe);
+            countTags(previous, -1);
+            countTags(newRecipe, 1);
+            unindexContent(previous);
+            indexContent(newRecipe);
+            long key = keys.remove(previous);
+            keys.put(newRecipe, key);
+            byKey.put(key, newRecipe);
+            changed.put(key, newRecipe);
+            version++;
             return Optional.of(newRecipe);
         }
         return Optional.empty();
     }
 
     // STRATEGY PATTERN: Sorteren
-    public void sortRecipes(RecipeSortStrategy strategy) {
+    public synchronized void sortRecipes(RecipeSortStrategy strategy) {
         if (strategy == null) return;
         strategy.sort(all);
+        orderChanged = true;
+        version++;
     }
 
     // DELETE
-    public boolean remove(Recipe recipe) {
-        return all.remove(recipe);
+    public synchronized boolean remove(Recipe recipe) {
+        int index = all.indexOf(recipe);
+        if (index < 0) return false;
+        Recipe r = all.remove(index);
+        countTags(r, -1);
+        unindexContent(r);
+        forget(r);
+        version++;
+        return true;
+    }
+
+    public synchronized void clear() {
+        new ArrayList<>(all).forEach(this::forget);
+        all.clear();
+        tagCounts.clear();
+        byContent.clear();
+        sameHashCount.clear();
+        version++;
+    }
+
+    // ===== Change tracking =====
+
+    /** Hand out the changes collected since the previous call, and start collecting anew. */
+    public synchronized Changes takeChanges() {
+        List<Long> order = null;
+        if (orderChanged) {
+            order = new ArrayList<>(all.size());
+            for (Recipe r : all) order.add(keys.get(r));
+        }
+        Changes changes = new Changes(Collections.unmodifiableMap(new LinkedHashMap<>(changed)),
+                Collections.unmodifiableSet(new LinkedHashSet<>(removed)),
+                order == null ? null : Collections.unmodifiableList(order));
+        changed.clear();
+        removed.clear();
+        orderChanged = false;
+        return changes;
+    }
+
+    /**
+     * Give back changes handed out by {@link #takeChanges()} that could not be saved, so the
+     * next call reports them again. Entries are reported with their current version; keys
+     * removed in the meantime stay removed. Restored entries go before the ones changed
+     * since, so new keys still reach a reader in library order.
+     */
+    public synchronized void restoreChanges(Changes lost) {
+        LinkedHashMap<Long, Recipe> merged = new LinkedHashMap<>();
+        for (Long key : lost.upserted().keySet()) {
+            Recipe current = byKey.get(key);
+            if (current != null) merged.put(key, current);
+        }
+        merged.putAll(changed);
+        changed.clear();
+        changed.putAll(merged);
+        for (Long key : lost.removed()) {
+            if (!byKey.containsKey(key)) removed.add(key);
+        }
+        if (lost.order() != null) orderChanged = true;
+    }
+
+    /** Counter that moves on every change to the library; equal values mean nothing changed. */
+    public synchronized long version() {
+        return version;
+    }
+
+    /**
+     * Put a recipe under the given key: replaces the entry with that key, or appends a new
+     * entry. Used to restore a saved library; later keys continue after the highest one seen.
+     */
+    public synchronized void upsert(long key, Recipe recipe) {
+        Objects.requireNonNull(recipe, "recipe");
+        Recipe existing = byKey.get(key);
+        if (existing != null) {
+            replace(existing, recipe);
+            return;
+        }
+        if (keys.containsKey(recipe)) throw new IllegalArgumentException("Recipe is already in the library: " + recipe);
+        append(recipe, key);
+        nextKey = Math.max(nextKey, key + 1);
     }
 
-    public void clear() {
+    /** Remove the entry with the given key, if any. */
+    public synchronized boolean removeKey(long key) {
+        Recipe r = byKey.get(key);
+        return r != null && remove(r);
+    }
+
+    /**
+     * Put the library in the given key order. Unknown keys are ignored; entries whose key
+     * is not listed keep their relative order after the listed ones.
+     */
+    public synchronized void reorder(List<Long> order) {
+        Set<Recipe> placed = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Recipe> result = new ArrayList<>(all.size());
+        for (Long key : order) {
+            Recipe r = byKey.get(key);
+            if (r != null && placed.add(r)) result.add(r);
+        }
+        for (Recipe r : all) {
+            if (!placed.contains(r)) result.add(r);
+        }
         all.clear();
+        all.addAll(result);
+        orderChanged = true;
+        version++;
+    }
+
+    private void append(Recipe recipe, long key) {
+        all.add(recipe);
+        countTags(recipe, 1);
+        indexContent(recipe);
+        keys.put(recipe, key);
+        byKey.put(key, recipe);
+        changed.put(key, recipe);
+        version++;
+    }
+
+    private void forget(Recipe recipe) {
+        Long key = keys.remove(recipe);
+        byKey.remove(key);
+        changed.remove(key);
+        removed.add(key); // a reader that never saw the key just ignores it
+    }
+
+    private void indexContent(Recipe recipe) {
+        Recipe first = byContent.putIfAbsent(recipe.contentHash(), recipe);
+        if (first != null) sameHashCount.merge(recipe.contentHash(), 1, Integer::sum);
+    }
+
+    private void unindexContent(Recipe recipe) {
+        long hash = recipe.contentHash();
+        Integer others = sameHashCount.get(hash);
+        if (others != null) {
+            sameHashCount.compute(hash, (h, n) -> n == 1 ? null : n - 1);
+        }
+        if (byContent.get(hash) != recipe) return;
+        if (others == null) {
+            byContent.remove(hash);
+            return;
+        }
+        // The indexed entry goes; promote another one with the same hash (rare: duplicates
+        // are normally collapsed)
+        for (Recipe r : all) {
+            if (r != recipe && r.contentHash() == hash) {
+                byContent.put(hash, r);
+                return;
+            }
+        }
+    }
+
+    private void countTags(Recipe recipe, int delta) {
+        for (String tag : recipe.getTags()) {
+            tagCounts.merge(tag, delta, (a, b) -> a + b == 0 ? null : a + b);
+        }
     }
 }
\ No newline at end of file
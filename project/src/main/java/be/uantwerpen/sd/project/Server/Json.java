@@ -0,0 +1,42 @@
+package be.uantwerpen.sd.project.Server;
+
+import java.util.Collection;
+
+/** Appends JSON values to a StringBuilder; the API only ever writes small, flat documents. */
+final class Json {
+
+    private Json() {
+    }
+
+    /** Quoted and escaped string; null becomes {@code null}. */
+    static StringBuilder string(StringBuilder out, String s) {
+        if (s == null) return out.append("null");
+        out.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) out.append(String.format("\\u%04x", (int) c));
+                    else out.append(c);
+                }
+            }
+        }
+        return out.append('"');
+    }
+
+    static StringBuilder strings(StringBuilder out, Collection<String> values) {
+        out.append('[');
+        boolean first = true;
+        for (String v : values) {
+            if (!first) out.append(',');
+            string(out, v);
+            first = false;
+        }
+        return out.append(']');
+    }
+}
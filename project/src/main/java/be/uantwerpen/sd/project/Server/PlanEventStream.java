@@ -0,0 +1,259 @@
+package be.uantwerpen.sd.project.Server;
+
+import be.uantwerpen.sd.project.Planner.MealPlanObserver;
+import be.uantwerpen.sd.project.Planner.MealSlot;
+import be.uantwerpen.sd.project.Recipe.Recipe;
+import be.uantwerpen.sd.project.Recipe.RecipeService;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server-sent event stream of week plan changes ({@code GET /plan/events}), so remote clients
+ * do not have to poll {@code GET /plan}.
+ * <pre>
+ *   id: 7
+ *   event: snapshot
+ *   data: {"version":7,"days":{"MONDAY":{"BREAKFAST":{"key":3,...}},...}}
+ *
+ *   id: 8
+ *   event: plan
+ *   data: {"version":8,"cells":[{"day":"MONDAY","slot":"LUNCH","recipe":{"key":5,...}},
+ *                              {"day":"MONDAY","slot":"BREAKFAST","recipe":null}]}
+ * </pre>
+ *
+ * Design notes:
+ * - One {@link MealPlanObserver} for all subscribers. On every change it diffs the new snapshot
+ *   against the previous one and serializes the changed cells once; all subscribers are handed
+ *   the same bytes. The full snapshot event is also built at most once per version, and only
+ *   when someone needs it.
+ * - A subscriber starts with a snapshot event and then receives "plan" events with the changed
+ *   cells, in order.
+ * - Each subscriber has a bounded buffer, filled by the model thread without ever blocking and
+ *   drained by the subscriber's own (virtual) writer thread. When it is full, the buffered
+ *   events are coalesced into one snapshot of the latest state. A subscriber that has not taken
+ *   a single event across several coalescings is dropped: its buffer is cleared and its writer
+ *   thread is interrupted. That aborts a write the client is not taking (the socket channel is
+ *   interruptible), closes the connection and ends the thread. {@link #close()} does the same
+ *   for every subscriber. The exchange cannot be closed from outside instead: closing it
+ *   writes the final chunk, which would block behind the stuck write.
+ * - Idle streams get a comment line every {@link #KEEPALIVE_SECONDS} s, which also detects
+ *   clients that went away.
+ */
+final class PlanEventStream implements MealPlanObserver {
+
+    static final int DEFAULT_BUFFER_EVENTS = 32;
+    static final int DEFAULT_MAX_COALESCES = 4;
+    private static final long KEEPALIVE_SECONDS = 15;
+    private static final byte[] KEEPALIVE = ":\n\n".getBytes(StandardCharsets.US_ASCII);
+
+    /** One serialized event, shared by every subscriber it is sent to. */
+    record Event(long id, String type, byte[] bytes) {
+    }
+
+    private static final Event END = new Event(-1, "end", new byte[0]);
+
+    /** Buffer and bookkeeping of one connected client. */
+    static final class Subscriber {
+        private final BlockingQueue<Event> buffer;
+        // Coalescings since the writer last took an event
+        private final AtomicInteger stalls = new AtomicInteger();
+        private volatile boolean dropped;
+        // Thread streaming to the client, while it is connected
+        private volatile Thread writer;
+
+        private Subscriber(int capacity) {
+            this.buffer = new ArrayBlockingQueue<>(capacity);
+        }
+
+        /** Next event, or null after the timeout; {@link #END} once the stream is over. */
+        Event poll(long timeout, TimeUnit unit) throws InterruptedException {
+            Event e = buffer.poll(timeout, unit);
+            if (e != null) stalls.set(0);
+            return e;
+        }
+
+        boolean isDropped() {
+            return dropped;
+        }
+
+        /** End the stream and abort a write that is in progress. */
+        private void disconnect() {
+            buffer.clear();
+            buffer.offer(END);
+            Thread w = writer;
+            if (w != null) w.interrupt();
+        }
+    }
+
+    private final RecipeService recipes;
+    private final int bufferEvents;
+    private final int maxCoalesces;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicInteger connected = new AtomicInteger();
+
+    // Guarded by this
+    private Map<DayOfWeek, Map<MealSlot, Recipe>> current = Map.of();
+    private long version;
+    private Event snapshotEvent;
+    private boolean closed;
+
+    PlanEventStream(RecipeService recipes) {
+        this(recipes, DEFAULT_BUFFER_EVENTS, DEFAULT_MAX_COALESCES);
+    }
+
+    PlanEventStream(RecipeService recipes, int bufferEvents, int maxCoalesces) {
+        if (bufferEvents < 1) throw new IllegalArgumentException("Buffer must hold at least one event");
+        this.recipes = Objects.requireNonNull(recipes, "recipes");
+        this.bufferEvents = bufferEvents;
+        this.maxCoalesces = maxCoalesces;
+    }
+
+    // Model thread
+    @Override
+    public synchronized void onWeekPlanChanged(Map<DayOfWeek, Map<MealSlot, Recipe>> snapshot) {
+        Map<DayOfWeek, Map<MealSlot, Recipe>> previous = current;
+        current = snapshot;
+        StringBuilder cells = new StringBuilder(256);
+        for (DayOfWeek day : DayOfWeek.values()) {
+            Map<MealSlot, Recipe> before = previous.getOrDefault(day, Map.of());
+            Map<MealSlot, Recipe> after = snapshot.getOrDefault(day, Map.of());
+            for (MealSlot slot : MealSlot.values()) {
+                Recipe r = after.get(slot);
+                if (r == before.get(slot)) continue;
+                if (!cells.isEmpty()) cells.append(',');
+                cells.append("{\"day\":\"").append(day.name()).append("\",\"slot\":\"").append(slot.name()).append("\",\"recipe\":");
+                if (r == null) cells.append("null");
+                else PlannerHttpServer.recipe(cells, recipes.keyOf(r), r, false);
+                cells.append('}');
+            }
+        }
+        if (cells.isEmpty()) return; // e.g. only the active slots changed
+        version++;
+        snapshotEvent = null;
+        Event event = event("plan", "{\"version\":" + version + ",\"cells\":[" + cells + "]}");
+        for (Subscriber s : subscribers) publish(s, event);
+    }
+
+    private void publish(Subscriber s, Event event) {
+        if (s.buffer.offer(event)) return;
+        // Full: whatever is buffered is superseded by one snapshot of the latest state
+        s.buffer.clear();
+        coalesced.incrementAndGet();
+        if (s.stalls.incrementAndGet() > maxCoalesces) {
+            drop(s);
+            return;
+        }
+        s.buffer.offer(snapshotEvent());
+    }
+
+    private void drop(Subscriber s) {
+        s.dropped = true;
+        subscribers.remove(s);
+        dropped.incrementAndGet();
+        s.disconnect();
+    }
+
+    private Event snapshotEvent() {
+        if (snapshotEvent == null) {
+            StringBuilder data = new StringBuilder(1024).append("{\"version\":").append(version).append(",\"days\":");
+            snapshotEvent = event("snapshot", PlannerHttpServer.days(data, current, recipes).append('}').toString());
+        }
+        return snapshotEvent;
+    }
+
+    private Event event(String type, String data) {
+        String text = "id: " + version + "\nevent: " + type + "\ndata: " + data + "\n\n";
+        return new Event(version, type, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Register a subscriber; its buffer starts with a snapshot of the current plan. */
+    synchronized Subscriber subscribe() {
+        Subscriber s = new Subscriber(bufferEvents);
+        if (closed) {
+            s.buffer.offer(END);
+            return s;
+        }
+        s.buffer.offer(snapshotEvent());
+        subscribers.add(s);
+        return s;
+    }
+
+    void unsubscribe(Subscriber s) {
+        subscribers.remove(s);
+    }
+
+    /** Stream one client until it disconnects, is dropped or the stream closes. */
+    void serve(HttpExchange exchange) {
+        try {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            exchange.sendResponseHeaders(200, 0);
+            Subscriber s = subscribe();
+            s.writer = Thread.currentThread();
+            connected.incrementAndGet();
+            try {
+                OutputStream out = exchange.getResponseBody();
+                while (true) {
+                    Event e = s.poll(KEEPALIVE_SECONDS, TimeUnit.SECONDS);
+                    if (e == END) break;
+                    out.write(e == null ? KEEPALIVE : e.bytes());
+                    out.flush();
+                }
+            } finally {
+                s.writer = null;
+                connected.decrementAndGet();
+                unsubscribe(s);
+            }
+        } catch (IOException ex) {
+            // The client went away, or the subscriber was dropped mid-write
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    /** Clients whose writer thread is still running. */
+    int connectedCount() {
+        return connected.get();
+    }
+
+    /** Times a full buffer was collapsed into a snapshot. */
+    long coalescedCount() {
+        return coalesced.get();
+    }
+
+    long droppedCount() {
+        return dropped.get();
+    }
+
+    /** End every stream; later subscribers are ended straight away. */
+    synchronized void close() {
+        closed = true;
+        for (Subscriber s : subscribers) s.disconnect();
+        subscribers.clear();
+    }
+}
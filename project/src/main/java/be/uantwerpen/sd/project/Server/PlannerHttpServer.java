@@ -0,0 +1,373 @@
+package be.uantwerpen.sd.project.Server;
+
+import be.uantwerpen.sd.project.AsyncServiceFacade;
+import be.uantwerpen.sd.project.Persistence.JsonObjectParser;
+import be.uantwerpen.sd.project.Planner.MealSlot;
+import be.uantwerpen.sd.project.Recipe.Recipe;
+import be.uantwerpen.sd.project.Recipe.RecipeService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Embedded HTTP/JSON API over the planner, for clients without the JavaFX UI (mobile apps,
+ * scripts). Built on the JDK's {@link HttpServer}; recipes are addressed by their stable
+ * library key ({@link RecipeService#keyOf}).
+ * <pre>
+ *   GET    /recipes?q=&amp;tag=&amp;limit=  title/tag search; summaries without description
+ *   POST   /recipes                   create from {title, description, ingredients, tags}
+ *   GET    /recipes/{key}             one recipe, with description
+ *   PUT    /recipes/{key}             replace (same body as POST); planned references follow
+ *   DELETE /recipes/{key}
+ *   GET    /plan                      active slots and the planned recipe per day and slot
+ *   PUT    /plan/{day}/{slot}         plan a recipe: {"recipe": key}
+ *   DELETE /plan/{day}/{slot}         clear the slot
+ *   GET    /plan/events               server-sent events of plan changes ({@link PlanEventStream})
+ *   GET    /groceries                 grocery items: {name: quantity}
+ * </pre>
+ *
+ * Design notes:
+ * - Every exchange runs on its own virtual thread, so handlers simply block on the façade's
+ *   futures; thousands of open requests cost a small stack each instead of a platform thread.
+ * - Recipe reads (search, get, keys) go straight to the thread-safe {@link RecipeService} on the
+ *   request thread, so they never queue behind model work. Mutations, and all plan and grocery
+ *   access, go through the {@link AsyncServiceFacade}: they are serialized on the model thread
+ *   together with the UI's own operations, and autosaved like them.
+ * - Errors come back as {@code {"error": message}}: 400 for malformed input or a rejected change
+ *   (such as a slot that does not fit the recipe's tags), 404 for unknown paths and keys, 405 for
+ *   unsupported methods, 409 when the recipe was changed by someone else in the meantime.
+ */
+public final class PlannerHttpServer implements AutoCloseable {
+
+    private static final int BACKLOG = 1024;
+    private static final int DEFAULT_LIMIT = 50;
+    private static final int MAX_LIMIT = 1000;
+    private static final int MAX_BODY_BYTES = 1 << 20;
+    private static final long MODEL_TIMEOUT_SECONDS = 10;
+
+    private final AsyncServiceFacade model;
+    private final RecipeService recipes;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final PlanEventStream events;
+
+    // One route: method and the path segments below its context
+    @FunctionalInterface
+    private interface Route {
+        Response handle(String method, List<String> path, HttpExchange exchange) throws IOException;
+    }
+
+    private record Response(int status, String json) {
+        static Response ok(CharSequence json) {
+            return new Response(200, json.toString());
+        }
+
+        static Response noContent() {
+            return new Response(204, "");
+        }
+    }
+
+    // Aborts a route with the given status
+    private static final class Failure extends RuntimeException {
+        final int status;
+
+        Failure(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private PlannerHttpServer(InetSocketAddress address, AsyncServiceFacade model, RecipeService recipes) throws IOException {
+        this.model = Objects.requireNonNull(model, "model");
+        this.recipes = Objects.requireNonNull(recipes, "recipes");
+        this.server = HttpServer.create(address, BACKLOG);
+        this.events = new PlanEventStream(recipes);
+        server.createContext("/recipes", exchange -> serve(exchange, "/recipes", this::recipes));
+        server.createContext("/plan", exchange -> serve(exchange, "/plan", this::plan));
+        server.createContext("/plan/events", events::serve);
+        server.createContext("/groceries", exchange -> serve(exchange, "/groceries", this::groceries));
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Start serving on the given address (port 0 picks a free port).
+     *
+     * @param model   façade over the services; must stay open while the server runs
+     * @param recipes the recipe service behind that façade
+     */
+    public static PlannerHttpServer start(InetSocketAddress address, AsyncServiceFacade model, RecipeService recipes) throws IOException {
+        PlannerHttpServer api = new PlannerHttpServer(address, model, recipes);
+        api.server.start();
+        // Not awaited (this may run on the model thread); until it is registered, subscribers
+        // get an empty snapshot, and the plan then arrives as their first change event
+        model.observePlan(api.events);
+        return api;
+    }
+
+    /** Port the server listens on. */
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /** Stop accepting requests and wait for the ones in progress; close this before the façade. */
+    @Override
+    public void close() {
+        events.close();
+        model.unobservePlan(events);
+        server.stop(0);
+        executor.close();
+    }
+
+    // ===== Routes =====
+
+    private Response recipes(String method, List<String> path, HttpExchange exchange) throws IOException {
+        if (path.isEmpty()) {
+            return switch (method) {
+                case "GET" -> searchRecipes(query(exchange));
+                case "POST" -> {
+                    Map<String, Object> body = body(exchange);
+                    Recipe created = await(model.createRecipe(JsonObjectParser.string(body.get("title")),
+                            JsonObjectParser.string(body.get("description")),
+                            JsonObjectParser.strings(body.get("ingredients")),
+                            JsonObjectParser.strings(body.get("tags"))));
+                    long key = recipes.keyOf(created);
+                    exchange.getResponseHeaders().set("Location", "/recipes/" + key);
+                    yield new Response(201, recipe(new StringBuilder(), key, created, true).toString());
+                }
+                default -> throw notAllowed(method);
+            };
+        }
+        if (path.size() != 1) throw notFound();
+        long key = key(path.get(0));
+        Recipe current = recipes.byKey(key);
+        if (current == null) throw new Failure(404, "No recipe with key " + key);
+        return switch (method) {
+            case "GET" -> Response.ok(recipe(new StringBuilder(), key, current, true));
+            case "PUT" -> {
+                Recipe updated = recipeFrom(body(exchange));
+                if (await(model.replaceRecipe(current, updated)).isEmpty()) throw conflict(key);
+                yield Response.ok(recipe(new StringBuilder(), key, updated, true));
+            }
+            case "DELETE" -> {
+                if (!await(model.removeRecipe(current))) throw conflict(key);
+                yield Response.noContent();
+            }
+            default -> throw notAllowed(method);
+        };
+    }
+
+    private Response searchRecipes(Map<String, String> query) {
+        int limit = DEFAULT_LIMIT;
+        if (query.containsKey("limit")) {
+            try {
+                limit = Math.clamp(Integer.parseInt(query.get("limit")), 0, MAX_LIMIT);
+            } catch (NumberFormatException ex) {
+                throw new Failure(400, "limit must be a number");
+            }
+        }
+        List<Recipe> found = recipes.search(query.get("q"), query.get("tag"));
+        StringBuilder out = new StringBuilder(64 + Math.min(limit, found.size()) * 128);
+        out.append("{\"total\":").append(found.size()).append(",\"recipes\":[");
+        for (int i = 0; i < Math.min(limit, found.size()); i++) {
+            if (i > 0) out.append(',');
+            recipe(out, recipes.keyOf(found.get(i)), found.get(i), false);
+        }
+        return Response.ok(out.append("]}"));
+    }
+
+    private Response plan(String method, List<String> path, HttpExchange exchange) throws IOException {
+        if (path.isEmpty()) {
+            if (!method.equals("GET")) throw notAllowed(method);
+            CompletableFuture<Set<MealSlot>> slots = model.activeSlots();
+            Map<DayOfWeek, Map<MealSlot, Recipe>> week = await(model.weekPlan());
+            StringBuilder out = new StringBuilder(1024).append("{\"activeSlots\":[");
+            boolean first = true;
+            for (MealSlot slot : await(slots)) {
+                if (!first) out.append(',');
+                Json.string(out, slot.name());
+                first = false;
+            }
+            days(out.append("],\"days\":"), week, recipes);
+            return Response.ok(out.append('}'));
+        }
+        if (path.size() != 2) throw notFound();
+        DayOfWeek day = parse(DayOfWeek.class, path.get(0), "day");
+        MealSlot slot = parse(MealSlot.class, path.get(1), "slot");
+        return switch (method) {
+            case "PUT" -> {
+                String value = JsonObjectParser.string(body(exchange).get("recipe"));
+                if (value == null) throw new Failure(400, "recipe is required");
+                long key = key(value);
+                Recipe r = recipes.byKey(key);
+                if (r == null) throw new Failure(400, "No recipe with key " + key);
+                await(model.setRecipe(day, slot, r));
+                yield Response.noContent();
+            }
+            case "DELETE" -> {
+                await(model.clearSlot(day, slot));
+                yield Response.noContent();
+            }
+            default -> throw notAllowed(method);
+        };
+    }
+
+    private Response groceries(String method, List<String> path, HttpExchange exchange) {
+        if (!path.isEmpty()) throw notFound();
+        if (!method.equals("GET")) throw notAllowed(method);
+        StringBuilder out = new StringBuilder(512).append('{');
+        boolean first = true;
+        for (Map.Entry<String, Integer> item : await(model.groceryItems()).entrySet()) {
+            if (!first) out.append(',');
+            Json.string(out, item.getKey()).append(':').append(item.getValue());
+            first = false;
+        }
+        return Response.ok(out.append('}'));
+    }
+
+    // ===== Plumbing =====
+
+    private void serve(HttpExchange exchange, String context, Route route) {
+        try {
+            Response response;
+            try {
+                String rest = exchange.getRequestURI().getPath().substring(context.length());
+                if (!rest.isEmpty() && !rest.startsWith("/")) throw notFound(); // e.g. "/plans"
+                List<String> path = new ArrayList<>();
+                for (String segment : rest.split("/")) {
+                    if (!segment.isEmpty()) path.add(segment);
+                }
+                response = route.handle(exchange.getRequestMethod(), path, exchange);
+            } catch (Failure ex) {
+                response = error(ex.status, ex.getMessage());
+            } catch (IllegalArgumentException | IllegalStateException ex) {
+                response = error(400, ex.getMessage());
+            } catch (RuntimeException ex) {
+                response = error(500, String.valueOf(ex.getMessage()));
+            }
+            byte[] body = response.json().getBytes(StandardCharsets.UTF_8);
+            if (body.length > 0) exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(response.status(), body.length == 0 ? -1 : body.length);
+            if (body.length > 0) exchange.getResponseBody().write(body);
+        } catch (IOException ex) {
+            // The client went away; nothing to answer
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static Response error(int status, String message) {
+        return new Response(status, Json.string(new StringBuilder("{\"error\":"), message).append('}').toString());
+    }
+
+    // Wait for a model operation; its own exceptions are rethrown as they are
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get(MODEL_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) throw cause;
+            throw new IllegalStateException(ex.getCause());
+        } catch (TimeoutException ex) {
+            throw new Failure(503, "The planner is busy; try again");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new Failure(503, "Server is shutting down");
+        }
+    }
+
+    /** Planned recipes per day and slot, as summaries; also used by {@link PlanEventStream}. */
+    static StringBuilder days(StringBuilder out, Map<DayOfWeek, Map<MealSlot, Recipe>> week, RecipeService recipes) {
+        out.append('{');
+        boolean first = true;
+        for (Map.Entry<DayOfWeek, Map<MealSlot, Recipe>> day : week.entrySet()) {
+            if (!first) out.append(',');
+            Json.string(out, day.getKey().name()).append(":{");
+            boolean firstSlot = true;
+            for (MealSlot slot : MealSlot.values()) {
+                Recipe r = day.getValue().get(slot);
+                if (r == null) continue;
+                if (!firstSlot) out.append(',');
+                Json.string(out, slot.name()).append(':');
+                recipe(out, recipes.keyOf(r), r, false);
+                firstSlot = false;
+            }
+            out.append('}');
+            first = false;
+        }
+        return out.append('}');
+    }
+
+    static StringBuilder recipe(StringBuilder out, long key, Recipe r, boolean withDescription) {
+        out.append("{\"key\":").append(key).append(",\"title\":");
+        Json.string(out, r.getTitle());
+        if (withDescription) Json.string(out.append(",\"description\":"), r.getDescription());
+        Json.strings(out.append(",\"ingredients\":"), r.getIngredients());
+        Json.strings(out.append(",\"tags\":"), r.getTags());
+        return out.append('}');
+    }
+
+    private Recipe recipeFrom(Map<String, Object> body) {
+        return new Recipe.Builder(JsonObjectParser.string(body.get("title")))
+                .descriptionStorage(recipes.descriptionStorage())
+                .description(JsonObjectParser.string(body.get("description")))
+                .ingredients(JsonObjectParser.strings(body.get("ingredients")))
+                .tags(JsonObjectParser.strings(body.get("tags")))
+                .build();
+    }
+
+    private static Map<String, Object> body(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (bytes.length > MAX_BODY_BYTES) throw new Failure(413, "Request body too large");
+            return new JsonObjectParser(new String(bytes, StandardCharsets.UTF_8)).parse();
+        }
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null) return params;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq <= 0) continue;
+            params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static long key(String text) {
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException ex) {
+            throw new Failure(400, "Not a recipe key: " + text);
+        }
+    }
+
+    private static <E extends Enum<E>> E parse(Class<E> type, String name, String what) {
+        try {
+            return Enum.valueOf(type, name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new Failure(404, "Unknown " + what + ": " + name);
+        }
+    }
+
+    private static Failure notFound() {
+        return new Failure(404, "Not found");
+    }
+
+    private static Failure notAllowed(String method) {
+        return new Failure(405, "Method not allowed: " + method);
+    }
+
+    private static Failure conflict(long key) {
+        return new Failure(409, "Recipe " + key + " was changed concurrently");
+    }
+}
@@ -1,22 +1,49 @@
 package be.uantwerpen.sd.project;
 
+import be.uantwerpen.sd.project.GroceryList.GroceryListObserver;
+import be.uantwerpen.sd.project.Persistence.DescriptionBlobStore;
+import be.uantwerpen.sd.project.Persistence.RecipeBinary;
 import be.uantwerpen.sd.project.Planner.*;
 import be.uantwerpen.sd.project.Recipe.*;
+import be.uantwerpen.sd.project.Server.PlannerHttpServer;
+import javafx.animation.AnimationTimer;
+import javafx.animation.KeyFrame;
+import javafx.animation.PauseTransition;
+import javafx.animation.Timeline;
 import javafx.application.Application;
 import javafx.application.Platform;
+import javafx.beans.Observable;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleIntegerProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
+import javafx.scene.control.cell.CheckBoxListCell;
 import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.*;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 import javafx.util.StringConverter;
 
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.DayOfWeek;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -24,19 +51,52 @@ import java.util.stream.Collectors;
  *
  * Highlights:
  * - Uses Strategy pattern for sorting recipes (title / ingredient count).
- * - Tag filter in the search bar narrows the recipe list.
+ * - Tag filter in the search bar narrows the recipe list; each tag shows its recipe count, read
+ *   from the tag facet RecipeService maintains.
+ * - Asynchronous model: every mutation and query goes through {@link AsyncServiceFacade}, which
+ *   runs it off the FX thread; handlers only marshal the completed results back via runLater.
+ * - Search-as-you-type: keystrokes are debounced and the query runs on a virtual thread; a newer
+ *   query cancels the one in flight, and results are applied on the FX thread.
  * - Weekly planner dropdowns are filtered so they only show recipes compatible with the slot
  *   based on meal-type tags (breakfast/lunch/dinner/snack(s)).
- * - Observer pattern: GroceryList observes WeekPlan and rebuilds itself on plan changes.
+ * - Large libraries: the search results are copied into the recipe list and split into the
+ *   per-slot dropdown lists on the search thread. The FX thread then only swaps the finished
+ *   lists into the list view and combos (a setItems call each, no per-element change events);
+ *   list views and combo popups are virtualized and only render the visible rows. The apply
+ *   step is timed as "refreshList.apply".
+ * - Observer pattern: GroceryList observes WeekPlan and updates itself on plan changes; the grocery
+ *   pane in turn observes GroceryList and patches only the rows that changed.
+ * - The grocery pane is a virtualized ListView: rows (including their check state) live in an
+ *   observable model list, and only the visible cells are created and reused while scrolling.
+ * - Persistence: changed recipes and plan cells are autosaved every second to a journal
+ *   (MutationJournal, in recipes-journal or -Drecipes.journal) and replayed at startup. On a first
+ *   start the library comes from a YAML file (recipes.yaml, or -Drecipes.file; a .rcpb file is
+ *   read as a mapped binary library) or the demo recipes; the library file is rewritten on exit
+ *   only if the library changed during the session. Descriptions are kept off the heap in a
+ *   mapped scratch file (DescriptionBlobStore) with a small LRU cache of decoded texts.
+ * - Fast startup: the window is shown before any recipe data is loaded (that happens on the model
+ *   thread), the planner and grocery tabs are built on first selection, and the time to the first
+ *   rendered frame is reported in the status bar (and on stdout with -Drecipes.metrics=true).
+ * - Instrumentation: event handlers, model-driven refreshes and JavaFX pulses are timed into
+ *   latency histograms ({@link LatencyRecorder}). F12 toggles a debug overlay with the live
+ *   numbers; with -Drecipes.metrics=true the pulse interval is sampled as well and the
+ *   histograms are printed on exit.
+ * - Remote clients: with -Drecipes.httpPort=N the same façade is also served over HTTP
+ *   ({@link PlannerHttpServer}) once the library is loaded.
  * - Immutability: editing a recipe creates a new instance; the planner replaces old references
  *   via MealPlanService#replaceRecipeReferences to stay in sync without errors.
  */
 public class ViewApp extends Application {
-    private final RecipeService controller = new RecipeService();
-    private final MealPlanService mealController = new MealPlanService();
+    // Off-heap description text of the library; null if the scratch file could not be created
+    private final DescriptionBlobStore descriptions = openDescriptionStore();
+    private final MealPlanService mealController = MealPlanService.withSharedGroceryList();
+    private final RecipeService recipeService =
+            new RecipeService(descriptions != null ? descriptions : DescriptionStorage.ON_HEAP);
+    private final AsyncServiceFacade model = new AsyncServiceFacade(recipeService, mealController);
 
     // View state
-    private final ObservableList<Recipe> recipes = FXCollections.observableArrayList();
+    // Replaced wholesale by every search (see refreshList); single edits patch it in place
+    private ObservableList<Recipe> recipes = FXCollections.observableArrayList();
     private final ListView<Recipe> listView = new ListView<>(recipes);
 
     // Form controls
@@ -46,17 +106,53 @@ public class ViewApp extends Application {
     private TextField tagsField;
     private TextField searchField;
     private ComboBox<String> tagFilterBox;
+    // Recipe count per tag, as last reported by the model's tag facet
+    private Map<String, Integer> tagFacetCounts = Map.of();
     private Label statusLabel;
 
+    // Background search: debounced keystrokes, one in-flight query at a time
+    private static final Duration SEARCH_DEBOUNCE = Duration.millis(250);
+    private final PauseTransition searchDebounce = new PauseTransition(SEARCH_DEBOUNCE);
+    private CompletableFuture<List<Recipe>> pendingSearch;
+    private long searchGeneration = 0;
+
     // Weekly planner UI state
     private GridPane plannerGrid;
+    // One cell (combo + clear button) per day/slot, created once and re-laid out when slots toggle
     private final Map<DayOfWeek, Map<MealSlot, ComboBox<Recipe>>> plannerCells = new EnumMap<>(DayOfWeek.class);
+    private final Map<DayOfWeek, Map<MealSlot, HBox>> plannerCellNodes = new EnumMap<>(DayOfWeek.class);
+    // Slot-compatible part of the recipe list, shared by the 7 combos of each slot
+    private final Map<MealSlot, ObservableList<Recipe>> slotRecipes = new EnumMap<>(MealSlot.class);
+    // Recipes currently in the list, for O(1) membership checks when syncing the planner
+    private Set<Recipe> listedRecipes = new HashSet<>();
     private final Map<MealSlot, CheckBox> slotToggles = new EnumMap<>(MealSlot.class);
     private boolean suppressPlannerListener = false;
+    // FX-thread copies of the model state the planner renders; read before the model thread starts
+    private final Set<MealSlot> activeSlots = EnumSet.copyOf(mealController.getActiveSlots());
+    private Map<DayOfWeek, Map<MealSlot, Recipe>> plannedRecipes = Map.of();
+
+    // Recipe library, loaded at startup and saved on exit (-Drecipes.file=... to override)
+    private static final Path LIBRARY_FILE = Path.of(System.getProperty("recipes.file", "recipes.yaml"));
+    // Journal of all edits, replayed at startup (-Drecipes.journal=... to override)
+    private static final Path JOURNAL_DIR = Path.of(System.getProperty("recipes.journal", "recipes-journal"));
+    // Library version once loaded; the library file is only rewritten if it moved on
+    private CompletableFuture<Long> loadedLibraryVersion = CompletableFuture.completedFuture(-1L);
+    // HTTP API for other clients, off unless -Drecipes.httpPort=... is set
+    private static final int HTTP_PORT = Integer.getInteger("recipes.httpPort", -1);
+    private volatile PlannerHttpServer httpServer;
+
+    // Latency instrumentation (see class comment)
+    private static final boolean METRICS = Boolean.getBoolean("recipes.metrics");
+    private final LatencyRecorder metrics = new LatencyRecorder();
+    private Label metricsOverlay;
+    private Timeline metricsRefresh;
 
     // Grocery List UI state
     private VBox groceryRoot;
-    private VBox groceryItemsBox;
+    // Row model of the grocery list; cells re-render when a row's quantity changes
+    private final ObservableList<GroceryRow> groceryItems =
+            FXCollections.observableArrayList(row -> new Observable[]{row.quantity});
+    private final Map<String, GroceryRow> groceryRows = new HashMap<>();
 
     public static void main(String[] args) {
         launch(args);
@@ -64,16 +160,9 @@ public class ViewApp extends Application {
 
     @Override
     public void start(Stage stage) {
+        long startNanos = System.nanoTime();
         stage.setTitle("Recipe Manager");
 
-        // Seed a few demo recipes
-        seedDemoData();
-        refreshList();
-
-        // Wire GroceryList to observe WeekPlan
-        be.uantwerpen.sd.project.GroceryList.GroceryList grocery = be.uantwerpen.sd.project.GroceryList.GroceryList.getInstance();
-        mealController.getWeekPlan().addObserver(grocery);
-
         BorderPane root = new BorderPane();
         root.setPadding(new Insets(10));
 
@@ -98,16 +187,15 @@ public class ViewApp extends Application {
         TabPane tabs = new TabPane();
         Tab editorTab = new Tab("Recipe Editor", form);
         editorTab.setClosable(false);
-        Tab plannerTab = new Tab("Weekly Planner", createPlannerPane());
+        Tab plannerTab = new Tab("Weekly Planner");
         plannerTab.setClosable(false);
-        Tab groceryTab = new Tab("Grocery List", createGroceryPane());
+        buildOnFirstSelection(plannerTab, this::createPlannerPane);
+        Tab groceryTab = new Tab("Grocery List");
         groceryTab.setClosable(false);
+        buildOnFirstSelection(groceryTab, this::createGroceryPane);
         tabs.getTabs().addAll(editorTab, plannerTab, groceryTab);
         root.setCenter(tabs);
 
-        // Keep Grocery tab synced with plan changes
-        mealController.getWeekPlan().addObserver(snap -> Platform.runLater(this::rebuildGroceryUI));
-
         // Top: search bar
         HBox searchBar = createSearchBar();
         root.setTop(searchBar);
@@ -117,9 +205,147 @@ public class ViewApp extends Application {
         BorderPane.setMargin(statusLabel, new Insets(6, 0, 0, 0));
         root.setBottom(statusLabel);
 
-        Scene scene = new Scene(root, 960, 560);
+        Scene scene = new Scene(createMetricsOverlay(root), 960, 560);
+        reportFirstFrame(scene, startNanos);
+        instrumentPulses(scene);
         stage.setScene(scene);
         stage.show();
+
+        // Recover from the journal in the background; on a first start, load the library file
+        // (or seed a few demo recipes) instead. The list fills in once loaded.
+        long loadNanos = System.nanoTime();
+        // Failed autosaves are retried on the next tick; just keep the user informed
+        loadedLibraryVersion = model.openJournal(JOURNAL_DIR,
+                        ex -> Platform.runLater(() -> status("Saving failed, retrying: " + ex.getMessage())))
+                .thenCompose(recovered -> recovered > 0 ? CompletableFuture.completedFuture(null) : seedLibrary())
+                .thenCompose(done -> model.libraryVersion());
+        CompletableFuture<Set<MealSlot>> loading = loadedLibraryVersion.thenCompose(version -> model.activeSlots());
+        onFxThread(loading, slots -> {
+            applyActiveSlots(slots);
+            refreshList(() -> {
+                String loaded = "Loaded " + recipes.size() + " recipe(s) in " + millisSince(loadNanos) + " ms";
+                status(HTTP_PORT >= 0 ? loaded + "; " + startHttpServer() : loaded);
+            });
+        }, ex -> error("Cannot load recipes: " + ex.getMessage()));
+
+        // Plan changes arrive on the model thread; keep the latest snapshot for the planner cells
+        model.observePlan(snapshot -> Platform.runLater(() -> metrics.time("observer.plan", () -> {
+            plannedRecipes = snapshot;
+            refreshPlannerSelections();
+        })));
+    }
+
+    // Once the library is loaded; returns the line for the status bar
+    private String startHttpServer() {
+        try {
+            httpServer = PlannerHttpServer.start(new InetSocketAddress(HTTP_PORT), model, recipeService);
+            return "HTTP API on port " + httpServer.port();
+        } catch (IOException ex) {
+            return "cannot start the HTTP API on port " + HTTP_PORT + ": " + ex.getMessage();
+        }
+    }
+
+    // First start: the library file if there is one, the demo recipes otherwise
+    private CompletableFuture<Void> seedLibrary() {
+        if (Files.exists(LIBRARY_FILE)) {
+            return (RecipeBinary.isBinary(LIBRARY_FILE) ? model.loadBinary(LIBRARY_FILE) : model.loadYaml(LIBRARY_FILE))
+                    .thenAccept(count -> { });
+        }
+        return model.addRecipes(demoRecipes());
+    }
+
+    @Override
+    public void stop() {
+        if (httpServer != null) httpServer.close();
+        try {
+            long loaded = loadedLibraryVersion.getNow(-1L);
+            if (loaded < 0 || model.libraryVersion().get(10, TimeUnit.SECONDS) != loaded) {
+                (RecipeBinary.isBinary(LIBRARY_FILE) ? model.saveBinary(LIBRARY_FILE) : model.saveYaml(LIBRARY_FILE))
+                        .get(10, TimeUnit.SECONDS);
+            }
+        } catch (Exception ex) {
+            System.err.println("Cannot save " + LIBRARY_FILE + ": " + ex.getMessage());
+        }
+        model.close();
+        if (descriptions != null) descriptions.close();
+        if (METRICS) System.out.print(metrics.report());
+    }
+
+    // Stack the (hidden) metrics overlay over the main layout; F12 toggles it
+    private StackPane createMetricsOverlay(BorderPane root) {
+        metricsOverlay = new Label();
+        metricsOverlay.setStyle("-fx-font-family: monospace; -fx-font-size: 11px; -fx-text-fill: white;"
+                + " -fx-background-color: rgba(0, 0, 0, 0.75); -fx-padding: 6;");
+        metricsOverlay.setMouseTransparent(true);
+        metricsOverlay.setVisible(false);
+        StackPane.setAlignment(metricsOverlay, Pos.TOP_RIGHT);
+        metricsRefresh = new Timeline(new KeyFrame(Duration.millis(500), e -> metricsOverlay.setText(metrics.report())));
+        metricsRefresh.setCycleCount(Timeline.INDEFINITE);
+
+        StackPane stack = new StackPane(root, metricsOverlay);
+        stack.addEventFilter(KeyEvent.KEY_PRESSED, e -> {
+            if (e.getCode() != KeyCode.F12) return;
+            boolean show = !metricsOverlay.isVisible();
+            metricsOverlay.setVisible(show);
+            if (show) {
+                metricsOverlay.setText(metrics.report());
+                metricsRefresh.play();
+            } else {
+                metricsRefresh.stop();
+            }
+            e.consume();
+        });
+        return stack;
+    }
+
+    /**
+     * Time the CSS/layout phase of every pulse. The pulse interval needs an AnimationTimer,
+     * which keeps pulses running at the frame rate, so it is only sampled with -Drecipes.metrics=true.
+     */
+    private void instrumentPulses(Scene scene) {
+        long[] layoutStart = new long[1];
+        scene.addPreLayoutPulseListener(() -> layoutStart[0] = System.nanoTime());
+        scene.addPostLayoutPulseListener(() -> metrics.record("pulse.layout", System.nanoTime() - layoutStart[0]));
+        if (!METRICS) return;
+        new AnimationTimer() {
+            private long last = -1;
+
+            @Override
+            public void handle(long now) {
+                if (last >= 0) metrics.record("pulse.interval", now - last);
+                last = now;
+            }
+        }.start();
+    }
+
+    // Build a tab's content the first time it is selected
+    private static void buildOnFirstSelection(Tab tab, Supplier<Node> factory) {
+        tab.setOnSelectionChanged(e -> {
+            if (tab.isSelected() && tab.getContent() == null) tab.setContent(factory.get());
+        });
+    }
+
+    // Report time-to-first-frame, both since JVM launch and since start(), after the first layout pass
+    private void reportFirstFrame(Scene scene, long startNanos) {
+        Runnable[] listener = new Runnable[1];
+        listener[0] = () -> {
+            if (listener[0] == null) return;
+            Runnable self = listener[0];
+            listener[0] = null;
+            long sinceLaunch = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+            String msg = "First frame after " + sinceLaunch + " ms (" + millisSince(startNanos) + " ms in start)";
+            if (METRICS) System.out.println(msg);
+            // Not during the pulse itself: unregistering or relabelling would disturb the running pulse
+            Platform.runLater(() -> {
+                scene.removePostLayoutPulseListener(self);
+                status(msg);
+            });
+        };
+        scene.addPostLayoutPulseListener(listener[0]);
+    }
+
+    private static long millisSince(long nanos) {
+        return (System.nanoTime() - nanos) / 1_000_000;
     }
 
     private VBox wrapWithTitle(Control control, String title) {
@@ -140,8 +366,8 @@ public class ViewApp extends Application {
         slotToggles.clear();
         for (MealSlot slot : MealSlot.values()) {
             CheckBox cb = new CheckBox(slot.getDisplayName());
-            cb.setSelected(mealController.getActiveSlots().contains(slot));
-            cb.selectedProperty().addListener((obs, was, is) -> onToggleSlot(slot, is));
+            cb.setSelected(activeSlots.contains(slot));
+            cb.selectedProperty().addListener((obs, was, is) -> metrics.time("onToggleSlot", () -> onToggleSlot(slot, is)));
             slotToggles.put(slot, cb);
             toggles.getChildren().add(cb);
         }
@@ -159,23 +385,38 @@ public class ViewApp extends Application {
         return root;
     }
 
+    // Adopt the model's active slots (e.g. after recovery) without writing them back
+    private void applyActiveSlots(Set<MealSlot> slots) {
+        if (activeSlots.equals(slots)) return;
+        activeSlots.clear();
+        activeSlots.addAll(slots);
+        slotToggles.forEach((slot, cb) -> cb.setSelected(activeSlots.contains(slot)));
+        if (plannerGrid != null) {
+            rebuildPlannerGrid();
+            refreshPlannerSelections();
+        }
+    }
+
     private void onToggleSlot(MealSlot slot, boolean active) {
-        Set<MealSlot> current = new LinkedHashSet<>(mealController.getActiveSlots());
-        if (active) current.add(slot); else current.remove(slot);
-        if (current.isEmpty()) {
+        if (active == activeSlots.contains(slot)) return;
+        if (!active && activeSlots.size() == 1) {
             // Keep at least one slot
             slotToggles.get(slot).setSelected(true);
             info("At least one meal slot must be active");
             return;
         }
-        mealController.setActiveSlots(current);
+        if (active) activeSlots.add(slot); else activeSlots.remove(slot);
+        model.setActiveSlots(activeSlots);
         rebuildPlannerGrid();
         refreshPlannerSelections();
     }
 
+    /**
+     * Lay out the planner grid for the active slots. Cells are created on first use and
+     * reused afterwards, so every combo keeps its single value listener for its lifetime.
+     */
     private void rebuildPlannerGrid() {
         plannerGrid.getChildren().clear();
-        plannerCells.clear();
 
         // Header row: empty corner + days Mon..Sun
         int row = 0;
@@ -189,36 +430,41 @@ public class ViewApp extends Application {
         row++;
 
         // Rows for active slots
-        for (MealSlot slot : mealController.getActiveSlots()) {
+        for (MealSlot slot : activeSlots) {
             plannerGrid.add(new Label(slot.getDisplayName()), 0, row);
             col = 1;
             for (DayOfWeek d : daysMonToSun()) {
-                ComboBox<Recipe> combo = createRecipeComboBox();
-                Button clearBtn = new Button("×");
-                clearBtn.setMinWidth(28);
-                clearBtn.setOnAction(e -> {
-                    mealController.clear(d, slot);
-                    combo.getSelectionModel().clearSelection();
-                    status("Cleared " + slot.getDisplayName() + " on " + d);
-                });
-                HBox cell = new HBox(4, combo, clearBtn);
+                HBox cell = plannerCellNodes.computeIfAbsent(d, k -> new EnumMap<>(MealSlot.class))
+                        .computeIfAbsent(slot, k -> createPlannerCell(d, slot));
                 plannerGrid.add(cell, col++, row);
-                plannerCells.computeIfAbsent(d, k -> new EnumMap<>(MealSlot.class)).put(slot, combo);
             }
             row++;
         }
     }
 
-    private ComboBox<Recipe> createRecipeComboBox() {
-        ComboBox<Recipe> combo = new ComboBox<>(recipes);
+    private HBox createPlannerCell(DayOfWeek day, MealSlot slot) {
+        ComboBox<Recipe> combo = createRecipeComboBox(slot);
+        combo.valueProperty().addListener((obs, old, val) ->
+                metrics.time("onPlannerSelection", () -> onPlannerSelection(day, slot, combo, old, val)));
+        Button clearBtn = new Button("×");
+        clearBtn.setMinWidth(28);
+        clearBtn.setOnAction(e -> metrics.timeAsync("onClearSlot", () -> {
+            selectSilently(combo, null);
+            status("Cleared " + slot.getDisplayName() + " on " + day);
+            return model.clearSlot(day, slot);
+        }));
+        plannerCells.computeIfAbsent(day, k -> new EnumMap<>(MealSlot.class)).put(slot, combo);
+        return new HBox(4, combo, clearBtn);
+    }
+
+    private ComboBox<Recipe> createRecipeComboBox(MealSlot slot) {
+        // Only slot-compatible recipes are offered; refreshList keeps the list in step with the search
+        ComboBox<Recipe> combo = new ComboBox<>(slotRecipes(slot));
         combo.setPrefWidth(180);
         combo.setConverter(new StringConverter<>() {
             @Override public String toString(Recipe r) { return r == null ? "" : r.getTitle(); }
             @Override public Recipe fromString(String s) { return null; }
         });
-        combo.valueProperty().addListener((obs, old, val) -> {
-            // Listener set per cell later with context (day, slot) via userData
-        });
         return combo;
     }
 
@@ -241,72 +487,62 @@ public class ViewApp extends Application {
     }
 
     /**
-     * Rebuild the items and selection for every planner ComboBox.
-     * - Filters the available recipes per cell so only slot-compatible options are shown.
-     * - Keeps the existing selection if it is still valid after filtering; otherwise clears it.
-     * - Attaches a guarded value listener that silently reverts incompatible selections
-     *   (using the suppressPlannerListener flag) to avoid error pop-ups.
+     * Sync the selection of every planner ComboBox with the model.
+     * - Items come from the shared per-slot lists, so nothing is rebuilt here.
+     * - Keeps the planned recipe selected if it is still offered; otherwise clears the selection.
+     * - Selection changes are made with the suppressPlannerListener flag set, so they are not
+     *   written back to the model.
      */
     private void refreshPlannerSelections() {
-        // Make sure each ComboBox shows the correct selection from the model.
+        metrics.time("refreshPlannerSelections", this::syncPlannerSelections);
+    }
+
+    private void syncPlannerSelections() {
         for (Map.Entry<DayOfWeek, Map<MealSlot, ComboBox<Recipe>>> e : plannerCells.entrySet()) {
             DayOfWeek day = e.getKey();
             for (Map.Entry<MealSlot, ComboBox<Recipe>> ce : e.getValue().entrySet()) {
-                MealSlot slot = ce.getKey();
                 ComboBox<Recipe> combo = ce.getValue();
+                Map<MealSlot, Recipe> dayPlan = plannedRecipes.getOrDefault(day, Map.of());
+                // Offered in the combo = listed and compatible with the slot
+                Recipe planned = Optional.ofNullable(dayPlan.get(ce.getKey()))
+                        .filter(r -> listedRecipes.contains(r) && MealPlanService.isCompatible(ce.getKey(), r)).orElse(null);
+                if (combo.getValue() != planned) selectSilently(combo, planned);
+            }
+        }
+    }
 
-                // Filter available recipes per slot so only compatible choices appear
-                List<Recipe> compatible = recipes.stream()
-                        .filter(r -> isCompatibleWithSlot(slot, r))
-                        .collect(Collectors.toList());
-                combo.setItems(FXCollections.observableArrayList(compatible));
-
-                Optional<Recipe> maybe = mealController.getRecipe(day, slot);
-                if (maybe.isPresent() && compatible.contains(maybe.get())) {
-                    combo.getSelectionModel().select(maybe.get());
-                } else {
-                    combo.getSelectionModel().clearSelection();
-                }
-                // Attach listener with proper context
-                combo.valueProperty().addListener((obs, old, val) -> {
-                    if (suppressPlannerListener) return;
-                    if (val != null) {
-                        // Pre-check to avoid showing any error dialogs
-                        if (!isCompatibleWithSlot(slot, val)) {
-                            // silently revert
-                            suppressPlannerListener = true;
-                            try {
-                                if (old != null) {
-                                    combo.getSelectionModel().select(old);
-                                } else {
-                                    combo.getSelectionModel().clearSelection();
-                                }
-                            } finally {
-                                suppressPlannerListener = false;
-                            }
-                            status("This recipe cannot be planned in this slot");
-                            return;
-                        }
-                        try {
-                            mealController.setRecipe(day, slot, val);
-                            status("Planned '" + val.getTitle() + "' for " + shortDay(day) + " (" + slot.getDisplayName() + ")");
-                        } catch (IllegalArgumentException ex) {
-                            // Safety net: revert silently without error pop-up
-                            suppressPlannerListener = true;
-                            try {
-                                if (old != null) {
-                                    combo.getSelectionModel().select(old);
-                                } else {
-                                    combo.getSelectionModel().clearSelection();
-                                }
-                            } finally {
-                                suppressPlannerListener = false;
-                            }
-                            status("Selection reverted: incompatible with slot");
-                        }
-                    }
+    /**
+     * The single value listener of a planner cell. Silently reverts incompatible
+     * selections (no error pop-ups) and otherwise plans the recipe.
+     */
+    private void onPlannerSelection(DayOfWeek day, MealSlot slot, ComboBox<Recipe> combo, Recipe old, Recipe val) {
+        if (suppressPlannerListener || val == null) return;
+        // Pre-check to avoid showing any error dialogs
+        if (!MealPlanService.isCompatible(slot, val)) {
+            selectSilently(combo, old);
+            status("This recipe cannot be planned in this slot");
+            return;
+        }
+        onFxThread(model.setRecipe(day, slot, val),
+                done -> status("Planned '" + val.getTitle() + "' for " + shortDay(day) + " (" + slot.getDisplayName() + ")"),
+                ex -> {
+                    // Safety net: revert silently without error pop-up
+                    selectSilently(combo, old);
+                    status("Selection reverted: incompatible with slot");
                 });
+    }
+
+    // Change a planner combo's selection without writing it back to the model
+    private void selectSilently(ComboBox<Recipe> combo, Recipe recipe) {
+        suppressPlannerListener = true;
+        try {
+            if (recipe != null) {
+                combo.getSelectionModel().select(recipe);
+            } else {
+                combo.getSelectionModel().clearSelection();
             }
+        } finally {
+            suppressPlannerListener = false;
         }
     }
 
@@ -344,10 +580,11 @@ public class ViewApp extends Application {
         buttons.setAlignment(Pos.CENTER_LEFT);
         grid.add(buttons, 1, r);
 
-        addBtn.setOnAction(e -> onAdd());
-        updateBtn.setOnAction(e -> onUpdate());
+        // Asynchronous handlers are timed until their result has been applied on the FX thread
+        addBtn.setOnAction(e -> metrics.timeAsync("onAdd", this::onAdd));
+        updateBtn.setOnAction(e -> metrics.timeAsync("onUpdate", this::onUpdate));
         deleteBtn.setOnAction(e -> onDelete());
-        clearBtn.setOnAction(e -> clearForm());
+        clearBtn.setOnAction(e -> metrics.time("clearForm", this::clearForm));
 
         return grid;
     }
@@ -364,20 +601,15 @@ public class ViewApp extends Application {
         ));
         sortBox.setValue("Sort: Default");
 
-        sortBox.setOnAction(e -> {
-            String selected = sortBox.getValue();
-            if (selected.contains("Title")) {
-                controller.sortRecipes(new SortByTitle());
-            } else if (selected.contains("Ingredients")) {
-                controller.sortRecipes(new SortByIngredientCount());
-            }
-            refreshList(); // refresh visible list after sorting
-        });
+        sortBox.setOnAction(e -> metrics.timeAsync("onSort", () -> onSort(sortBox.getValue())));
 
         // Tag filter
         tagFilterBox = new ComboBox<>();
+        // Items are plain tags (the value searched for); cells add the recipe count
+        tagFilterBox.setCellFactory(lv -> new TagFacetCell());
+        tagFilterBox.setButtonCell(new TagFacetCell());
         refreshTagFilterOptions();
-        tagFilterBox.setOnAction(e -> refreshList());
+        tagFilterBox.setOnAction(e -> metrics.timeAsync("onTagFilter", this::refreshList));
 
         Button searchBtn = new Button("Search");
         Button resetBtn = new Button("Reset");
@@ -392,27 +624,45 @@ public class ViewApp extends Application {
         box.setAlignment(Pos.CENTER_LEFT);
         box.setPadding(new Insets(0, 0, 10, 0));
 
-        searchBtn.setOnAction(e -> doSearch());
-        resetBtn.setOnAction(e -> {
+        searchBtn.setOnAction(e -> metrics.timeAsync("onSearch", this::doSearch));
+        resetBtn.setOnAction(e -> metrics.timeAsync("onReset", () -> {
             searchField.clear();
             sortBox.setValue("Sort: Default");
             if (tagFilterBox.getItems().contains("All tags")) {
                 tagFilterBox.setValue("All tags");
             }
-            refreshList();
-        });
+            return refreshList();
+        }));
 
-        searchField.setOnKeyPressed(e -> { if (e.getCode() == KeyCode.ENTER) doSearch(); });
+        searchField.setOnKeyPressed(e -> { if (e.getCode() == KeyCode.ENTER) metrics.timeAsync("onSearch", this::doSearch); });
+        // Live search: restart the debounce timer on every keystroke
+        searchDebounce.setOnFinished(e -> refreshList());
+        searchField.textProperty().addListener((obs, old, text) -> searchDebounce.playFromStart());
         return box;
     }
 
-    private void doSearch() {
-        refreshList();
+    private CompletableFuture<Void> onSort(String selected) {
+        RecipeSortStrategy strategy = null;
+        if (selected.contains("Title")) {
+            strategy = new SortByTitle();
+        } else if (selected.contains("Ingredients")) {
+            strategy = new SortByIngredientCount();
+        }
+        if (strategy == null) return refreshList();
+        // refresh visible list once the model is sorted
+        return model.sortRecipes(strategy).handleAsync((done, ex) -> {
+            if (ex == null) return refreshList();
+            error("Cannot sort recipes: " + unwrap(ex).getMessage());
+            return CompletableFuture.<Void>completedFuture(null);
+        }, Platform::runLater).thenCompose(applied -> applied);
+    }
+
+    private CompletableFuture<Void> doSearch() {
+        searchDebounce.stop();
         String q = searchField.getText();
-        int count = recipes.size();
-        status("Found " + count + " recipe(s) for '" + (q == null ? "" : q) + "'" +
+        return refreshList(() -> status("Found " + recipes.size() + " recipe(s) for '" + (q == null ? "" : q) + "'" +
                 (tagFilterBox != null && tagFilterBox.getValue() != null && !"All tags".equals(tagFilterBox.getValue())
-                        ? (" with tag '" + tagFilterBox.getValue() + "'") : ""));
+                        ? (" with tag '" + tagFilterBox.getValue() + "'") : "")));
     }
 
     private void populateForm(Recipe r) {
@@ -435,56 +685,60 @@ public class ViewApp extends Application {
         status("Form cleared");
     }
 
-    private void onAdd() {
+    private CompletableFuture<Void> onAdd() {
+        String title;
         try {
-            Recipe r = controller.create(
-                    valueOrThrow(titleField.getText(), "Title is required"),
-                    defaultString(descriptionArea.getText()),
-                    parseIngredients(ingredientsArea.getText()),
-                    parseTags(tagsField.getText())
-            );
-            recipes.add(r);
-            listView.getSelectionModel().select(r);
-            status("Added recipe: " + r.getTitle());
+            title = valueOrThrow(titleField.getText(), "Title is required");
         } catch (IllegalArgumentException ex) {
             error("Cannot add recipe: " + ex.getMessage());
+            return CompletableFuture.completedFuture(null);
         }
+        CompletableFuture<Recipe> created = model.createRecipe(
+                title,
+                defaultString(descriptionArea.getText()),
+                parseIngredients(ingredientsArea.getText()),
+                parseTags(tagsField.getText())
+        );
+        return onFxThread(created, r -> {
+            addListed(r);
+            listView.getSelectionModel().select(r);
+            status("Added recipe: " + r.getTitle());
+        }, ex -> error("Cannot add recipe: " + ex.getMessage()));
     }
 
-    private void onUpdate() {
+    private CompletableFuture<Void> onUpdate() {
         Recipe sel = listView.getSelectionModel().getSelectedItem();
         if (sel == null) {
             info("Select a recipe to update");
-            return;
+            return CompletableFuture.completedFuture(null);
         }
 
         try {
             // 1. Maak het nieuwe recept met de Builder
             Recipe updatedRecipe = new Recipe.Builder(titleField.getText())
+                    .descriptionStorage(recipeService.descriptionStorage())
                     .description(descriptionArea.getText())
                     .ingredients(parseIngredients(ingredientsArea.getText()))
                     .tags(parseTags(tagsField.getText()))
                     .build();
 
-            // 2. Roep replace aan en vang het resultaat op in een Optional
-            Optional<Recipe> result = controller.replace(sel, updatedRecipe);
-
-            // 3. Controleer of het gelukt is met .isPresent()
-            if (result.isPresent()) {
-                // Houd de weekplanner in sync: vervang oude referenties (immutability => nieuw object)
-                mealController.replaceRecipeReferences(sel, updatedRecipe);
-
-                // Ververs de zichtbare lijsten en planner dropdowns (refilter op tags)
-                refreshList();
-
-                listView.getSelectionModel().select(updatedRecipe); // Selecteer het nieuwe object
-                status("Updated recipe: " + updatedRecipe.getTitle());
-            } else {
-                error("Failed to update recipe in the list");
-            }
+            // 2. Laat de facade het recept vervangen; die houdt ook de weekplanner in sync
+            //    (immutability => nieuw object, oude referenties worden vervangen)
+            return onFxThread(model.replaceRecipe(sel, updatedRecipe), result -> {
+                // 3. Controleer of het gelukt is met .isPresent()
+                if (result.isPresent()) {
+                    // Ververs de zichtbare lijsten en planner dropdowns (refilter op tags);
+                    // selecteer het nieuwe object zodra de zoekresultaten binnen zijn
+                    refreshList(() -> listView.getSelectionModel().select(updatedRecipe));
+                    status("Updated recipe: " + updatedRecipe.getTitle());
+                } else {
+                    error("Failed to update recipe in the list");
+                }
+            }, ex -> error("Cannot update recipe: " + ex.getMessage()));
 
         } catch (Exception ex) {
             error("Cannot update recipe: " + ex.getMessage());
+            return CompletableFuture.completedFuture(null);
         }
     }
     private void onDelete() {
@@ -499,51 +753,117 @@ public class ViewApp extends Application {
         alert.setContentText("This action cannot be undone.");
         Optional<ButtonType> result = alert.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            boolean removed = controller.remove(sel);
-            if (removed) {
-                recipes.remove(sel);
-                clearForm();
-                status("Deleted recipe: " + sel.getTitle());
-            } else {
-                error("Failed to delete recipe");
-            }
+            // Timed from the confirmation on: the dialog itself is the user's think time
+            metrics.timeAsync("onDelete", () -> onFxThread(model.removeRecipe(sel), removed -> {
+                if (removed) {
+                    removeListed(sel);
+                    clearForm();
+                    status("Deleted recipe: " + sel.getTitle());
+                } else {
+                    error("Failed to delete recipe");
+                }
+            }, ex -> error("Failed to delete recipe: " + ex.getMessage())));
         }
     }
 
-    private void refreshList() {
+    private CompletableFuture<Void> refreshList() {
+        return refreshList(null);
+    }
+
+    /**
+     * Re-run the current title/tag query on a background (virtual) thread and apply the
+     * results on the FX thread. A newer query cancels the one still in flight, and stale
+     * results are dropped by comparing generations. The per-slot lists and the membership
+     * set are built on the search thread too; the FX thread only swaps them in.
+     * The returned future completes once the results are shown, and is cancelled when a
+     * newer query supersedes this one.
+     */
+    private CompletableFuture<Void> refreshList(Runnable onApplied) {
         // rebuild tag filter options (preserving current selection)
         refreshTagFilterOptions();
 
         String q = searchField == null ? null : searchField.getText();
         String selectedTag = (tagFilterBox == null) ? null : tagFilterBox.getValue();
-        String query = (q == null) ? "" : q.trim().toLowerCase(Locale.ROOT);
-        boolean filterByTitle = !query.isEmpty();
-        boolean filterByTag = (selectedTag != null && !selectedTag.equals("All tags"));
-
-        List<Recipe> base = controller.listAll();
-        List<Recipe> filtered = base.stream()
-                .filter(r -> !filterByTitle || r.getTitle().toLowerCase(Locale.ROOT).contains(query))
-                .filter(r -> !filterByTag || r.getTags().contains(selectedTag.toLowerCase(Locale.ROOT)))
-                .collect(Collectors.toList());
+        String tag = (selectedTag == null || selectedTag.equals("All tags")) ? null : selectedTag;
+
+        long generation = ++searchGeneration;
+        if (pendingSearch != null) pendingSearch.cancel(true);
+        pendingSearch = model.search(q, tag);
+        CompletableFuture<Void> applied = new CompletableFuture<>();
+        pendingSearch.whenComplete((filtered, ex) -> {
+            if (ex != null) applied.completeExceptionally(ex);
+        });
+        pendingSearch.thenAccept(filtered -> {
+            // Still on the search thread: nothing here is attached to the scene yet
+            ObservableList<Recipe> listed = FXCollections.observableList(new ArrayList<>(filtered));
+            Map<MealSlot, ObservableList<Recipe>> bySlot = new EnumMap<>(MealSlot.class);
+            for (MealSlot slot : MealSlot.values()) {
+                bySlot.put(slot, FXCollections.observableList(filtered.stream()
+                        .filter(r -> MealPlanService.isCompatible(slot, r)).collect(Collectors.toCollection(ArrayList::new))));
+            }
+            Set<Recipe> members = new HashSet<>(filtered);
+            Platform.runLater(() -> metrics.time("refreshList.apply", () -> {
+                // a cancelled (superseded) query never gets here; a late one is dropped
+                if (generation != searchGeneration) {
+                    applied.cancel(false);
+                    return;
+                }
+                recipes = listed;
+                listView.setItems(listed);
+                listedRecipes = members;
+                slotRecipes.putAll(bySlot);
+                // Swapping the combo items may clear their selection; that is not a plan change
+                suppressPlannerListener = true;
+                try {
+                    for (Map<MealSlot, ComboBox<Recipe>> day : plannerCells.values()) {
+                        day.forEach((slot, combo) -> combo.setItems(bySlot.get(slot)));
+                    }
+                } finally {
+                    suppressPlannerListener = false;
+                }
+                // when recipe list changes, update planner selections to match references
+                refreshPlannerSelections();
+                if (onApplied != null) onApplied.run();
+                applied.complete(null);
+            }));
+        });
+        return applied;
+    }
 
-        recipes.setAll(filtered);
-        // when recipe list changes, update planner selections to match references
-        refreshPlannerSelections();
+    private ObservableList<Recipe> slotRecipes(MealSlot slot) {
+        return slotRecipes.computeIfAbsent(slot, s -> FXCollections.observableArrayList());
+    }
+
+    // Single-recipe changes patch the lists in place instead of re-running the search
+    private void addListed(Recipe r) {
+        recipes.add(r);
+        listedRecipes.add(r);
+        for (MealSlot slot : MealSlot.values()) {
+            if (MealPlanService.isCompatible(slot, r)) slotRecipes(slot).add(r);
+        }
+    }
+
+    private void removeListed(Recipe r) {
+        recipes.remove(r);
+        listedRecipes.remove(r);
+        for (ObservableList<Recipe> compatible : slotRecipes.values()) compatible.remove(r);
     }
 
     private void refreshTagFilterOptions() {
         if (tagFilterBox == null) return;
+        model.tagFacets().thenAccept(facets -> Platform.runLater(() ->
+                metrics.time("refreshTagFilterOptions", () -> applyTagFilterOptions(facets))));
+    }
+
+    private void applyTagFilterOptions(Map<String, Integer> facets) {
+        if (facets.equals(tagFacetCounts)) return;
+        tagFacetCounts = facets;
         String current = tagFilterBox.getValue();
-        Set<String> tags = controller.listAll().stream()
-                .flatMap(r -> r.getTags().stream())
-                .collect(Collectors.toCollection(TreeSet::new));
         List<String> items = new ArrayList<>();
         items.add("All tags");
-        items.addAll(tags);
-        ObservableList<String> existing = tagFilterBox.getItems();
-        if (!existing.equals(FXCollections.observableArrayList(items))) {
-            tagFilterBox.setItems(FXCollections.observableArrayList(items));
-        }
+        items.addAll(facets.keySet());
+        // New items list so visible cells pick up changed counts as well
+        tagFilterBox.setItems(FXCollections.observableArrayList(items));
         if (current != null && items.contains(current)) {
             tagFilterBox.setValue(current);
         } else {
@@ -551,30 +871,17 @@ public class ViewApp extends Application {
         }
     }
 
-    // Determine if a recipe is allowed in a given meal slot based on its tags
-    private boolean isCompatibleWithSlot(MealSlot slot, Recipe recipe) {
-        if (recipe == null) return true;
-        Set<String> tags = recipe.getTags();
-        if (tags == null || tags.isEmpty()) return true; // no meal-type tags means no restriction
-        boolean hasBreakfast = tags.contains("breakfast");
-        boolean hasLunch = tags.contains("lunch");
-        boolean hasDinner = tags.contains("dinner");
-        boolean hasSnack = tags.contains("snack") || tags.contains("snacks");
-
-        // If none of the meal-type tags present, allow all slots
-        if (!hasBreakfast && !hasLunch && !hasDinner && !hasSnack) return true;
-
-        switch (slot) {
-            case BREAKFAST:
-                return hasBreakfast;
-            case LUNCH:
-                return hasLunch;
-            case DINNER:
-                return hasDinner;
-            case SNACKS:
-                return hasSnack;
-            default:
-                return true;
+    // Tag filter cell: "dinner (312)"
+    private class TagFacetCell extends ListCell<String> {
+        @Override
+        protected void updateItem(String tag, boolean empty) {
+            super.updateItem(tag, empty);
+            if (empty || tag == null) {
+                setText(null);
+            } else {
+                Integer count = tagFacetCounts.get(tag);
+                setText(count == null ? tag : tag + " (" + count + ")");
+            }
         }
     }
 
@@ -589,7 +896,7 @@ public class ViewApp extends Application {
     private static List<String> parseIngredients(String text) {
         if (text == null) return List.of();
         List<String> list = Arrays.stream(text.split("\r?\n"))
-                .map(String::strip)
+                .map(IngredientCanonicalizer::tidy)
                 .filter(s -> !s.isEmpty())
                 .collect(Collectors.toList());
         return list;
@@ -618,89 +925,111 @@ public class ViewApp extends Application {
         status(msg);
     }
 
-    private void seedDemoData() {
+    private static DescriptionBlobStore openDescriptionStore() {
+        try {
+            return DescriptionBlobStore.createTemp();
+        } catch (IOException ex) {
+            System.err.println("Keeping descriptions on the heap: " + ex.getMessage());
+            return null;
+        }
+    }
+
+    // Demo recipes are only built here; they enter the model through the facade
+    private List<Recipe> demoRecipes() {
+        List<Recipe> demo = new ArrayList<>();
         // Dinner examples
-        controller.create(
+        demo.add(recipe(
                 "Spaghetti Aglio e Olio",
                 "Classic Italian pasta with garlic, olive oil, and chili flakes.",
                 List.of("spaghetti", "garlic", "olive oil", "chili flakes", "parsley", "salt"),
                 List.of("vegetarian", "quick", "budget", "dinner")
-        );
-        controller.create(
+        ));
+        demo.add(recipe(
                 "Chicken Curry",
                 "Creamy chicken curry with coconut milk.",
                 Arrays.asList("chicken", "onion", "garlic", "ginger", "curry paste", "coconut milk", "salt"),
                 List.of("dinner", "asian")
-        );
-        controller.create(
+        ));
+        demo.add(recipe(
                 "Grilled Salmon",
                 "Simple grilled salmon with lemon and herbs.",
                 Arrays.asList("salmon", "lemon", "olive oil", "dill", "salt", "pepper"),
                 List.of("dinner", "low-carb")
-        );
+        ));
 
         // Lunch examples
-        controller.create(
+        demo.add(recipe(
                 "Caesar Salad",
                 "Crisp romaine with classic Caesar dressing.",
                 Arrays.asList("romaine", "croutons", "parmesan", "caesar dressing", "lemon"),
                 List.of("lunch", "quick")
-        );
-        controller.create(
+        ));
+        demo.add(recipe(
                 "Tomato Soup",
                 "Creamy tomato soup.",
                 Arrays.asList("tomatoes", "onion", "garlic", "vegetable broth", "cream", "basil"),
                 List.of("lunch", "vegetarian")
-        );
+        ));
 
         // Breakfast examples
-        controller.create(
+        demo.add(recipe(
                 "Pancakes",
                 "Fluffy pancakes with maple syrup.",
                 Arrays.asList("flour", "milk", "eggs", "baking powder", "butter", "salt"),
                 List.of("breakfast", "kids")
-        );
-        controller.create(
+        ));
+        demo.add(recipe(
                 "Oatmeal Bowl",
                 "Warm oatmeal with banana and honey.",
                 Arrays.asList("oats", "milk", "banana", "honey", "cinnamon"),
                 List.of("breakfast", "healthy")
-        );
+        ));
 
         // Snack examples
-        controller.create(
+        demo.add(recipe(
                 "Fruit Yogurt Parfait",
                 "Layered yogurt with fruits and granola.",
                 Arrays.asList("yogurt", "strawberries", "blueberries", "granola", "honey"),
                 List.of("snack", "healthy")
-        );
-        controller.create(
+        ));
+        demo.add(recipe(
                 "Hummus & Veggies",
                 "Homemade hummus served with carrot and cucumber sticks.",
                 Arrays.asList("chickpeas", "tahini", "lemon", "garlic", "olive oil", "carrot", "cucumber"),
                 List.of("snacks", "vegan")
-        );
+        ));
 
         // General (no meal-type tag; can be planned anywhere)
-        controller.create(
+        demo.add(recipe(
                 "Banana Bread",
                 "Moist banana bread with walnuts.",
                 Arrays.asList("bananas", "flour", "eggs", "sugar", "butter", "walnuts"),
                 List.of("baking", "sweet")
-        );
-        controller.create(
+        ));
+        demo.add(recipe(
                 "Avocado Toast",
                 "Sourdough toast topped with smashed avocado and chili flakes.",
                 Arrays.asList("bread", "avocado", "lemon", "chili flakes", "salt", "pepper"),
                 List.of("vegetarian", "quick")
-        );
+        ));
+        return demo;
+    }
+
+    private Recipe recipe(String title, String description, List<String> ingredients, List<String> tags) {
+        return new Recipe.Builder(title).descriptionStorage(recipeService.descriptionStorage())
+                .description(description).ingredients(ingredients).tags(tags).build();
     }
 
     // ========== Grocery List UI ==========
     private VBox createGroceryPane() {
-        groceryItemsBox = new VBox(4);
-        ScrollPane scroll = new ScrollPane(groceryItemsBox);
-        scroll.setFitToWidth(true);
+        ListView<GroceryRow> groceryView = new ListView<>(groceryItems);
+        groceryView.setCellFactory(CheckBoxListCell.forListView(row -> row.checked, new StringConverter<>() {
+            @Override public String toString(GroceryRow row) { return row == null ? "" : groceryLabel(row.name, row.quantity.get()); }
+            @Override public GroceryRow fromString(String s) { return null; }
+        }));
+        Label emptyLabel = new Label("No items. Plan recipes to populate the list.");
+        emptyLabel.setStyle("-fx-font-style: italic; -fx-text-fill: #666;");
+        groceryView.setPlaceholder(emptyLabel);
 
         // Add-manual section
         TextField addNameField = new TextField();
@@ -714,19 +1043,18 @@ public class ViewApp extends Application {
         addBox.setAlignment(Pos.CENTER_LEFT);
         addBox.setPadding(new Insets(0, 0, 6, 0));
 
-        addItemBtn.setOnAction(e -> {
+        addItemBtn.setOnAction(e -> metrics.timeAsync("onAddGroceryItem", () -> {
             String name = addNameField.getText() == null ? "" : addNameField.getText().trim();
             int qty = addQtySpinner.getValue() == null ? 1 : addQtySpinner.getValue();
             if (name.isEmpty()) {
                 info("Please enter an item name");
-                return;
+                return CompletableFuture.completedFuture(null);
             }
-            be.uantwerpen.sd.project.GroceryList.GroceryList.getInstance().addManualItem(name, qty);
             addNameField.clear();
             addQtySpinner.getValueFactory().setValue(1);
-            rebuildGroceryUI();
             status("Added '" + name + "' x" + qty + " to grocery list");
-        });
+            return model.addManualItem(name, qty);
+        }));
 
         Button refreshBtn = new Button("Refresh (remove checked)");
         Button baselineBtn = new Button("Start New List");
@@ -736,62 +1064,99 @@ public class ViewApp extends Application {
         controls.setAlignment(Pos.CENTER_LEFT);
         controls.setPadding(new Insets(0, 0, 6, 0));
 
-        refreshBtn.setOnAction(e -> {
+        refreshBtn.setOnAction(e -> metrics.timeAsync("onRemoveChecked", () -> {
             // Collect checked items and ask GroceryList to remove them (manual or auto)
             List<String> toRemove = new ArrayList<>();
-            for (javafx.scene.Node n : groceryItemsBox.getChildren()) {
-                if (n instanceof CheckBox) {
-                    CheckBox cb = (CheckBox) n;
-                    if (cb.isSelected()) {
-                        Object key = cb.getUserData();
-                        if (key != null) toRemove.add(key.toString());
-                    }
-                }
+            for (GroceryRow row : groceryItems) {
+                if (row.checked.get()) toRemove.add(row.name);
             }
-            be.uantwerpen.sd.project.GroceryList.GroceryList.getInstance().removeItems(toRemove);
-            rebuildGroceryUI();
             status("Removed " + toRemove.size() + " item(s) from grocery list");
-        });
-        baselineBtn.setOnAction(e -> {
+            return model.removeGroceryItems(toRemove);
+        }));
+        baselineBtn.setOnAction(e -> metrics.timeAsync("onStartNewList", () -> {
             // Treat all current auto items as completed; future additions will appear fresh
-            be.uantwerpen.sd.project.GroceryList.GroceryList.getInstance().setBaselineToCurrentAuto();
-            rebuildGroceryUI();
             status("Started a new list from current plan (baseline set)");
-        });
-        selectAllBtn.setOnAction(e -> {
-            for (javafx.scene.Node n : groceryItemsBox.getChildren()) {
-                if (n instanceof CheckBox) ((CheckBox) n).setSelected(true);
+            return model.startNewGroceryList();
+        }));
+        selectAllBtn.setOnAction(e -> metrics.time("onSelectAll", () -> groceryItems.forEach(row -> row.checked.set(true))));
+        deselectAllBtn.setOnAction(e -> metrics.time("onDeselectAll", () -> groceryItems.forEach(row -> row.checked.set(false))));
+
+        groceryRoot = new VBox(6, addBox, controls, groceryView);
+        VBox.setVgrow(groceryView, Priority.ALWAYS);
+
+        // Patch rows from GroceryList change events (replays current items on registration)
+        model.observeGroceries(new GroceryListObserver() {
+            @Override
+            public void onItemAdded(String name, int quantity) {
+                runOnFxThread(() -> metrics.time("observer.grocery", () -> addGroceryRow(name, quantity)));
             }
-        });
-        deselectAllBtn.setOnAction(e -> {
-            for (javafx.scene.Node n : groceryItemsBox.getChildren()) {
-                if (n instanceof CheckBox) ((CheckBox) n).setSelected(false);
+
+            @Override
+            public void onItemRemoved(String name, int previousQuantity) {
+                runOnFxThread(() -> metrics.time("observer.grocery", () -> removeGroceryRow(name)));
             }
-        });
 
-        groceryRoot = new VBox(6, addBox, controls, scroll);
-        VBox.setVgrow(scroll, Priority.ALWAYS);
-        rebuildGroceryUI();
+            @Override
+            public void onQuantityChanged(String name, int oldQuantity, int newQuantity) {
+                runOnFxThread(() -> metrics.time("observer.grocery", () -> {
+                    GroceryRow row = groceryRows.get(name);
+                    if (row != null) row.quantity.set(newQuantity);
+                }));
+            }
+        });
         return groceryRoot;
     }
 
-    private void rebuildGroceryUI() {
-        if (groceryItemsBox == null) return;
-        Map<String, Integer> items = be.uantwerpen.sd.project.GroceryList.GroceryList.getInstance().getItems();
-        groceryItemsBox.getChildren().clear();
-        if (items.isEmpty()) {
-            Label empty = new Label("No items. Plan recipes to populate the list.");
-            empty.setStyle("-fx-font-style: italic; -fx-text-fill: #666;");
-            groceryItemsBox.getChildren().add(empty);
+    private void addGroceryRow(String name, int quantity) {
+        GroceryRow row = groceryRows.get(name);
+        if (row != null) {
+            row.quantity.set(quantity);
             return;
         }
-        for (Map.Entry<String, Integer> e : items.entrySet()) {
-            String name = e.getKey();
-            int count = e.getValue();
-            String label = count > 1 ? (name + " x" + count) : name;
-            CheckBox cb = new CheckBox(label);
-            cb.setUserData(name); // store raw key
-            groceryItemsBox.getChildren().add(cb);
+        row = new GroceryRow(name, quantity);
+        groceryRows.put(name, row);
+        groceryItems.add(row);
+    }
+
+    private void removeGroceryRow(String name) {
+        GroceryRow row = groceryRows.remove(name);
+        if (row != null) groceryItems.remove(row);
+    }
+
+    private static String groceryLabel(String name, int count) {
+        return count > 1 ? (name + " x" + count) : name;
+    }
+
+    // One line of the grocery pane; the check state is kept here, not in a cell node
+    private static final class GroceryRow {
+        final String name; // raw key as reported by GroceryList
+        final IntegerProperty quantity;
+        final BooleanProperty checked = new SimpleBooleanProperty(false);
+
+        GroceryRow(String name, int quantity) {
+            this.name = name;
+            this.quantity = new SimpleIntegerProperty(quantity);
         }
     }
-}
\ No newline at end of file
+
+    // Grocery events arrive on whichever thread changed the model
+    private static void runOnFxThread(Runnable r) {
+        if (Platform.isFxApplicationThread()) r.run(); else Platform.runLater(r);
+    }
+
+    // Hand a model result (or its unwrapped failure) back to the FX thread; completes once handled
+    private static <T> CompletableFuture<Void> onFxThread(CompletableFuture<T> future, Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
+        return future.handleAsync((value, ex) -> {
+            if (ex == null) {
+                onSuccess.accept(value);
+            } else {
+                onFailure.accept(unwrap(ex));
+            }
+            return null;
+        }, Platform::runLater);
+    }
+
+    private static Throwable unwrap(Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+    }
+}
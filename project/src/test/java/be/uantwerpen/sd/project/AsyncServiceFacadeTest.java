@@ -0,0 +1,118 @@
+package be.uantwerpen.sd.project;
+
+import be.uantwerpen.sd.project.GroceryList.GroceryList;
+import be.uantwerpen.sd.project.Planner.MealPlanService;
+import be.uantwerpen.sd.project.Planner.MealSlot;
+import be.uantwerpen.sd.project.Recipe.Recipe;
+import be.uantwerpen.sd.project.Recipe.RecipeService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncServiceFacadeTest {
+
+    private MealPlanService planner;
+    private AsyncServiceFacade facade;
+
+    @BeforeEach
+    void setUp() {
+        planner = new MealPlanService(GroceryList.newInstance());
+        facade = new AsyncServiceFacade(new RecipeService(), planner);
+    }
+
+    @AfterEach
+    void tearDown() {
+        facade.close();
+    }
+
+    @Test
+    void operationsRunOffTheCallerThreadInSubmissionOrder() throws Exception {
+        Thread caller = Thread.currentThread();
+        List<String> threads = new CopyOnWriteArrayList<>();
+        facade.observePlan(snapshot -> threads.add(Thread.currentThread().getName()));
+
+        Recipe r = facade.createRecipe("Omelette", "", List.of("eggs", "butter"), List.of("breakfast")).get(5, TimeUnit.SECONDS);
+        facade.setRecipe(DayOfWeek.MONDAY, MealSlot.BREAKFAST, r);
+        Map<String, Integer> items = facade.groceryItems().get(5, TimeUnit.SECONDS);
+
+        // The query was queued after the mutation, so it already sees its effect
+        assertEquals(Map.of("eggs", 1, "butter", 1), items);
+        assertFalse(threads.isEmpty());
+        assertTrue(threads.stream().allMatch("model-worker"::equals));
+        assertFalse(threads.contains(caller.getName()));
+    }
+
+    @Test
+    void failedMutationCompletesExceptionally() {
+        Recipe dinner = new Recipe.Builder("Curry").addIngredient("rice").addTag("dinner").build();
+        CompletableFuture<Void> planned = facade.setRecipe(DayOfWeek.TUESDAY, MealSlot.BREAKFAST, dinner);
+
+        CompletionException ex = assertThrows(CompletionException.class, planned::join);
+        assertInstanceOf(IllegalArgumentException.class, ex.getCause());
+        assertTrue(planner.getRecipe(DayOfWeek.TUESDAY, MealSlot.BREAKFAST).isEmpty());
+    }
+
+    @Test
+    void replaceRecipeAlsoUpdatesPlannedReferences() throws Exception {
+        Recipe old = facade.createRecipe("Soup", "", List.of("tomato"), List.of("lunch")).get(5, TimeUnit.SECONDS);
+        facade.setRecipe(DayOfWeek.FRIDAY, MealSlot.LUNCH, old);
+        Recipe updated = new Recipe.Builder("Soup").addIngredient("tomato").addIngredient("basil").addTag("lunch").build();
+
+        Optional<Recipe> result = facade.replaceRecipe(old, updated).get(5, TimeUnit.SECONDS);
+
+        assertEquals(Optional.of(updated), result);
+        assertSame(updated, planner.getRecipe(DayOfWeek.FRIDAY, MealSlot.LUNCH).orElseThrow());
+    }
+
+    @Test
+    void tagFacetsAreCountedAndSorted() throws Exception {
+        facade.addRecipes(List.of(
+                new Recipe.Builder("Pasta").addIngredient("pasta").addTag("quick").addTag("dinner").build(),
+                new Recipe.Builder("Salad").addIngredient("lettuce").addTag("lunch").addTag("quick").build()
+        )).get(5, TimeUnit.SECONDS);
+
+        SortedMap<String, Integer> facets = facade.tagFacets().get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("dinner", "lunch", "quick"), new ArrayList<>(facets.keySet()));
+        assertEquals(2, facets.get("quick"));
+    }
+
+    @Test
+    void searchRunsAsynchronously() throws Exception {
+        facade.addRecipes(List.of(
+                new Recipe.Builder("Pancakes").addIngredient("flour").addTag("breakfast").build(),
+                new Recipe.Builder("Pasta").addIngredient("pasta").addTag("dinner").build()
+        )).get(5, TimeUnit.SECONDS);
+
+        List<Recipe> found = facade.search("pa", "dinner").get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("Pasta"), found.stream().map(Recipe::getTitle).toList());
+    }
+
+    @Test
+    void closeSavesChangesTheAutosaveHasNotWrittenYet(@TempDir Path dir) throws Exception {
+        List<Throwable> failures = new CopyOnWriteArrayList<>();
+        assertEquals(0, facade.openJournal(dir, failures::add).get(5, TimeUnit.SECONDS));
+        Recipe soup = facade.createRecipe("Soup", "", List.of("tomato"), List.of("lunch")).get(5, TimeUnit.SECONDS);
+        facade.setRecipe(DayOfWeek.MONDAY, MealSlot.LUNCH, soup);
+        facade.close();
+
+        RecipeService recipes = new RecipeService();
+        MealPlanService recoveredPlan = new MealPlanService(GroceryList.newInstance());
+        try (AsyncServiceFacade reopened = new AsyncServiceFacade(recipes, recoveredPlan)) {
+            assertEquals(1, reopened.openJournal(dir, failures::add).get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(List.of(), failures);
+        assertEquals("Soup", recoveredPlan.getRecipe(DayOfWeek.MONDAY, MealSlot.LUNCH).orElseThrow().getTitle());
+    }
+}
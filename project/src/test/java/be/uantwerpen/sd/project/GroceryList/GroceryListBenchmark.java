@@ -0,0 +1,137 @@
+package be.uantwerpen.sd.project.GroceryList;
+
+import be.uantwerpen.sd.project.Planner.MealSlot;
+import be.uantwerpen.sd.project.Recipe.Recipe;
+
+import java.lang.management.ManagementFactory;
+import java.time.DayOfWeek;
+import java.util.*;
+
+/**
+ * Manual micro-benchmark (not part of the test suite) comparing the old boxed
+ * {@code LinkedHashMap<String, Integer>} re-aggregation with {@link GroceryList}'s
+ * primitive counters. All variants process the same stream of single-slot edits on a
+ * full 7x4 plan. Reports time and bytes allocated per edit; the primitive
+ * re-aggregation and the GroceryList edits without reads should report (close to)
+ * zero bytes once warmed up. The GroceryList variants that read {@link GroceryList#getItems()}
+ * pay for one view rebuild per read that follows a change.
+ *
+ * Run after {@code mvn test-compile}:
+ * {@code java -cp project/target/classes:project/target/test-classes be.uantwerpen.sd.project.GroceryList.GroceryListBenchmark}
+ */
+public class GroceryListBenchmark {
+
+    private static final int EDITS = 200_000;
+
+    public static void main(String[] args) {
+        List<Recipe> recipes = buildRecipes(64, 15, 400);
+        List<Map<DayOfWeek, Map<MealSlot, Recipe>>> snapshots = buildEditStream(recipes, 1024);
+
+        for (int round = 0; round < 3; round++) {
+            report("boxed re-aggregation", measure(() -> boxedReaggregate(snapshots)));
+            report("primitive re-aggregation", measure(() -> primitiveReaggregate(snapshots)));
+            report("GroceryList edits only", measure(() -> groceryList(snapshots, 0)));
+            report("GroceryList read/64 edits", measure(() -> groceryList(snapshots, 64)));
+            report("GroceryList read per edit", measure(() -> groceryList(snapshots, 1)));
+        }
+    }
+
+    // The pre-optimization algorithm: rebuild the whole boxed map on every notification
+    private static long boxedReaggregate(List<Map<DayOfWeek, Map<MealSlot, Recipe>>> snapshots) {
+        long sink = 0;
+        for (int i = 0; i < EDITS; i++) {
+            Map<String, Integer> next = new LinkedHashMap<>();
+            for (Map<MealSlot, Recipe> day : snapshots.get(i % snapshots.size()).values()) {
+                for (Recipe recipe : day.values()) {
+                    for (String raw : recipe.getIngredients()) {
+                        next.merge(raw.strip(), 1, Integer::sum);
+                    }
+                }
+            }
+            sink += next.size();
+        }
+        return sink;
+    }
+
+    // Same full re-aggregation on the interned IDs and primitive counters GroceryList uses
+    private static long primitiveReaggregate(List<Map<DayOfWeek, Map<MealSlot, Recipe>>> snapshots) {
+        IngredientIds ids = new IngredientIds();
+        IngredientCounts next = new IngredientCounts();
+        long sink = 0;
+        for (int i = 0; i < EDITS; i++) {
+            next.clear();
+            for (Map<MealSlot, Recipe> day : snapshots.get(i % snapshots.size()).values()) {
+                for (Recipe recipe : day.values()) {
+                    List<String> ingredients = recipe.getIngredients();
+                    for (int j = 0; j < ingredients.size(); j++) {
+                        String key = ingredients.get(j).strip();
+                        next.add(ids.intern(key, key), 1);
+                    }
+                }
+            }
+            sink += next.size();
+        }
+        return sink;
+    }
+
+    // Incremental GroceryList, reading the merged view every readEvery edits (0: never)
+    private static long groceryList(List<Map<DayOfWeek, Map<MealSlot, Recipe>>> snapshots, int readEvery) {
+        GroceryList list = GroceryList.newInstance();
+        long sink = 0;
+        for (int i = 0; i < EDITS; i++) {
+            list.onWeekPlanChanged(snapshots.get(i % snapshots.size()));
+            if (readEvery > 0 && i % readEvery == 0) sink += list.getItems().size();
+        }
+        return sink;
+    }
+
+    private static long[] measure(java.util.function.LongSupplier body) {
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long tid = Thread.currentThread().threadId();
+        long bytes = mx.getThreadAllocatedBytes(tid);
+        long start = System.nanoTime();
+        long sink = body.getAsLong();
+        long nanos = System.nanoTime() - start;
+        bytes = mx.getThreadAllocatedBytes(tid) - bytes;
+        return new long[]{nanos, bytes, sink};
+    }
+
+    private static void report(String name, long[] result) {
+        System.out.printf("%-26s %8.2f us/edit %10.1f B/edit%n",
+                name, result[0] / 1000.0 / EDITS, (double) result[1] / EDITS);
+    }
+
+    private static List<Recipe> buildRecipes(int count, int ingredientsPerRecipe, int distinctIngredients) {
+        Random random = new Random(1);
+        List<Recipe> recipes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Recipe.Builder b = new Recipe.Builder("Recipe " + i);
+            for (int j = 0; j < ingredientsPerRecipe; j++) {
+                b.addIngredient("ingredient " + random.nextInt(distinctIngredients));
+            }
+            recipes.add(b.build());
+        }
+        return recipes;
+    }
+
+    // A full plan followed by a cycle of single-slot replacements
+    private static List<Map<DayOfWeek, Map<MealSlot, Recipe>>> buildEditStream(List<Recipe> recipes, int length) {
+        Random random = new Random(2);
+        Map<DayOfWeek, Map<MealSlot, Recipe>> current = new EnumMap<>(DayOfWeek.class);
+        for (DayOfWeek d : DayOfWeek.values()) {
+            Map<MealSlot, Recipe> day = new EnumMap<>(MealSlot.class);
+            for (MealSlot s : MealSlot.values()) day.put(s, recipes.get(random.nextInt(recipes.size())));
+            current.put(d, day);
+        }
+        List<Map<DayOfWeek, Map<MealSlot, Recipe>>> stream = new ArrayList<>();
+        for (int i = 0; i < length; i++) {
+            DayOfWeek d = DayOfWeek.values()[random.nextInt(7)];
+            MealSlot s = MealSlot.values()[random.nextInt(4)];
+            current.get(d).put(s, recipes.get(random.nextInt(recipes.size())));
+            Map<DayOfWeek, Map<MealSlot, Recipe>> snap = new EnumMap<>(DayOfWeek.class);
+            current.forEach((day, slots) -> snap.put(day, new EnumMap<>(slots)));
+            stream.add(snap);
+        }
+        return stream;
+    }
+}
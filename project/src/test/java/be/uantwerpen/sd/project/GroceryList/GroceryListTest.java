@@ -132,6 +132,147 @@ class GroceryListTest {
         assertFalse(gl.getItems().containsKey("Milk"));
     }
 
+    @Test
+    void replacingOneSlotOnlyAdjustsThatRecipe() {
+        Recipe omelet = new Recipe.Builder("Omelet").description("").ingredients(List.of("Eggs", "Milk")).build();
+        Recipe cereal = new Recipe.Builder("Cereal").description("").ingredients(List.of("Milk")).build();
+        Recipe toast = new Recipe.Builder("Toast").description("").ingredients(List.of("Bread")).build();
+
+        Map<DayOfWeek, Map<MealSlot, Recipe>> snapshot = new EnumMap<>(DayOfWeek.class);
+        snapshot.put(DayOfWeek.MONDAY, new EnumMap<>(MealSlot.class));
+        snapshot.get(DayOfWeek.MONDAY).put(MealSlot.BREAKFAST, omelet);
+        snapshot.get(DayOfWeek.MONDAY).put(MealSlot.LUNCH, cereal);
+        gl.onWeekPlanChanged(snapshot);
+        assertEquals(2, gl.getItems().get("Milk"));
+
+        // Swap lunch: cereal's Milk goes away, toast's Bread comes in
+        snapshot.get(DayOfWeek.MONDAY).put(MealSlot.LUNCH, toast);
+        gl.onWeekPlanChanged(snapshot);
+
+        Map<String, Integer> items = gl.getItems();
+        assertEquals(1, items.get("Milk"));
+        assertEquals(1, items.get("Eggs"));
+        assertEquals(1, items.get("Bread"));
+        assertEquals(3, items.size());
+    }
+
+    @Test
+    void dismissalIsClampedWhenPlannedCountDrops() {
+        Recipe cereal = new Recipe.Builder("Cereal").description("").ingredients(List.of("Milk")).build();
+        Recipe shake = new Recipe.Builder("Shake").description("").ingredients(List.of("Milk")).build();
+
+        Map<DayOfWeek, Map<MealSlot, Recipe>> snapshot = new EnumMap<>(DayOfWeek.class);
+        snapshot.put(DayOfWeek.MONDAY, new EnumMap<>(MealSlot.class));
+        snapshot.get(DayOfWeek.MONDAY).put(MealSlot.BREAKFAST, cereal);
+        snapshot.get(DayOfWeek.MONDAY).put(MealSlot.SNACKS, shake);
+        gl.onWeekPlanChanged(snapshot);
+        gl.dismissItems(List.of("Milk")); // baseline 2
+
+        // Dropping one recipe clamps the baseline to 1, so planning it again shows one fresh Milk
+        snapshot.get(DayOfWeek.MONDAY).remove(MealSlot.SNACKS);
+        gl.onWeekPlanChanged(snapshot);
+        assertFalse(gl.getItems().containsKey("Milk"));
+
+        snapshot.get(DayOfWeek.MONDAY).put(MealSlot.SNACKS, shake);
+        gl.onWeekPlanChanged(snapshot);
+        assertEquals(1, gl.getItems().getOrDefault("Milk", 0));
+    }
+
+    @Test
+    void getItemsReturnsStableImmutableSnapshot() {
+        gl.addManualItem("Salt", 1);
+        Map<String, Integer> before = gl.getItems();
+        assertSame(before, gl.getItems(), "Unchanged state should reuse the published view");
+
+        gl.addManualItem("Pepper", 1);
+        assertFalse(before.containsKey("Pepper"), "Published views are never mutated");
+        assertTrue(gl.getItems().containsKey("Pepper"));
+        assertThrows(UnsupportedOperationException.class, () -> gl.getItems().put("Sugar", 1));
+    }
+
+    @Test
+    void canonicalizationGroupsSpellingVariants() {
+        Map<DayOfWeek, Map<MealSlot, Recipe>> snapshot = new EnumMap<>(DayOfWeek.class);
+        snapshot.put(DayOfWeek.MONDAY, new EnumMap<>(MealSlot.class));
+        snapshot.get(DayOfWeek.MONDAY).put(MealSlot.BREAKFAST,
+                new Recipe.Builder("Porridge").ingredients(List.of("Milk", "Oats")).build());
+        snapshot.get(DayOfWeek.MONDAY).put(MealSlot.SNACKS,
+                new Recipe.Builder("Shake").ingredients(List.of("milks", "banana")).build());
+        gl.onWeekPlanChanged(snapshot);
+        gl.addManualItem("milk ", 1);
+
+        Map<String, Integer> items = gl.getItems();
+        assertEquals(3, items.get("Milk"), "One line, shown with the first-seen spelling");
+        assertFalse(items.containsKey("milks"));
+
+        gl.dismissItems(List.of("MILK"));
+        assertEquals(1, gl.getItems().get("Milk"), "Only the manual part remains");
+    }
+
+    @Test
+    void observersReceiveOnlyPerItemDeltas() {
+        List<String> events = new ArrayList<>();
+        GroceryListObserver recorder = new GroceryListObserver() {
+            @Override public void onItemAdded(String name, int quantity) { events.add("+" + name + "=" + quantity); }
+            @Override public void onItemRemoved(String name, int previousQuantity) { events.add("-" + name); }
+            @Override public void onQuantityChanged(String name, int oldQuantity, int newQuantity) {
+                events.add(name + ":" + oldQuantity + "->" + newQuantity);
+            }
+        };
+        gl.addManualItem("Salt", 1);
+        gl.addObserver(recorder);
+        try {
+            assertEquals(List.of("+Salt=1"), events, "Current items are replayed on registration");
+            events.clear();
+
+            Map<DayOfWeek, Map<MealSlot, Recipe>> snapshot = new EnumMap<>(DayOfWeek.class);
+            snapshot.put(DayOfWeek.MONDAY, new EnumMap<>(MealSlot.class));
+            snapshot.get(DayOfWeek.MONDAY).put(MealSlot.LUNCH,
+                    new Recipe.Builder("Soup").ingredients(List.of("Salt", "Carrot")).build());
+            gl.onWeekPlanChanged(snapshot);
+            assertEquals(List.of("Salt:1->2", "+Carrot=1"), events);
+            events.clear();
+
+            gl.addManualItem("Pepper", 2);
+            gl.removeItems(List.of("Carrot"));
+            assertEquals(List.of("+Pepper=2", "-Carrot"), events);
+        } finally {
+            gl.removeObserver(recorder);
+        }
+    }
+
+    @Test
+    void pantryStockIsSubtractedFromAutoItemsOnly() {
+        Map<DayOfWeek, Map<MealSlot, Recipe>> snapshot = new EnumMap<>(DayOfWeek.class);
+        snapshot.put(DayOfWeek.MONDAY, new EnumMap<>(MealSlot.class));
+        Recipe cereal = new Recipe.Builder("Cereal").ingredients(List.of("Milk", "Oats")).build();
+        snapshot.get(DayOfWeek.MONDAY).put(MealSlot.BREAKFAST, cereal);
+        snapshot.get(DayOfWeek.MONDAY).put(MealSlot.SNACKS, cereal);
+        gl.onWeekPlanChanged(snapshot);
+        gl.addManualItem("Eggs", 2);
+
+        Pantry pantry = new Pantry();
+        pantry.setStock("milk", 1);
+        gl.attachPantry(pantry);
+        try {
+            assertEquals(1, gl.getItems().get("Milk"), "Stock present at attach time is applied");
+
+            pantry.addStock("Oats", 5);
+            pantry.setStock("Eggs", 10);
+            Map<String, Integer> items = gl.getItems();
+            assertFalse(items.containsKey("Oats"));
+            assertEquals(2, items.get("Eggs"), "Manual items are never reduced");
+
+            pantry.setStock("Milk", 0);
+            assertEquals(2, gl.getItems().get("Milk"));
+        } finally {
+            gl.detachPantry();
+        }
+        assertEquals(2, gl.getItems().get("Oats"), "Detaching restores full quantities");
+        pantry.setStock("Milk", 9);
+        assertEquals(2, gl.getItems().get("Milk"));
+    }
+
     @Test
     void normalizationOnManualOperations() {
         gl.addManualItem("  Salt  ", 1);
@@ -140,4 +281,27 @@ class GroceryListTest {
         gl.removeItems(List.of("  Salt  "));
         assertFalse(gl.getItems().containsKey("Salt"));
     }
+
+    @Test
+    void itemsViewIsReusedUntilTheNextChange() {
+        Map<DayOfWeek, Map<MealSlot, Recipe>> snapshot = new EnumMap<>(DayOfWeek.class);
+        snapshot.put(DayOfWeek.MONDAY, new EnumMap<>(MealSlot.class));
+        snapshot.get(DayOfWeek.MONDAY).put(MealSlot.LUNCH,
+                new Recipe.Builder("Toast").ingredients(List.of("Bread", "Butter")).build());
+        gl.onWeekPlanChanged(snapshot);
+        gl.addManualItem("Jam", 1);
+
+        Map<String, Integer> first = gl.getItems();
+        assertSame(first, gl.getItems(), "No change, no rebuild");
+        assertEquals(List.of("Jam", "Bread", "Butter"), new ArrayList<>(first.keySet()), "Manual lines come first");
+
+        gl.addManualItem("Bread", 1);
+        Map<String, Integer> second = gl.getItems();
+        assertNotSame(first, second);
+        assertEquals(Map.of("Jam", 1, "Bread", 2, "Butter", 1), second);
+        assertEquals(1, first.get("Bread"), "Views handed out earlier are never mutated");
+
+        gl.onWeekPlanChanged(snapshot);
+        assertSame(second, gl.getItems(), "An unchanged plan does not invalidate the view");
+    }
 }
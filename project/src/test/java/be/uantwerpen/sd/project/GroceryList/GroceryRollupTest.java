@@ -0,0 +1,111 @@
+package be.uantwerpen.sd.project.GroceryList;
+
+import be.uantwerpen.sd.project.Planner.MealPlanService;
+import be.uantwerpen.sd.project.Planner.MealSlot;
+import be.uantwerpen.sd.project.Recipe.Recipe;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GroceryRollupTest {
+
+    // Monday
+    private static final LocalDate WEEK = LocalDate.of(2026, 10, 19);
+
+    private Recipe omelet;
+    private Recipe pasta;
+    private GroceryRollup rollup;
+
+    @BeforeEach
+    void setUp() {
+        omelet = new Recipe.Builder("Omelet").ingredients(List.of("Eggs", "Milk")).build();
+        pasta = new Recipe.Builder("Pasta").ingredients(List.of("Spaghetti", "Garlic")).build();
+        rollup = new GroceryRollup(WEEK);
+    }
+
+    @Test
+    void rangeSpansTwoWeeks() {
+        rollup.recordWeek(WEEK, week(Map.of(DayOfWeek.MONDAY, omelet, DayOfWeek.THURSDAY, omelet, DayOfWeek.FRIDAY, pasta)));
+        rollup.recordWeek(WEEK.plusWeeks(1), week(Map.of(DayOfWeek.TUESDAY, omelet, DayOfWeek.WEDNESDAY, pasta)));
+
+        // Thursday through next Tuesday
+        Map<String, Integer> items = rollup.itemsBetween(WEEK.plusDays(3), WEEK.plusDays(8));
+        assertEquals(2, items.get("Eggs"));
+        assertEquals(2, items.get("Milk"));
+        assertEquals(1, items.get("Spaghetti"));
+        assertEquals(4, items.size());
+
+        assertEquals(3, rollup.itemsBetween(WEEK, WEEK.plusDays(13)).get("Eggs"));
+        assertTrue(rollup.itemsBetween(WEEK.minusDays(10), WEEK.minusDays(1)).isEmpty(), "Unrecorded days are empty");
+        assertThrows(IllegalArgumentException.class, () -> rollup.itemsBetween(WEEK.plusDays(1), WEEK));
+    }
+
+    @Test
+    void observesPlanChangesForTheCurrentWeek() {
+        MealPlanService service = new MealPlanService(GroceryList.newInstance());
+        service.getWeekPlan().addObserver(rollup);
+
+        service.setRecipe(DayOfWeek.WEDNESDAY, MealSlot.BREAKFAST, omelet);
+        assertEquals(1, rollup.itemsBetween(WEEK, WEEK.plusDays(6)).get("Eggs"));
+
+        // Plan next week with the same planner (Wednesday's omelet carries over); earlier weeks are kept
+        rollup.setWeekStart(WEEK.plusDays(9));
+        service.setRecipe(DayOfWeek.MONDAY, MealSlot.DINNER, pasta);
+        Map<String, Integer> twoWeeks = rollup.itemsBetween(WEEK, WEEK.plusDays(13));
+        assertEquals(2, twoWeeks.get("Eggs"));
+        assertEquals(1, twoWeeks.get("Garlic"));
+        assertEquals(1, rollup.itemsBetween(WEEK.plusDays(7), WEEK.plusDays(13)).get("Eggs"));
+
+        // Replacing a day earlier in the window invalidates the prefix sums after it
+        rollup.recordDay(WEEK.plusDays(2), Map.of(MealSlot.BREAKFAST, pasta));
+        twoWeeks = rollup.itemsBetween(WEEK, WEEK.plusDays(13));
+        assertEquals(1, twoWeeks.get("Eggs"));
+        assertEquals(2, twoWeeks.get("Garlic"));
+    }
+
+    @Test
+    void dismissalBaselineHidesOnlyKnownQuantities() {
+        rollup.recordWeek(WEEK, week(Map.of(DayOfWeek.MONDAY, omelet, DayOfWeek.TUESDAY, omelet)));
+        rollup.dismissBetween(WEEK, WEEK.plusDays(6), List.of("eggs"));
+        assertFalse(rollup.itemsBetween(WEEK, WEEK.plusDays(6)).containsKey("Eggs"));
+        assertEquals(2, rollup.itemsBetween(WEEK, WEEK.plusDays(6)).get("Milk"));
+
+        rollup.recordDay(WEEK.plusDays(4), Map.of(MealSlot.LUNCH, omelet));
+        assertEquals(1, rollup.itemsBetween(WEEK, WEEK.plusDays(6)).get("Eggs"), "Only the new quantity shows up");
+    }
+
+    @Test
+    void dismissalsStayWithinTheirDays() {
+        rollup.recordWeek(WEEK, week(Map.of(DayOfWeek.MONDAY, omelet, DayOfWeek.THURSDAY, omelet, DayOfWeek.SUNDAY, omelet)));
+
+        // Dismissing Monday-Tuesday hides Monday's eggs only
+        rollup.dismissBetween(WEEK, WEEK.plusDays(1), List.of("Eggs"));
+        assertFalse(rollup.itemsBetween(WEEK, WEEK.plusDays(1)).containsKey("Eggs"));
+        assertEquals(1, rollup.itemsBetween(WEEK.plusDays(3), WEEK.plusDays(4)).get("Eggs"), "Thursday is not dismissed");
+        assertEquals(2, rollup.itemsBetween(WEEK, WEEK.plusDays(6)).get("Eggs"));
+        assertEquals(3, rollup.itemsBetween(WEEK, WEEK.plusDays(6)).get("Milk"));
+    }
+
+    @Test
+    void replanningADismissedDayShowsItAgain() {
+        rollup.recordWeek(WEEK, week(Map.of(DayOfWeek.MONDAY, omelet)));
+        rollup.dismissBetween(WEEK, WEEK.plusDays(6), List.of("eggs"));
+        assertFalse(rollup.itemsBetween(WEEK, WEEK.plusDays(6)).containsKey("Eggs"));
+
+        // Dropping the recipe clamps Monday's baseline to 0; planning it again shows it fresh
+        rollup.recordDay(WEEK, Map.of());
+        rollup.recordDay(WEEK, Map.of(MealSlot.BREAKFAST, omelet));
+        assertEquals(1, rollup.itemsBetween(WEEK, WEEK.plusDays(6)).get("Eggs"));
+    }
+
+    private static Map<DayOfWeek, Map<MealSlot, Recipe>> week(Map<DayOfWeek, Recipe> breakfasts) {
+        Map<DayOfWeek, Map<MealSlot, Recipe>> snapshot = new EnumMap<>(DayOfWeek.class);
+        breakfasts.forEach((day, recipe) -> snapshot.put(day, Map.of(MealSlot.BREAKFAST, recipe)));
+        return snapshot;
+    }
+}
@@ -0,0 +1,64 @@
+package be.uantwerpen.sd.project.GroceryList;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngredientCountsTest {
+
+    @Test
+    void matchesLinkedHashMapUnderRandomChurn() {
+        IngredientCounts counts = new IngredientCounts();
+        Map<Integer, Integer> reference = new LinkedHashMap<>();
+        Random random = new Random(42);
+
+        for (int step = 0; step < 50_000; step++) {
+            int id = random.nextInt(300);
+            int delta = random.nextInt(5) - 2;
+            int expected = reference.getOrDefault(id, 0) + delta;
+            if (expected > 0) reference.put(id, expected); else reference.remove(id);
+
+            assertEquals(Math.max(0, expected), counts.add(id, delta));
+        }
+
+        assertEquals(reference.size(), counts.size());
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < counts.orderLength(); i++) {
+            int id = counts.idAt(i);
+            if (id < 0) continue;
+            order.add(id);
+            assertEquals(reference.get(id), counts.get(id));
+        }
+        assertEquals(new ArrayList<>(reference.keySet()), order, "Iteration follows insertion order");
+    }
+
+    @Test
+    void reAddingARemovedKeyAppendsItAtTheEnd() {
+        IngredientCounts counts = new IngredientCounts();
+        counts.put(1, 1);
+        counts.put(2, 1);
+        counts.remove(1);
+        counts.put(1, 3);
+
+        assertFalse(counts.contains(7));
+        assertEquals(0, counts.get(7));
+        assertEquals(3, counts.get(1));
+        assertEquals(2, counts.idAt(1));
+        assertEquals(1, counts.idAt(2));
+    }
+
+    @Test
+    void internAssignsDenseIdsInFirstSeenOrder() {
+        IngredientIds ids = new IngredientIds();
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, ids.intern("item" + i, "Item " + i));
+        }
+        assertEquals(0, ids.intern("item0", "ignored"));
+        assertEquals(999, ids.find("item999"));
+        assertEquals(-1, ids.find("unknown"));
+        assertEquals("Item 42", ids.name(42));
+        assertEquals(1000, ids.size());
+    }
+}
@@ -0,0 +1,108 @@
+package be.uantwerpen.sd.project;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HeadlessRunnerTest {
+
+    private static final String RECIPES = String.join("\n",
+            "# title\tdescription\tingredients\ttags",
+            "Pancakes\tFluffy\tflour,milk,eggs\tbreakfast",
+            "Omelette\t\teggs,butter\tbreakfast,quick",
+            "",
+            "Curry\tSpicy\tchicken,rice\tdinner");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void importPlanAndExportGroceries() throws Exception {
+        Path recipes = Files.writeString(dir.resolve("recipes.tsv"), RECIPES);
+        Path groceries = dir.resolve("groceries.txt");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        int code = HeadlessRunner.run(new String[]{
+                "--import", recipes.toString(),
+                "--slots", "breakfast,dinner",
+                "--plan",
+                "--export-groceries", groceries.toString()
+        }, new PrintStream(out, true, StandardCharsets.UTF_8), System.err);
+
+        assertEquals(0, code);
+        String log = out.toString(StandardCharsets.UTF_8);
+        assertTrue(log.contains("Imported 3 recipe(s)"), log);
+        assertTrue(log.contains("Planned 14 slot(s)"), log);
+        // Breakfasts alternate Pancakes/Omelette (4 + 3), Curry every dinner
+        List<String> lines = Files.readAllLines(groceries);
+        assertTrue(lines.contains("eggs\t7"), lines.toString());
+        assertTrue(lines.contains("rice\t7"), lines.toString());
+        assertTrue(lines.contains("flour\t4"), lines.toString());
+    }
+
+    @Test
+    void queriesPrintMatchingRecipes() throws Exception {
+        Path recipes = Files.writeString(dir.resolve("recipes.tsv"), RECIPES);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        int code = HeadlessRunner.run(new String[]{"--import", recipes.toString(), "--tag", "breakfast", "--tags"},
+                new PrintStream(out, true, StandardCharsets.UTF_8), System.err);
+
+        assertEquals(0, code);
+        String log = out.toString(StandardCharsets.UTF_8);
+        assertTrue(log.contains("Pancakes\tbreakfast"), log);
+        assertFalse(log.contains("Curry\t"), log);
+        assertTrue(log.contains("breakfast\t2"), log);
+    }
+
+    @Test
+    void dedupSkipsRecipesAlreadyInTheLibrary() throws Exception {
+        Path recipes = Files.writeString(dir.resolve("recipes.tsv"), RECIPES);
+        Path again = Files.writeString(dir.resolve("again.tsv"), "pancakes\tOther text\tEggs,Milk,Flour\tBreakfast\nWaffles\t\tflour,eggs\t\n");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        int code = HeadlessRunner.run(new String[]{"--import", recipes.toString(), "--dedup", "--import", again.toString(),
+                "--import", recipes.toString(), "--search", ""}, new PrintStream(out, true, StandardCharsets.UTF_8), System.err);
+
+        assertEquals(0, code);
+        String log = out.toString(StandardCharsets.UTF_8);
+        assertTrue(log.contains("Imported 1 recipe(s)\nSkipped 1 duplicate(s) already in the library"), log);
+        assertTrue(log.contains("Imported 0 recipe(s)\nSkipped 3 duplicate(s) already in the library"), log);
+        assertEquals(4, log.lines().filter(line -> !line.startsWith("Imported") && !line.startsWith("Skipped")).count(), log);
+    }
+
+    @Test
+    void unknownOptionFails() {
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        int code = HeadlessRunner.run(new String[]{"--bogus"}, System.out, new PrintStream(err, true, StandardCharsets.UTF_8));
+        assertEquals(1, code);
+        assertTrue(err.toString(StandardCharsets.UTF_8).contains("Unknown option"));
+    }
+
+    @Test
+    void runsWithoutJavaFxOnTheClassPath() throws Exception {
+        Path recipes = Files.writeString(dir.resolve("recipes.tsv"), RECIPES);
+        URL classes = HeadlessRunner.class.getProtectionDomain().getCodeSource().getLocation();
+        // Only the project's own classes: any javafx.* reference would fail with NoClassDefFoundError
+        try (URLClassLoader isolated = new URLClassLoader(new URL[]{classes}, ClassLoader.getPlatformClassLoader())) {
+            Class<?> runner = isolated.loadClass(HeadlessRunner.class.getName());
+            Method run = runner.getDeclaredMethod("run", String[].class, PrintStream.class, PrintStream.class);
+            run.setAccessible(true);
+            PrintStream sink = new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8);
+            Object code = run.invoke(null, new String[]{"--import", recipes.toString(), "--plan", "--show-plan",
+                    "--export-groceries", "-"}, sink, sink);
+            assertEquals(0, code);
+        }
+    }
+}
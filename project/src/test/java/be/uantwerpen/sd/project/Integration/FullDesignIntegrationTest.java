@@ -30,16 +30,10 @@ public class FullDesignIntegrationTest {
 
     @BeforeEach
     void setUp() {
-        mealService = new MealPlanService();
+        // Each test gets its own scoped grocery list, wired to the plan by the service
+        mealService = new MealPlanService(GroceryList.newInstance());
         weekPlan = mealService.getWeekPlan();
-        groceryList = GroceryList.getInstance();
-
-        // Ensure GroceryList observes the WeekPlan like in the app wiring
-        weekPlan.addObserver(groceryList);
-
-        // Reset GroceryList state using only its public API (as done in unit tests)
-        groceryList.onWeekPlanChanged(Collections.emptyMap());
-        groceryList.removeItems(new ArrayList<>(groceryList.getItems().keySet()));
+        groceryList = mealService.getGroceryList();
         assertTrue(groceryList.getItems().isEmpty(), "Precondition: grocery list should start empty");
     }
 
@@ -108,4 +102,45 @@ public class FullDesignIntegrationTest {
         assertFalse(items.containsKey("Lettuce"));
         assertFalse(items.containsKey("Tomato"));
     }
+
+    @Test
+    void endToEnd_ScopedGroceryListsDoNotShareState() {
+        MealPlanService other = new MealPlanService(GroceryList.newInstance());
+        Recipe soup = new Recipe.Builder("Soup")
+                .description("")
+                .ingredients(List.of("Carrot"))
+                .build();
+
+        other.setRecipe(DayOfWeek.MONDAY, MealSlot.DINNER, soup);
+
+        assertTrue(other.getGroceryList().getItems().containsKey("Carrot"));
+        assertFalse(groceryList.getItems().containsKey("Carrot"));
+        assertNotSame(GroceryList.getInstance(), other.getGroceryList());
+    }
+
+    @Test
+    void compatibilityPredicateMatchesTheGuard() {
+        Recipe porridge = new Recipe.Builder("Porridge").ingredients(List.of("Oats")).tags(List.of("breakfast")).build();
+        Recipe soup = new Recipe.Builder("Soup").ingredients(List.of("Carrot")).tags(List.of("vegan")).build();
+
+        assertTrue(MealPlanService.isCompatible(MealSlot.BREAKFAST, porridge));
+        assertFalse(MealPlanService.isCompatible(MealSlot.DINNER, porridge));
+        assertTrue(MealPlanService.isCompatible(MealSlot.SNACKS, soup), "No meal-type tag, no restriction");
+        // Two meal-type tags fit no slot, the same as setRecipe decides (the view filters with this predicate)
+        Recipe brunch = new Recipe.Builder("Brunch").ingredients(List.of("Eggs")).tags(List.of("breakfast", "lunch")).build();
+        assertFalse(MealPlanService.isCompatible(MealSlot.BREAKFAST, brunch));
+        assertFalse(MealPlanService.isCompatible(MealSlot.LUNCH, brunch));
+        assertThrows(IllegalArgumentException.class, () -> mealService.setRecipe(DayOfWeek.MONDAY, MealSlot.LUNCH, brunch));
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> mealService.setRecipe(DayOfWeek.MONDAY, MealSlot.DINNER, porridge));
+        assertEquals("Recipe tagged for breakfast can only be planned in the Breakfast slot", ex.getMessage());
+    }
+
+    @Test
+    void defaultServiceDoesNotFeedTheSharedList() {
+        assertNotSame(GroceryList.getInstance(), new MealPlanService().getGroceryList());
+        assertNotSame(new MealPlanService().getGroceryList(), new MealPlanService().getGroceryList());
+        assertSame(GroceryList.getInstance(), MealPlanService.withSharedGroceryList().getGroceryList());
+    }
 }
@@ -0,0 +1,61 @@
+package be.uantwerpen.sd.project;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    void percentilesAreBucketUpperBounds() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) h.record(1_500_000); // 1.5 ms
+        h.record(40_000_000); // one 40 ms outlier
+
+        assertEquals(100, h.count());
+        assertEquals(40_000_000, h.maxNanos());
+        // 1500 us lies in [1024, 2048) us
+        assertEquals(2_048_000, h.percentileNanos(50));
+        assertEquals(2_048_000, h.percentileNanos(99));
+        assertEquals(40_000_000, h.percentileNanos(100));
+        assertEquals(1.885, h.meanMillis(), 1e-9);
+    }
+
+    @Test
+    void emptyHistogramReportsZeros() {
+        LatencyHistogram h = new LatencyHistogram();
+        assertEquals(0, h.percentileNanos(99));
+        assertEquals(0, h.meanMillis());
+        assertThrows(IllegalArgumentException.class, () -> h.percentileNanos(101));
+    }
+
+    @Test
+    void recorderTimesNamedActions() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        recorder.time("b.handler", () -> { });
+        recorder.time("a.handler", () -> { });
+        recorder.time("a.handler", () -> { });
+
+        assertEquals(2, recorder.histogram("a.handler").count());
+        String report = recorder.report();
+        assertTrue(report.indexOf("a.handler") < report.indexOf("b.handler"), report);
+        assertTrue(report.contains("n=2"), report);
+    }
+
+    @Test
+    void asyncActionsAreTimedUntilTheyComplete() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        CompletableFuture<String> work = new CompletableFuture<>();
+        assertSame(work, recorder.timeAsync("onSearch", () -> work));
+        assertEquals(0, recorder.histogram("onSearch").count(), "Not recorded when submitted");
+
+        work.complete("done");
+        assertEquals(1, recorder.histogram("onSearch").count());
+
+        recorder.timeAsync("onSearch", () -> CompletableFuture.failedFuture(new IllegalStateException()));
+        recorder.timeAsync("onSearch", () -> new CompletableFuture<Void>()).cancel(true);
+        assertEquals(2, recorder.histogram("onSearch").count(), "Failures count, superseded work does not");
+    }
+}
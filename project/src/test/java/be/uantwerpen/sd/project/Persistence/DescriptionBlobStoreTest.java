@@ -0,0 +1,70 @@
+package be.uantwerpen.sd.project.Persistence;
+
+import be.uantwerpen.sd.project.Recipe.Recipe;
+import be.uantwerpen.sd.project.Recipe.RecipeService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DescriptionBlobStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void storedTextsAreReadBackAcrossSegmentsAndCachedLeastRecentlyUsedFirst() throws IOException {
+        Path file = dir.resolve("descriptions.blob");
+        try (DescriptionBlobStore store = new DescriptionBlobStore(file, 2, 16)) {
+            Supplier<String> a = store.store("Crème brûlée");   // 15 bytes
+            Supplier<String> b = store.store("Simmer gently");  // does not fit behind a: next segment
+            Supplier<String> c = store.store("A description longer than one segment");
+            Supplier<String> d = store.store("");
+            Supplier<String> e = store.store("Bake");
+
+            assertEquals("Crème brûlée", a.get());
+            assertEquals("Simmer gently", b.get());
+            assertEquals("A description longer than one segment", c.get());
+            assertEquals("", d.get());
+            assertEquals("Bake", e.get());
+            assertEquals(4, store.cacheMisses());
+            assertEquals(2, store.cachedCount());
+
+            assertEquals("Bake", e.get());              // still cached
+            assertEquals("Crème brûlée", a.get());      // evicted, decoded again
+            assertEquals(1, store.cacheHits());
+            assertEquals(5, store.cacheMisses());
+            assertEquals(16 + 16 + 48 + 4, store.bytesStored());
+        }
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void serviceKeepsTheDescriptionsOfItsRecipesInItsStore() throws IOException {
+        try (DescriptionBlobStore store = DescriptionBlobStore.createTemp()) {
+            RecipeService service = new RecipeService(store);
+            service.create("Soup", "  Simmer for an hour ", List.of("water"), List.of());
+            service.create("Toast", "", List.of("bread"), List.of());
+            service.add(new Recipe.Builder("Salad").description("Toss").addIngredient("lettuce").build());
+            RecipeService other = new RecipeService();
+            other.create("Stew", "Slow cook", List.of("beef"), List.of());
+
+            assertEquals("Simmer for an hour", service.get(0).getDescription());
+            assertEquals("", service.get(1).getDescription());
+            assertEquals("Toss", service.get(2).getDescription());
+            assertEquals("Slow cook", other.get(0).getDescription());
+            assertEquals("Simmer for an hour".length(), store.bytesStored());
+            assertEquals(1, store.cacheMisses());
+
+            store.close();
+            assertThrows(IllegalStateException.class, () -> service.get(0).getDescription());
+            assertEquals("Toss", service.get(2).getDescription());
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package be.uantwerpen.sd.project.Persistence;
+
+import be.uantwerpen.sd.project.GroceryList.GroceryList;
+import be.uantwerpen.sd.project.Planner.MealPlanService;
+import be.uantwerpen.sd.project.Planner.MealSlot;
+import be.uantwerpen.sd.project.Planner.WeekPlan;
+import be.uantwerpen.sd.project.Recipe.Recipe;
+import be.uantwerpen.sd.project.Recipe.RecipeService;
+import be.uantwerpen.sd.project.Recipe.SortByTitle;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DayOfWeek;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MutationJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private RecipeService recipes = new RecipeService();
+    private MealPlanService planner = new MealPlanService(GroceryList.newInstance());
+
+    @Test
+    void recoversEveryKindOfChange() throws Exception {
+        long appleKey;
+        try (MutationJournal journal = MutationJournal.open(dir, recipes, planner)) {
+            Recipe soup = create("Soup", "tomato", "lunch");
+            Recipe curry = create("Curry", "rice", "dinner");
+            Recipe apple = create("Apple", "apple\twith tab", null);
+            appleKey = recipes.keyOf(apple);
+            journal.saveChanges(recipes, planner);
+
+            recipes.sortRecipes(new SortByTitle());
+            planner.setRecipe(DayOfWeek.MONDAY, MealSlot.LUNCH, soup);
+            planner.setRecipe(DayOfWeek.MONDAY, MealSlot.DINNER, curry);
+            journal.saveChanges(recipes, planner);
+
+            planner.clear(DayOfWeek.MONDAY, MealSlot.DINNER);
+            Recipe soup2 = new Recipe.Builder("Soup").addIngredient("tomato").addIngredient("basil").addTag("lunch").build();
+            recipes.replace(soup, soup2);
+            planner.replaceRecipeReferences(soup, soup2);
+            recipes.remove(apple);
+            planner.setActiveSlots(EnumSet.of(MealSlot.LUNCH, MealSlot.DINNER));
+            journal.saveChanges(recipes, planner).get(5, TimeUnit.SECONDS);
+        }
+
+        RecipeService recovered = new RecipeService();
+        MealPlanService recoveredPlan = new MealPlanService(GroceryList.newInstance());
+        MutationJournal.open(dir, recovered, recoveredPlan).close();
+
+        assertEquals(List.of("Curry", "Soup"), titles(recovered));
+        Recipe plannedSoup = recoveredPlan.getRecipe(DayOfWeek.MONDAY, MealSlot.LUNCH).orElseThrow();
+        assertSame(recovered.get(1), plannedSoup, "plan must point at the library instance");
+        assertEquals(List.of("tomato", "basil"), plannedSoup.getIngredients());
+        assertTrue(recoveredPlan.getRecipe(DayOfWeek.MONDAY, MealSlot.DINNER).isEmpty());
+        assertEquals(EnumSet.of(MealSlot.LUNCH, MealSlot.DINNER), recoveredPlan.getActiveSlots());
+        // Keys survive recovery, and new entries do not reuse them
+        assertEquals(recipes.keyOf(recipes.get(1)), recovered.keyOf(plannedSoup));
+        assertTrue(recovered.takeChanges().isEmpty(), "recovered state must start clean");
+        Recipe added = recovered.create("Tea", "", List.of("tea"), List.of());
+        assertTrue(recovered.keyOf(added) > appleKey);
+    }
+
+    @Test
+    void onlyChangedRecipesAndCellsAreWritten() throws Exception {
+        try (MutationJournal journal = MutationJournal.open(dir, recipes, planner)) {
+            for (int i = 0; i < 1000; i++) create("Recipe " + i, "salt", null);
+            journal.saveChanges(recipes, planner).get(5, TimeUnit.SECONDS);
+            assertEquals(1000, journal.recordCount());
+
+            Recipe edited = recipes.get(500);
+            for (int i = 0; i < 50; i++) {
+                Recipe next = new Recipe.Builder("Edit " + i).addIngredient("pepper").build();
+                recipes.replace(edited, next);
+                planner.setRecipe(DayOfWeek.TUESDAY, MealSlot.SNACKS, next);
+                edited = next;
+            }
+            journal.saveChanges(recipes, planner).get(5, TimeUnit.SECONDS);
+            assertEquals(1002, journal.recordCount(), "one recipe and one cell, each written once");
+
+            assertTrue(journal.saveChanges(recipes, planner).isDone(), "nothing changed, nothing to write");
+            assertEquals(1002, journal.recordCount());
+        }
+
+        RecipeService recovered = new RecipeService();
+        MealPlanService recoveredPlan = new MealPlanService(GroceryList.newInstance());
+        MutationJournal.open(dir, recovered, recoveredPlan).close();
+        assertEquals("Edit 49", recovered.get(500).getTitle());
+        assertSame(recovered.get(500), recoveredPlan.getRecipe(DayOfWeek.TUESDAY, MealSlot.SNACKS).orElseThrow());
+    }
+
+    @Test
+    void concurrentSavesAreGroupCommitted() throws Exception {
+        List<CompletableFuture<Void>> durable = new ArrayList<>();
+        try (MutationJournal journal = MutationJournal.open(dir, recipes, planner)) {
+            for (int i = 0; i < 2000; i++) {
+                create("Recipe " + i, "salt", null);
+                durable.add(journal.saveChanges(recipes, planner));
+            }
+            CompletableFuture.allOf(durable.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+            assertEquals(2000, journal.recordCount());
+            assertTrue(journal.commitCount() < journal.recordCount(),
+                    "expected batched fsyncs, got " + journal.commitCount() + " for " + journal.recordCount());
+        }
+    }
+
+    @Test
+    void compactionReplacesOldGenerationsWithASnapshot() throws Exception {
+        try (MutationJournal journal = MutationJournal.open(dir, recipes, planner)) {
+            Recipe pasta = create("Pasta", "pasta", "dinner");
+            planner.setRecipe(DayOfWeek.FRIDAY, MealSlot.DINNER, pasta);
+            journal.saveChanges(recipes, planner);
+            create("Bread", "flour", null); // unsaved: goes into the snapshot
+
+            journal.compact(recipes, planner).get(5, TimeUnit.SECONDS);
+            assertEquals(0, journal.journalBytes());
+
+            create("Salad", "lettuce", "lunch");
+            journal.saveChanges(recipes, planner);
+        }
+
+        assertEquals(Set.of("snapshot-1.snap", "journal-1.log"), fileNames());
+        RecipeService recovered = new RecipeService();
+        MealPlanService recoveredPlan = new MealPlanService(GroceryList.newInstance());
+        MutationJournal.open(dir, recovered, recoveredPlan).close();
+
+        assertEquals(List.of("Pasta", "Bread", "Salad"), titles(recovered));
+        assertSame(recovered.get(0), recoveredPlan.getRecipe(DayOfWeek.FRIDAY, MealSlot.DINNER).orElseThrow());
+    }
+
+    @Test
+    void retaggedPlannedRecipeIsRecoveredInItsSlot() throws Exception {
+        try (MutationJournal journal = MutationJournal.open(dir, recipes, planner)) {
+            Recipe soup = create("Soup", "tomato", null);
+            planner.setRecipe(DayOfWeek.MONDAY, MealSlot.LUNCH, soup);
+            journal.saveChanges(recipes, planner);
+
+            // Editing skips the slot guard, so the plan keeps the re-tagged recipe at lunch
+            Recipe dinnerSoup = new Recipe.Builder("Soup").addIngredient("tomato").addTag("dinner").build();
+            recipes.replace(soup, dinnerSoup);
+            planner.replaceRecipeReferences(soup, dinnerSoup);
+            journal.saveChanges(recipes, planner).get(5, TimeUnit.SECONDS);
+        }
+
+        RecipeService recovered = new RecipeService();
+        MealPlanService recoveredPlan = new MealPlanService(GroceryList.newInstance());
+        try (MutationJournal journal = MutationJournal.open(dir, recovered, recoveredPlan)) {
+            assertSame(recovered.get(0), recoveredPlan.getRecipe(DayOfWeek.MONDAY, MealSlot.LUNCH).orElseThrow());
+            journal.compact(recovered, recoveredPlan).get(5, TimeUnit.SECONDS);
+        }
+
+        RecipeService again = new RecipeService();
+        MealPlanService againPlan = new MealPlanService(GroceryList.newInstance());
+        MutationJournal.open(dir, again, againPlan).close();
+        assertEquals(Set.of("dinner"), againPlan.getRecipe(DayOfWeek.MONDAY, MealSlot.LUNCH).orElseThrow().getTags());
+    }
+
+    @Test
+    void tornTailIsTruncatedOnRecovery() throws Exception {
+        try (MutationJournal journal = MutationJournal.open(dir, recipes, planner)) {
+            create("Kept", "salt", null);
+            journal.saveChanges(recipes, planner).get(5, TimeUnit.SECONDS);
+        }
+        Path log = dir.resolve("journal-0.log");
+        long intact = Files.size(log);
+        Files.writeString(log, "0badc0de\tU\t9\tTorn", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        RecipeService recovered = new RecipeService();
+        MealPlanService recoveredPlan = new MealPlanService(GroceryList.newInstance());
+        try (MutationJournal journal = MutationJournal.open(dir, recovered, recoveredPlan)) {
+            assertEquals(List.of("Kept"), titles(recovered));
+            assertEquals(intact, Files.size(log));
+            recovered.create("After", "", List.of("salt"), List.of());
+            journal.saveChanges(recovered, recoveredPlan).get(5, TimeUnit.SECONDS);
+        }
+
+        RecipeService again = new RecipeService();
+        MutationJournal.open(dir, again, new MealPlanService(GroceryList.newInstance())).close();
+        assertEquals(List.of("Kept", "After"), titles(again));
+    }
+
+    @Test
+    void failedSnapshotKeepsEveryChangeRecoverable() throws Exception {
+        try (MutationJournal journal = MutationJournal.open(dir, recipes, planner)) {
+            create("Saved", "salt", null);
+            journal.saveChanges(recipes, planner);
+            Recipe pending = create("Pending", "pepper", "dinner"); // unsaved when compacting
+
+            // A directory in the way of the temporary snapshot file makes the snapshot fail
+            Files.createDirectory(dir.resolve("snapshot-1.snap.tmp"));
+            CompletableFuture<Void> compaction = journal.compact(recipes, planner);
+            assertThrows(Exception.class, () -> compaction.get(5, TimeUnit.SECONDS));
+
+            // Later changes in the new generation still refer to the pending recipe
+            planner.setRecipe(DayOfWeek.MONDAY, MealSlot.DINNER, pending);
+            journal.saveChanges(recipes, planner).get(5, TimeUnit.SECONDS);
+        }
+        // The partial snapshot is cleaned up; both journals are kept
+        assertEquals(Set.of("journal-0.log", "journal-1.log"), fileNames());
+
+        RecipeService recovered = new RecipeService();
+        MealPlanService recoveredPlan = new MealPlanService(GroceryList.newInstance());
+        MutationJournal.open(dir, recovered, recoveredPlan).close();
+        assertEquals(List.of("Saved", "Pending"), titles(recovered));
+        assertSame(recovered.get(1), recoveredPlan.getRecipe(DayOfWeek.MONDAY, MealSlot.DINNER).orElseThrow());
+    }
+
+    @Test
+    void intactRecordThatDoesNotApplyFailsRecoveryWithoutTruncating() throws Exception {
+        try (MutationJournal journal = MutationJournal.open(dir, recipes, planner)) {
+            create("Kept", "salt", null);
+            journal.saveChanges(recipes, planner).get(5, TimeUnit.SECONDS);
+        }
+        Path log = dir.resolve("journal-0.log");
+        // Well-formed, but plans a recipe key that was never stored
+        Files.write(log, new JournalCodec.Fields().add("P").add(DayOfWeek.MONDAY).add(MealSlot.LUNCH).add(99L).encode(),
+                StandardOpenOption.APPEND);
+        create("Later", "salt", null);
+        long size = Files.size(log);
+
+        IOException ex = assertThrows(IOException.class, () ->
+                MutationJournal.open(dir, new RecipeService(), new MealPlanService(GroceryList.newInstance())));
+        assertTrue(ex.getMessage().contains("does not apply"), ex.getMessage());
+        assertEquals(size, Files.size(log), "Nothing may be truncated");
+    }
+
+    @Test
+    void changesOfAFailedWriteCanBeRestoredAndWrittenAgain() throws Exception {
+        MutationJournal closed = MutationJournal.open(dir, recipes, planner);
+        closed.close();
+        Recipe soup = create("Soup", "tomato", "lunch");
+        Recipe tea = create("Tea", "tea", null);
+        planner.setRecipe(DayOfWeek.MONDAY, MealSlot.LUNCH, soup);
+        RecipeService.Changes library = recipes.takeChanges();
+        WeekPlan.Changes plan = planner.getWeekPlan().takeChanges();
+        CompletableFuture<Void> failed = closed.write(library, plan, recipes);
+        assertThrows(Exception.class, () -> failed.get(5, TimeUnit.SECONDS));
+
+        // Edited and added in the meantime: restored entries keep their place before these
+        Recipe soup2 = new Recipe.Builder("Soup").addIngredient("basil").addTag("lunch").build();
+        recipes.replace(soup, soup2);
+        planner.replaceRecipeReferences(soup, soup2);
+        recipes.remove(tea);
+        create("Bread", "flour", null);
+        recipes.restoreChanges(library);
+        planner.getWeekPlan().restoreChanges(plan);
+
+        try (MutationJournal journal = MutationJournal.open(dir, new RecipeService(), new MealPlanService(GroceryList.newInstance()))) {
+            journal.saveChanges(recipes, planner).get(5, TimeUnit.SECONDS);
+        }
+        RecipeService recovered = new RecipeService();
+        MealPlanService recoveredPlan = new MealPlanService(GroceryList.newInstance());
+        MutationJournal.open(dir, recovered, recoveredPlan).close();
+        assertEquals(List.of("Soup", "Bread"), titles(recovered));
+        assertEquals(List.of("basil"), recovered.get(0).getIngredients());
+        assertSame(recovered.get(0), recoveredPlan.getRecipe(DayOfWeek.MONDAY, MealSlot.LUNCH).orElseThrow());
+    }
+
+    private Recipe create(String title, String ingredient, String tag) {
+        return recipes.create(title, "", List.of(ingredient), tag == null ? List.of() : List.of(tag));
+    }
+
+    private static List<String> titles(RecipeService service) {
+        return service.listAll().stream().map(Recipe::getTitle).toList();
+    }
+
+    private Set<String> fileNames() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(p -> p.getFileName().toString()).collect(Collectors.toSet());
+        }
+    }
+}
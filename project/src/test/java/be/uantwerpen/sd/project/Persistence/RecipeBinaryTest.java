@@ -0,0 +1,76 @@
+package be.uantwerpen.sd.project.Persistence;
+
+import be.uantwerpen.sd.project.Recipe.Recipe;
+import be.uantwerpen.sd.project.Recipe.RecipeService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecipeBinaryTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void saveAndLoadRoundTrip() throws IOException {
+        RecipeService source = new RecipeService();
+        source.create("Crème brûlée", "Bake\tslowly,\nthen torch", List.of("cream", "sugar", "eggs"), List.of("dessert"));
+        source.create("Omelette", "", List.of("eggs", "butter"), List.of("breakfast", "quick"));
+        source.create("Toast", "Golden", List.of("bread", "butter"), List.of("breakfast"));
+        Path file = dir.resolve("library" + RecipeBinary.EXTENSION);
+
+        assertTrue(RecipeBinary.isBinary(file));
+        assertEquals(3, RecipeBinary.save(source, file));
+        RecipeService target = new RecipeService();
+        assertEquals(3, RecipeBinary.load(file, target));
+
+        List<Recipe> loaded = target.listAll();
+        assertEquals(List.of("Crème brûlée", "Omelette", "Toast"), loaded.stream().map(Recipe::getTitle).toList());
+        assertEquals("Bake\tslowly,\nthen torch", loaded.get(0).getDescription());
+        assertEquals("", loaded.get(1).getDescription());
+        assertEquals(List.of("bread", "butter"), loaded.get(2).getIngredients());
+        assertEquals(Set.of("breakfast", "quick"), loaded.get(1).getTags());
+        assertEquals(2, target.countByTag("breakfast"));
+        // Repeated strings are decoded once and shared
+        assertSame(loaded.get(1).getIngredients().get(1), loaded.get(2).getIngredients().get(1));
+    }
+
+    @Test
+    void savingOverAMappedFileKeepsLoadedDescriptionsReadable() throws IOException {
+        RecipeService service = new RecipeService();
+        service.create("Soup", "Simmer for an hour", List.of("water"), List.of());
+        Path file = dir.resolve("library.rcpb");
+        RecipeBinary.save(service, file);
+        RecipeService loaded = new RecipeService();
+        RecipeBinary.load(file, loaded);
+
+        service.clear();
+        service.create("Salad", "Toss", List.of("lettuce"), List.of());
+        RecipeBinary.save(service, file);
+
+        assertEquals("Simmer for an hour", loaded.get(0).getDescription());
+    }
+
+    @Test
+    void truncatedOrForeignFilesAreRejected() throws IOException {
+        RecipeService service = new RecipeService();
+        service.create("Soup", "Simmer", List.of("water", "salt"), List.of("dinner"));
+        Path file = dir.resolve("library.rcpb");
+        RecipeBinary.save(service, file);
+        byte[] bytes = Files.readAllBytes(file);
+
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+        assertThrows(IOException.class, () -> RecipeBinary.load(file, new RecipeService()));
+
+        Files.writeString(file, "---\ntitle: Soup\n");
+        assertThrows(IOException.class, () -> RecipeBinary.load(file, new RecipeService()));
+    }
+}
@@ -0,0 +1,110 @@
+package be.uantwerpen.sd.project.Persistence;
+
+import be.uantwerpen.sd.project.Recipe.Recipe;
+import be.uantwerpen.sd.project.Recipe.RecipeService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecipeImporterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void importsCsvWithQuotingAndDropsNearDuplicates() throws IOException {
+        Path file = dir.resolve("dump.csv");
+        Files.writeString(file, String.join("\r\n",
+                "id,Title,tags,ingredients,description",
+                "1,Pancakes,breakfast,flour;milk;eggs,\"Fluffy, with \"\"maple\"\" syrup\"",
+                "2,\"Curry\nDeluxe\",dinner,chicken;rice,",
+                "3,PANCAKES!,,Eggs;Flour;milk,dupe of row 1",
+                "4,No ingredients,,,rejected",
+                ""), StandardCharsets.UTF_8);
+        RecipeService service = new RecipeService();
+
+        RecipeImporter.Result result = new RecipeImporter(2).importFile(file, service);
+
+        assertEquals(4, result.rows());
+        assertEquals(2, result.imported());
+        assertEquals(1, result.duplicates());
+        assertEquals(1, result.rejected());
+        assertTrue(result.firstError().startsWith("row 5: "), result.firstError());
+        List<Recipe> all = service.listAll();
+        assertEquals(List.of("Pancakes", "Curry\nDeluxe"), all.stream().map(Recipe::getTitle).toList());
+        assertEquals("Fluffy, with \"maple\" syrup", all.get(0).getDescription());
+        assertEquals(List.of("flour", "milk", "eggs"), all.get(0).getIngredients());
+        assertEquals(Set.of("dinner"), all.get(1).getTags());
+    }
+
+    @Test
+    void importsJsonLinesAndSkipsRecipesAlreadyInTheLibrary() throws IOException {
+        Path file = dir.resolve("dump.jsonl");
+        Files.writeString(file, String.join("\n",
+                "{\"title\": \"Cr\\u00e8me br\\u00fbl\\u00e9e\", \"ingredients\": [\"cream\", \"sugar\"], \"tags\": [\"dessert\"], \"rating\": 4.5}",
+                "",
+                "{\"title\": \"toast\", \"ingredients\": \"bread\", \"description\": \"Two\\nslices\"}",
+                "{\"title\": \"Broken\", \"ingredients\": [\"x\"]",
+                "{\"title\": \"Soup\", \"ingredients\": [\"water\"], \"description\": null}"), StandardCharsets.UTF_8);
+        RecipeService service = new RecipeService();
+        service.create("Toast", "", List.of("Bread"), List.of());
+
+        RecipeImporter.Result result = new RecipeImporter(3).importFile(file, service);
+
+        assertEquals(4, result.rows());
+        assertEquals(2, result.imported());
+        assertEquals(1, result.duplicates());
+        assertEquals(1, result.rejected());
+        assertTrue(result.firstError().startsWith("row 4: Invalid JSON"), result.firstError());
+        assertEquals(List.of("Toast", "Crème brûlée", "Soup"), service.listAll().stream().map(Recipe::getTitle).toList());
+        assertEquals("", service.listAll().get(2).getDescription());
+    }
+
+    @Test
+    void sameContentAlwaysHasTheSameFingerprint() {
+        Recipe a = new Recipe.Builder("Pancakes").ingredients(List.of("Flour", "milk")).addTag("breakfast").build();
+        Recipe b = new Recipe.Builder("PANCAKES").ingredients(List.of("milk", "flour")).addTag("Breakfast").build();
+        Recipe retagged = new Recipe.Builder("Pancakes!").ingredients(List.of("flour", "milk")).addTag("dessert").build();
+
+        assertTrue(a.hasSameContent(b));
+        assertEquals(RecipeImporter.fingerprint(a), RecipeImporter.fingerprint(b));
+        // Looser than the content hash: tags and punctuation do not count
+        assertNotEquals(a.contentHash(), retagged.contentHash());
+        assertEquals(RecipeImporter.fingerprint(a), RecipeImporter.fingerprint(retagged));
+    }
+
+    @Test
+    void largeFileIsImportedInFileOrderAcrossManyChunks() throws IOException {
+        Path file = dir.resolve("big.csv");
+        int rows = 150_000;
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("title,description,ingredients,tags\n");
+            for (int i = 0; i < rows; i++) {
+                int id = i % 10 == 9 ? i - 1 : i; // every tenth row repeats the previous one
+                out.write("Recipe " + id + ",\"A description, long enough to fill the chunks quickly\",salt;ingredient " + id + ",tag" + (id % 7) + "\n");
+            }
+        }
+        assertTrue(Files.size(file) > 8L * 1024 * 1024, "file should span several chunks");
+        RecipeService service = new RecipeService();
+
+        RecipeImporter.Result result = new RecipeImporter(2).importFile(file, service);
+
+        assertEquals(rows, result.rows());
+        assertEquals(rows / 10, result.duplicates());
+        assertEquals(rows - rows / 10, result.imported());
+        assertTrue(result.rowsPerSecond() > 0);
+        List<Recipe> all = service.listAll();
+        assertEquals("Recipe 0", all.get(0).getTitle());
+        assertEquals("Recipe 10", all.get(9).getTitle());
+        assertEquals("Recipe " + (rows - 2), all.get(all.size() - 1).getTitle());
+    }
+}
@@ -0,0 +1,90 @@
+package be.uantwerpen.sd.project.Persistence;
+
+import be.uantwerpen.sd.project.Recipe.Recipe;
+import be.uantwerpen.sd.project.Recipe.RecipeService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecipeYamlTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void saveAndLoadRoundTrip() throws IOException {
+        RecipeService source = new RecipeService();
+        source.create("Pancakes", "Fluffy: with syrup", List.of("flour", "milk", "eggs"), List.of("breakfast", "kids"));
+        source.create("Curry", "", List.of("chicken", "rice"), List.of("dinner"));
+        Path file = dir.resolve("recipes.yaml");
+
+        assertEquals(2, RecipeYaml.save(source, file));
+        RecipeService target = new RecipeService();
+        assertEquals(2, RecipeYaml.load(file, target));
+
+        List<Recipe> loaded = target.listAll();
+        assertEquals(List.of("Pancakes", "Curry"), loaded.stream().map(Recipe::getTitle).toList());
+        assertEquals(List.of("flour", "milk", "eggs"), loaded.get(0).getIngredients());
+        assertEquals("Fluffy: with syrup", loaded.get(0).getDescription());
+        assertEquals(Set.of("breakfast", "kids"), loaded.get(0).getTags());
+        assertEquals(2, target.countByTag("breakfast") + target.countByTag("dinner"));
+    }
+
+    @Test
+    void loadsHandWrittenDocumentStream() {
+        String yaml = String.join("\n",
+                "---",
+                "title: Omelette",
+                "ingredients: [eggs, butter]",
+                "---",
+                "title: Toast",
+                "ingredients: bread",
+                "tags: [quick]",
+                "---",
+                "");
+        RecipeService service = new RecipeService();
+
+        assertEquals(2, RecipeYaml.load(new StringReader(yaml), service));
+        assertEquals(List.of("bread"), service.listAll().get(1).getIngredients());
+        assertEquals("", service.listAll().get(0).getDescription());
+    }
+
+    @Test
+    void invalidDocumentIsReportedWithItsIndex() {
+        String yaml = "---\ntitle: Ok\ningredients: [a]\n---\ntitle: Empty\n";
+        RecipeService service = new RecipeService();
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> RecipeYaml.load(new StringReader(yaml), service));
+        assertTrue(ex.getMessage().contains("document 2"), ex.getMessage());
+        assertEquals(1, service.listAll().size()); // recipes before the bad one are kept
+    }
+
+    @Test
+    void loadStreamsPastTheSingleDocumentSizeLimit() throws IOException {
+        // ~6 MB in total, twice snakeyaml's default 3 MB limit, which applies per document
+        RecipeService source = new RecipeService();
+        for (int i = 0; i < 40_000; i++) {
+            source.create("Recipe " + i, "Description of recipe number " + i,
+                    List.of("ingredient " + (i % 97), "ingredient " + (i % 89)), List.of("tag" + (i % 10)));
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (Writer out = new OutputStreamWriter(bytes, StandardCharsets.UTF_8)) {
+            RecipeYaml.save(source, out);
+        }
+        assertTrue(bytes.size() > 3 * 1024 * 1024, "file should exceed the per-document limit");
+
+        RecipeService target = new RecipeService();
+        int loaded = RecipeYaml.load(new InputStreamReader(new ByteArrayInputStream(bytes.toByteArray()), StandardCharsets.UTF_8), target);
+
+        assertEquals(40_000, loaded);
+        assertEquals(4_000, target.countByTag("tag3"));
+    }
+}
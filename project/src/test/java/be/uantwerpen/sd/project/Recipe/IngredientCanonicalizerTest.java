@@ -0,0 +1,96 @@
+package be.uantwerpen.sd.project.Recipe;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngredientCanonicalizerTest {
+
+    @Test
+    void foldsCaseWhitespaceAndPlurals() {
+        IngredientCanonicalizer c = new IngredientCanonicalizer(16);
+        assertEquals("milk", c.canonicalize("Milk"));
+        assertEquals("milk", c.canonicalize("  milk "));
+        assertEquals("milk", c.canonicalize("milks"));
+        assertEquals("cherry tomato", c.canonicalize("Cherry   Tomatoes"));
+        assertEquals("berry", c.canonicalize("berries"));
+        assertEquals("radish", c.canonicalize("radishes"));
+        assertEquals("cookie", c.canonicalize("cookies"));
+        assertEquals("hummus", c.canonicalize("Hummus"));
+        assertEquals("glass", c.canonicalize("glass"));
+        assertEquals("", c.canonicalize("   "));
+        assertEquals("", c.canonicalize(null));
+    }
+
+    @Test
+    void pluralsThatOnlyDropTheirSAreNotCutShort() {
+        IngredientCanonicalizer c = new IngredientCanonicalizer(16);
+        assertEquals("quiche", c.canonicalize("Quiches"));
+        assertEquals("brownie", c.canonicalize("brownies"));
+        assertEquals("pie", c.canonicalize("pies"));
+        assertEquals("smoothie", c.canonicalize("smoothies"));
+        assertEquals("brioche", c.canonicalize("brioches"));
+        assertEquals("glaze", c.canonicalize("glazes"));
+        assertEquals("size", c.canonicalize("sizes"));
+        // The suffix rules still apply where they are unambiguous
+        assertEquals("peach", c.canonicalize("peaches"));
+        assertEquals("potato", c.canonicalize("potatoes"));
+        assertEquals("anchovy", c.canonicalize("anchovies"));
+        assertEquals("box", c.canonicalize("boxes"));
+    }
+
+    @Test
+    void concurrentLookupsAgreeWithSingleThreadedOnes() throws InterruptedException {
+        IngredientCanonicalizer c = new IngredientCanonicalizer(32);
+        String[] names = {"Milk", "Cherry Tomatoes", "brownies", "Peaches", "eggs", "Quiches"};
+        String[] expected = {"milk", "cherry tomato", "brownie", "peach", "egg", "quiche"};
+        Thread[] threads = new Thread[4];
+        AtomicInteger mismatches = new AtomicInteger();
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    int n = i % names.length;
+                    if (!expected[n].equals(c.canonicalize(names[n]))) mismatches.incrementAndGet();
+                    c.canonicalize("filler " + i); // keeps the cache evicting
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) t.join();
+        assertEquals(0, mismatches.get());
+        assertTrue(c.cachedCount() <= 32 + threads.length);
+    }
+
+    @Test
+    void synonymsMapOntoTheCanonicalTarget() {
+        IngredientCanonicalizer c = new IngredientCanonicalizer(16);
+        assertEquals("scallion", c.canonicalize("Scallions"));
+
+        c.addSynonym("scallion", "Green Onions");
+        assertEquals("green onion", c.canonicalize("Scallions"), "Cache is cleared when synonyms change");
+        assertEquals("green onion", c.canonicalize("green onion"));
+
+        c.removeSynonym("scallions");
+        assertEquals("scallion", c.canonicalize("Scallions"));
+        assertThrows(IllegalArgumentException.class, () -> c.addSynonym(" ", "x"));
+    }
+
+    @Test
+    void cacheIsBounded() {
+        IngredientCanonicalizer c = new IngredientCanonicalizer(8);
+        for (int i = 0; i < 100; i++) {
+            c.canonicalize("item " + i);
+        }
+        assertEquals(8, c.cachedCount());
+        assertThrows(IllegalArgumentException.class, () -> new IngredientCanonicalizer(0));
+    }
+
+    @Test
+    void tidyKeepsCasingAndCollapsesWhitespace() {
+        assertEquals("Olive Oil", IngredientCanonicalizer.tidy("  Olive \t Oil "));
+        assertEquals("Salt", IngredientCanonicalizer.tidy("Salt"));
+        assertEquals("", IngredientCanonicalizer.tidy(null));
+    }
+}
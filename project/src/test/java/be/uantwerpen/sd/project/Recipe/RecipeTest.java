@@ -3,7 +3,9 @@ package be.uantwerpen.sd.project.Recipe;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -46,6 +48,17 @@ public class RecipeTest {
         });
     }
 
+    @Test
+    void ingredientsAreTidiedButKeepTheirSpelling() {
+        Recipe recipe = new Recipe.Builder("Salade")
+                .addIngredient("  Cherry   Tomatoes ")
+                .build();
+
+        // Witruimte wordt opgeruimd; hoofdletters en meervoud blijven voor de weergave
+        assertEquals(List.of("Cherry Tomatoes"), recipe.getIngredients());
+        assertEquals("cherry tomato", IngredientCanonicalizer.getDefault().canonicalize(recipe.getIngredients().get(0)));
+    }
+
     @Test
     void testRecipeIsImmutable() {
         Recipe recipe = new Recipe.Builder("Test")
@@ -77,4 +90,107 @@ public class RecipeTest {
         assertEquals(1, recipeService.listAll().size());
         assertEquals("Nieuwe Titel", recipeService.listAll().get(0).getTitle());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testSearchCombinesTitleAndTag() {
+        recipeService.create("Pasta Pesto", "", List.of("Pasta"), List.of("Dinner"));
+        recipeService.create("Pasta Salade", "", List.of("Pasta"), List.of("Lunch"));
+        recipeService.create("Soep", "", List.of("Wortel"), List.of("Dinner"));
+
+        assertEquals(2, recipeService.search("pasta", null).size());
+        assertEquals(2, recipeService.search("  ", "dinner").size());
+        List<Recipe> both = recipeService.search("PASTA", "Dinner");
+        assertEquals(1, both.size());
+        assertEquals("Pasta Pesto", both.get(0).getTitle());
+    }
+
+    @Test
+    void testSearchStopsWhenThreadIsInterrupted() {
+        recipeService.create("Pasta", "", List.of("Pasta"), List.of());
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(CancellationException.class, () -> recipeService.search("pasta", null));
+        } finally {
+            Thread.interrupted(); // clear the flag for the next tests
+        }
+    }
+
+    @Test
+    void testTagFacetsFollowAddReplaceAndRemove() {
+        Recipe pesto = recipeService.create("Pasta Pesto", "", List.of("Pasta"), List.of("Dinner", "Quick"));
+        recipeService.create("Soep", "", List.of("Wortel"), List.of("dinner"));
+        assertEquals(Map.of("dinner", 2, "quick", 1), recipeService.tagFacets());
+
+        // Vervangen haalt de tags van de oude versie weg
+        Recipe lunch = new Recipe.Builder("Pasta Pesto").addIngredient("Pasta").addTag("Lunch").build();
+        recipeService.replace(pesto, lunch);
+        assertEquals(Map.of("dinner", 1, "lunch", 1), recipeService.tagFacets());
+        assertEquals(List.of("dinner", "lunch"), List.copyOf(recipeService.tagFacets().keySet()));
+
+        recipeService.remove(lunch);
+        assertEquals(0, recipeService.countByTag("LUNCH"));
+        assertEquals(1, recipeService.countByTag("dinner"));
+        assertEquals(Map.of("dinner", 1), recipeService.tagFacets());
+    }
+
+    @Test
+    void testChangeTrackingKeepsKeysAcrossReplaceAndSort() {
+        Recipe soep = recipeService.create("Soep", "", List.of("Wortel"), List.of());
+        Recipe appel = recipeService.create("Appeltaart", "", List.of("Appel"), List.of());
+        long soepKey = recipeService.keyOf(soep);
+        long appelKey = recipeService.keyOf(appel);
+        assertEquals(List.of(soep, appel), List.copyOf(recipeService.takeChanges().upserted().values()));
+        assertTrue(recipeService.takeChanges().isEmpty());
+
+        // Een nieuwe versie houdt dezelfde sleutel; alleen die komt in de wijzigingen
+        Recipe soep2 = new Recipe.Builder("Soep").addIngredient("Prei").build();
+        recipeService.replace(soep, soep2);
+        recipeService.sortRecipes(new SortByTitle());
+        recipeService.remove(appel);
+        RecipeService.Changes changes = recipeService.takeChanges();
+        assertEquals(Map.of(soepKey, soep2), changes.upserted());
+        assertEquals(List.of(appelKey), List.copyOf(changes.removed()));
+        assertEquals(List.of(soepKey), changes.order());
+        assertEquals(-1, recipeService.keyOf(appel));
+        assertEquals(soepKey, recipeService.keyOf(soep2));
+        assertSame(soep2, recipeService.byKey(soepKey));
+    }
+
+    @Test
+    void testContentHashIgnoresCaseOrderAndDescription() {
+        Recipe a = new Recipe.Builder("Pannenkoeken").description("Dun").ingredients(List.of("Bloem", "melk", "Ei")).addTag("Ontbijt").build();
+        Recipe b = new Recipe.Builder("pannenkoeken ").ingredients(List.of("ei", "Melk", "bloem")).addTag("ontbijt").build();
+        Recipe andereTag = new Recipe.Builder("Pannenkoeken").ingredients(List.of("Bloem", "melk", "Ei")).addTag("dessert").build();
+        Recipe verschoven = new Recipe.Builder("Pannenkoeken").ingredients(List.of("Bloemmelk", "Ei")).addTag("ontbijt").build();
+
+        assertEquals(a.contentHash(), b.contentHash());
+        assertTrue(a.hasSameContent(b));
+        assertNotEquals(a.contentHash(), andereTag.contentHash());
+        assertFalse(a.hasSameContent(andereTag));
+        assertNotEquals(a.contentHash(), verschoven.contentHash()); // veldgrenzen tellen mee
+    }
+
+    @Test
+    void testDuplicatesAreFoundAndOptionallyCollapsed() {
+        Recipe soep = recipeService.create("Soep", "", List.of("Wortel", "Ui"), List.of("diner"));
+        Recipe kopie = new Recipe.Builder("SOEP").ingredients(List.of("ui", "wortel")).addTag("Diner").build();
+        assertSame(soep, recipeService.findDuplicate(kopie));
+        assertNull(recipeService.findDuplicate(soep)); // een recept is geen duplicaat van zichzelf
+
+        // Standaard mogen duplicaten erbij; de index volgt verwijderen
+        recipeService.add(kopie);
+        recipeService.remove(soep);
+        Recipe nogEen = new Recipe.Builder("Soep").ingredients(List.of("Wortel", "Ui")).addTag("diner").build();
+        assertSame(kopie, recipeService.findDuplicate(nogEen));
+
+        assertSame(kopie, recipeService.intern(nogEen));
+        recipeService.setCollapseDuplicates(true);
+        assertSame(kopie, recipeService.create("soep", "Andere beschrijving", List.of("UI", "Wortel"), List.of("diner")));
+        recipeService.addAll(List.of(nogEen, new Recipe.Builder("Taart").addIngredient("Appel").build()));
+        assertEquals(List.of("SOEP", "Taart"), recipeService.listAll().stream().map(Recipe::getTitle).toList());
+        assertEquals(3, recipeService.collapsedCount());
+
+        recipeService.clear();
+        assertNull(recipeService.findDuplicate(kopie));
+    }
+}
@@ -0,0 +1,66 @@
+package be.uantwerpen.sd.project.Server;
+
+import be.uantwerpen.sd.project.LatencyHistogram;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Local load generator for the HTTP API: {@code concurrency} virtual threads send requests back
+ * to back (closed loop) until {@code total} requests have been sent. A request fails if it
+ * throws or answers with a status of 400 or higher.
+ */
+final class LoadTestClient {
+
+    record Result(int requests, int failures, String firstFailure, LatencyHistogram latency, long nanos) {
+        double requestsPerSecond() {
+            return nanos == 0 ? 0 : requests * 1e9 / nanos;
+        }
+
+        String summary() {
+            return String.format("%d requests, %d failed, %.0f req/s, latency %s",
+                    requests, failures, requestsPerSecond(), latency.summary());
+        }
+    }
+
+    private LoadTestClient() {
+    }
+
+    /** @param requests builds request number i (0 .. total-1) */
+    static Result run(int concurrency, int total, IntFunction<HttpRequest> requests) throws InterruptedException {
+        LatencyHistogram latency = new LatencyHistogram();
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        StringBuffer firstFailure = new StringBuffer();
+        long start = System.nanoTime();
+        try (HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+             ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int w = 0; w < concurrency; w++) {
+                workers.execute(() -> {
+                    for (int i = next.getAndIncrement(); i < total; i = next.getAndIncrement()) {
+                        HttpRequest request = requests.apply(i);
+                        long sent = System.nanoTime();
+                        String failure = null;
+                        try {
+                            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                            if (response.statusCode() >= 400) failure = response.statusCode() + " " + response.body();
+                        } catch (Exception ex) {
+                            failure = ex.toString();
+                        }
+                        latency.record(System.nanoTime() - sent);
+                        if (failure != null && failures.getAndIncrement() == 0) {
+                            firstFailure.append(request.method()).append(' ').append(request.uri()).append(": ").append(failure);
+                        }
+                    }
+                });
+            }
+        }
+        return new Result(total, failures.get(), firstFailure.isEmpty() ? null : firstFailure.toString(),
+                latency, System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,137 @@
+package be.uantwerpen.sd.project.Server;
+
+import be.uantwerpen.sd.project.Planner.MealSlot;
+import be.uantwerpen.sd.project.Recipe.Recipe;
+import be.uantwerpen.sd.project.Recipe.RecipeService;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PlanEventStreamTest {
+
+    private final RecipeService recipes = new RecipeService();
+    private final Recipe soup = recipes.create("Soup", "", List.of("water"), List.of());
+    private final Recipe salad = recipes.create("Salad", "", List.of("lettuce"), List.of());
+
+    @Test
+    void changesAreSerializedOnceAndCarryOnlyTheChangedCells() throws InterruptedException {
+        PlanEventStream stream = new PlanEventStream(recipes);
+        stream.onWeekPlanChanged(plan(soup));
+        PlanEventStream.Subscriber first = stream.subscribe();
+        PlanEventStream.Subscriber second = stream.subscribe();
+
+        PlanEventStream.Event snapshot = next(first);
+        assertEquals("snapshot", snapshot.type());
+        assertSame(snapshot, next(second));
+        assertTrue(text(snapshot).contains("\"MONDAY\":{\"LUNCH\":{\"key\":1,\"title\":\"Soup\""), text(snapshot));
+
+        stream.onWeekPlanChanged(plan(salad));
+        PlanEventStream.Event change = next(first);
+        assertSame(change, next(second));
+        assertEquals("id: 2\nevent: plan\ndata: {\"version\":2,\"cells\":[{\"day\":\"MONDAY\",\"slot\":\"LUNCH\",\"recipe\":"
+                + "{\"key\":2,\"title\":\"Salad\",\"ingredients\":[\"lettuce\"],\"tags\":[]}}]}\n\n", text(change));
+
+        stream.onWeekPlanChanged(plan(salad)); // nothing changed: no event
+        stream.onWeekPlanChanged(plan(null));
+        assertTrue(text(next(first)).contains("{\"day\":\"MONDAY\",\"slot\":\"LUNCH\",\"recipe\":null}"));
+        assertNull(first.poll(0, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void slowSubscriberIsCoalescedAndEventuallyDropped() throws InterruptedException {
+        PlanEventStream stream = new PlanEventStream(recipes, 2, 1);
+        PlanEventStream.Subscriber slow = stream.subscribe(); // buffer: snapshot
+
+        stream.onWeekPlanChanged(plan(soup));  // buffer full
+        stream.onWeekPlanChanged(plan(salad)); // coalesced into one snapshot of version 2
+        PlanEventStream.Event coalesced = next(slow);
+        assertEquals("snapshot", coalesced.type());
+        assertEquals(2, coalesced.id());
+        assertTrue(text(coalesced).contains("Salad"));
+        assertNull(slow.poll(0, TimeUnit.SECONDS));
+        assertEquals(1, stream.coalescedCount());
+
+        // Taking an event resets the stall count; now it stops taking altogether
+        for (int i = 0; i < 6; i++) stream.onWeekPlanChanged(plan(i % 2 == 0 ? soup : salad));
+        assertTrue(slow.isDropped());
+        assertEquals("end", next(slow).type());
+        assertEquals(0, stream.subscriberCount());
+        assertEquals(1, stream.droppedCount());
+    }
+
+    @Test
+    void droppedClientThatStoppedReadingIsDisconnected() throws Exception {
+        // Events of a megabyte each fill the socket buffers after a few writes
+        RecipeService big = new RecipeService();
+        Recipe a = big.create("a".repeat(1 << 20), "", List.of("water"), List.of());
+        Recipe b = big.create("b".repeat(1 << 20), "", List.of("water"), List.of());
+        PlanEventStream stream = new PlanEventStream(big, 2, 1);
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/plan/events", stream::serve);
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.start();
+        try (Socket client = new Socket()) {
+            client.setReceiveBufferSize(4096);
+            client.connect(server.getAddress());
+            client.getOutputStream().write("GET /plan/events HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+
+            assertTimeoutPreemptively(Duration.ofSeconds(20), () -> {
+                while (stream.connectedCount() == 0) Thread.sleep(10);
+                // The client never reads: the writer gets stuck and the buffer overflows
+                for (int i = 0; stream.droppedCount() == 0; i++) {
+                    stream.onWeekPlanChanged(plan(i % 2 == 0 ? a : b));
+                    Thread.sleep(10);
+                }
+                while (stream.connectedCount() > 0) Thread.sleep(10);
+
+                // The server side is gone: what was sent can still be read, then the stream ends
+                client.setSoTimeout(10_000);
+                InputStream in = client.getInputStream();
+                try {
+                    while (in.read(new byte[1 << 16]) >= 0) {
+                        // discard
+                    }
+                } catch (SocketException reset) {
+                    // closed with data in flight
+                }
+            });
+        } finally {
+            server.stop(0);
+            executor.close();
+        }
+    }
+
+    private static Map<DayOfWeek, Map<MealSlot, Recipe>> plan(Recipe mondayLunch) {
+        Map<DayOfWeek, Map<MealSlot, Recipe>> plan = new EnumMap<>(DayOfWeek.class);
+        for (DayOfWeek day : DayOfWeek.values()) plan.put(day, Map.of());
+        if (mondayLunch != null) plan.put(DayOfWeek.MONDAY, Map.of(MealSlot.LUNCH, mondayLunch));
+        return plan;
+    }
+
+    private static PlanEventStream.Event next(PlanEventStream.Subscriber s) throws InterruptedException {
+        PlanEventStream.Event e = s.poll(1, TimeUnit.SECONDS);
+        assertNotNull(e, "expected an event");
+        return e;
+    }
+
+    private static String text(PlanEventStream.Event e) {
+        return new String(e.bytes(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,141 @@
+package be.uantwerpen.sd.project.Server;
+
+import be.uantwerpen.sd.project.AsyncServiceFacade;
+import be.uantwerpen.sd.project.GroceryList.GroceryList;
+import be.uantwerpen.sd.project.Planner.MealPlanService;
+import be.uantwerpen.sd.project.Planner.MealSlot;
+import be.uantwerpen.sd.project.Recipe.Recipe;
+import be.uantwerpen.sd.project.Recipe.RecipeService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PlannerHttpServerTest {
+
+    private RecipeService recipes;
+    private MealPlanService planner;
+    private AsyncServiceFacade model;
+    private PlannerHttpServer server;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        recipes = new RecipeService();
+        planner = new MealPlanService(GroceryList.newInstance());
+        model = new AsyncServiceFacade(recipes, planner);
+        server = PlannerHttpServer.start(new InetSocketAddress("127.0.0.1", 0), model, recipes);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+        model.close();
+        client.close();
+    }
+
+    @Test
+    void recipeCrudRoundTrip() throws Exception {
+        HttpResponse<String> created = send("POST", "/recipes",
+                "{\"title\": \"Pancakes\", \"description\": \"Fluffy \\\"American\\\"\", \"ingredients\": [\"flour\", \"milk\"], \"tags\": [\"Breakfast\"]}");
+        assertEquals(201, created.statusCode(), created.body());
+        long key = recipes.keyOf(recipes.get(0));
+        assertEquals("/recipes/" + key, created.headers().firstValue("Location").orElseThrow());
+        assertEquals("{\"key\":" + key + ",\"title\":\"Pancakes\",\"description\":\"Fluffy \\\"American\\\"\","
+                + "\"ingredients\":[\"flour\",\"milk\"],\"tags\":[\"breakfast\"]}", send("GET", "/recipes/" + key, null).body());
+
+        HttpResponse<String> updated = send("PUT", "/recipes/" + key, "{\"title\": \"Crêpes\", \"ingredients\": \"flour\"}");
+        assertEquals(200, updated.statusCode(), updated.body());
+        assertEquals("Crêpes", recipes.byKey(key).getTitle());
+        assertEquals("{\"total\":1,\"recipes\":[{\"key\":" + key + ",\"title\":\"Crêpes\",\"ingredients\":[\"flour\"],\"tags\":[]}]}",
+                send("GET", "/recipes?q=cr%C3%AApe", null).body());
+
+        assertEquals(204, send("DELETE", "/recipes/" + key, null).statusCode());
+        assertEquals(404, send("GET", "/recipes/" + key, null).statusCode());
+        assertEquals(400, send("POST", "/recipes", "{\"title\": \"\"}").statusCode());
+        assertEquals(400, send("POST", "/recipes", "{\"title\": ").statusCode());
+        assertEquals(405, send("DELETE", "/recipes", null).statusCode());
+    }
+
+    @Test
+    void planAndGroceriesGoThroughTheModel() throws Exception {
+        Recipe omelette = recipes.create("Omelette", "", List.of("eggs", "butter"), List.of("breakfast"));
+        long key = recipes.keyOf(omelette);
+
+        assertEquals(204, send("PUT", "/plan/monday/breakfast", "{\"recipe\": " + key + "}").statusCode());
+        HttpResponse<String> mismatch = send("PUT", "/plan/monday/dinner", "{\"recipe\": " + key + "}");
+        assertEquals(400, mismatch.statusCode());
+        assertTrue(mismatch.body().contains("Breakfast slot"), mismatch.body());
+        assertEquals(404, send("PUT", "/plan/someday/dinner", "{\"recipe\": " + key + "}").statusCode());
+
+        assertEquals(omelette, planner.getRecipe(DayOfWeek.MONDAY, MealSlot.BREAKFAST).orElseThrow());
+        String plan = send("GET", "/plan", null).body();
+        assertTrue(plan.startsWith("{\"activeSlots\":[\"BREAKFAST\",\"LUNCH\",\"DINNER\",\"SNACKS\"],\"days\":{\"MONDAY\":{\"BREAKFAST\":{\"key\":" + key), plan);
+        assertEquals("{\"eggs\":1,\"butter\":1}", send("GET", "/groceries", null).body());
+
+        assertEquals(204, send("DELETE", "/plan/monday/breakfast", null).statusCode());
+        assertEquals("{}", send("GET", "/groceries", null).body());
+    }
+
+    @Test
+    void planChangesAreStreamedAsServerSentEvents() throws Exception {
+        Recipe omelette = recipes.create("Omelette", "", List.of("eggs"), List.of("breakfast"));
+        HttpRequest subscribe = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.port() + "/plan/events")).build();
+        HttpResponse<Stream<String>> stream = client.send(subscribe, HttpResponse.BodyHandlers.ofLines());
+        assertEquals("text/event-stream; charset=utf-8", stream.headers().firstValue("Content-Type").orElseThrow());
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            Iterator<String> lines = stream.body().iterator();
+            while (!lines.next().equals("event: snapshot")) {
+                // skip until the initial snapshot
+            }
+            model.setRecipe(DayOfWeek.FRIDAY, MealSlot.BREAKFAST, omelette);
+            while (!lines.next().equals("event: plan")) {
+                // skip the rest of the snapshot
+            }
+            assertEquals("data: {\"version\":1,\"cells\":[{\"day\":\"FRIDAY\",\"slot\":\"BREAKFAST\",\"recipe\":"
+                    + "{\"key\":1,\"title\":\"Omelette\",\"ingredients\":[\"eggs\"],\"tags\":[\"breakfast\"]}}]}", lines.next());
+        });
+        stream.body().close();
+    }
+
+    @Test
+    void servesThousandsOfConcurrentRequests() throws Exception {
+        for (int i = 0; i < 2_000; i++) {
+            recipes.create("Recipe " + i, "Description " + i, List.of("salt", "ingredient " + i), List.of(i % 2 == 0 ? "dinner" : "lunch"));
+        }
+        URI base = URI.create("http://127.0.0.1:" + server.port());
+
+        LoadTestClient.Result result = LoadTestClient.run(1_000, 4_000, i -> switch (i % 4) {
+            case 0 -> HttpRequest.newBuilder(base.resolve("/recipes?q=recipe+1&tag=dinner&limit=10")).build();
+            case 1 -> HttpRequest.newBuilder(base.resolve("/recipes/" + (1 + i % 2_000))).build();
+            case 2 -> HttpRequest.newBuilder(base.resolve("/plan/" + DayOfWeek.of(1 + i % 7) + "/dinner"))
+                    .PUT(HttpRequest.BodyPublishers.ofString("{\"recipe\": " + (1 + 2 * (i % 1_000)) + "}")).build();
+            default -> HttpRequest.newBuilder(base.resolve(i % 8 == 3 ? "/plan" : "/groceries")).build();
+        });
+
+        assertEquals(0, result.failures(), result.firstFailure());
+        assertEquals(4_000, result.latency().count(), result.summary());
+        assertEquals(7, planner.getWeekPlan().snapshot().values().stream().filter(day -> day.containsKey(MealSlot.DINNER)).count());
+    }
+
+    private HttpResponse<String> send(String method, String path, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.port() + path))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}